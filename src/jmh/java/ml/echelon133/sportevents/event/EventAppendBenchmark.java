@@ -0,0 +1,137 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.*;
+import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.match.GoalInfo;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.stadium.Stadium;
+import ml.echelon133.sportevents.team.Team;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+Measures the cost of adding one event to a match that already has 10, 100 or 1000 events:
+1) cascadeAppend - the previous implementation: the event is added to Match.events and saved by cascade while
+    merging the match. Hibernate queues additions to a mapped-by collection that is not loaded yet, so this
+    path stays cheap only as long as nothing else has loaded the events of the match
+2) cascadeAppendToLoadedEvents - the previous implementation when events of the match were already loaded
+    in the same session. Merge cascades over every loaded event
+3) directAppend - the event is inserted on its own and only changed columns of the match are updated
+
+All benchmarks use an in-memory H2 database. Every invocation runs in its own transaction which is flushed
+and then rolled back, so the number of events of the match stays the same during the whole benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventAppendBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int priorEvents;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private Long matchId;
+
+    @Setup
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:append" + priorEvents + ";DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.driver_class", "org.h2.Driver")
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(League.class)
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Stadium.class)
+                .addAnnotatedClass(Match.class)
+                .addAnnotatedClass(GoalInfo.class)
+                .addAnnotatedClass(AbstractMatchEvent.class)
+                .addAnnotatedClass(StandardEvent.class)
+                .addAnnotatedClass(ManagingEvent.class)
+                .addAnnotatedClass(GoalEvent.class)
+                .addAnnotatedClass(PenaltyEvent.class)
+                .addAnnotatedClass(CardEvent.class)
+                .addAnnotatedClass(SubstitutionEvent.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            League league = new League("Benchmark league", "Country");
+            Team teamA = new Team("Team A", league);
+            Team teamB = new Team("Team B", league);
+            Match match = new Match(new Date(), teamA, teamB, league);
+            session.persist(league);
+            session.persist(teamA);
+            session.persist(teamB);
+            session.persist(match);
+            for (int i = 0; i < priorEvents; i++) {
+                session.persist(new StandardEvent(1L, "Prior event", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match));
+            }
+            transaction.commit();
+            matchId = match.getId();
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    private Match inRolledBackTransaction(Function<Session, Match> work) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            Match result = work.apply(session);
+            session.flush();
+            transaction.rollback();
+            return result;
+        }
+    }
+
+    private Match cascadeAppend(Session session, Match match) {
+        AbstractMatchEvent event = new StandardEvent(2L, "New event",
+                                                     AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+        match.getEvents().add(event);
+        match.setEventCount(match.getEventCount() + 1);
+        return (Match) session.merge(match);
+    }
+
+    @Benchmark
+    public Match cascadeAppend() {
+        return inRolledBackTransaction(session -> cascadeAppend(session, session.get(Match.class, matchId)));
+    }
+
+    @Benchmark
+    public Match cascadeAppendToLoadedEvents() {
+        return inRolledBackTransaction(session -> {
+            Match match = session.get(Match.class, matchId);
+            Hibernate.initialize(match.getEvents());
+            return cascadeAppend(session, match);
+        });
+    }
+
+    @Benchmark
+    public Match directAppend() {
+        return inRolledBackTransaction(session -> {
+            Match match = session.get(Match.class, matchId);
+            AbstractMatchEvent event = new StandardEvent(2L, "New event",
+                                                         AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, null);
+            match.addEvent(event);
+            session.persist(event);
+            return (Match) session.merge(match);
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.*;
+import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.match.GoalInfo;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.stadium.Stadium;
+import ml.echelon133.sportevents.team.Team;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+Measures inserts per second of a bulk load of 10,000 events (every tenth of them is a goal, which also inserts
+a GoalInfo row) into a single match:
+1) LEGACY - ids generated with GenerationType.AUTO (events) and GenerationType.IDENTITY (goals), without JDBC batching.
+    The mapping is restored with legacy-id-mapping.xml, which overrides the id annotations of the entities
+2) POOLED - current mapping: ids of goals reserved in blocks of 50, ids of events taken from the sequence one at a time
+    (so that they grow in processing order across instances), and inserts sent in JDBC batches of 50
+
+The score is the number of inserted events per second. All benchmarks use an in-memory H2 database, so they do not
+include the network round trip that every single insert costs with a real database. Every invocation is rolled back,
+so the number of rows stays the same during the whole benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventBulkLoadBenchmark {
+
+    private static final int EVENTS = 10000;
+    private static final int BATCH_SIZE = 50;
+
+    public enum IdMapping { LEGACY, POOLED }
+
+    @Param({"LEGACY", "POOLED"})
+    private IdMapping idMapping;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private Long matchId;
+
+    @Setup
+    public void setup() {
+        StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:bulk" + idMapping + ";DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.driver_class", "org.h2.Driver")
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySetting("hibernate.id.new_generator_mappings", "true");
+        if (idMapping == IdMapping.POOLED) {
+            registryBuilder
+                    .applySetting("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE))
+                    .applySetting("hibernate.order_inserts", "true")
+                    .applySetting("hibernate.order_updates", "true");
+        }
+        registry = registryBuilder.build();
+
+        MetadataSources sources = new MetadataSources(registry)
+                .addAnnotatedClass(League.class)
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Stadium.class)
+                .addAnnotatedClass(Match.class)
+                .addAnnotatedClass(GoalInfo.class)
+                .addAnnotatedClass(AbstractMatchEvent.class)
+                .addAnnotatedClass(StandardEvent.class)
+                .addAnnotatedClass(ManagingEvent.class)
+                .addAnnotatedClass(GoalEvent.class)
+                .addAnnotatedClass(PenaltyEvent.class)
+                .addAnnotatedClass(CardEvent.class)
+                .addAnnotatedClass(SubstitutionEvent.class);
+        if (idMapping == IdMapping.LEGACY) {
+            sources.addResource("legacy-id-mapping.xml");
+        }
+        sessionFactory = sources.buildMetadata().buildSessionFactory();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            League league = new League("Benchmark league", "Country");
+            Team teamA = new Team("Team A", league);
+            Team teamB = new Team("Team B", league);
+            Match match = new Match(new Date(), teamA, teamB, league);
+            session.persist(league);
+            session.persist(teamA);
+            session.persist(teamB);
+            session.persist(match);
+            transaction.commit();
+            matchId = match.getId();
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long bulkLoad() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            Match match = session.get(Match.class, matchId);
+            for (int i = 1; i <= EVENTS; i++) {
+                AbstractMatchEvent event;
+                if (i % 10 == 0) {
+                    event = new GoalEvent(45L, "Goal", AbstractMatchEvent.EventType.GOAL, match,
+                                          match.getTeamA(), "Player");
+                    session.persist(new GoalInfo(45L, "Player"));
+                } else {
+                    event = new StandardEvent(45L, "Event", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+                }
+                session.persist(event);
+
+                // the usual way of keeping the persistence context small during a bulk load
+                if (i % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                    match = session.load(Match.class, matchId);
+                }
+            }
+            session.flush();
+            transaction.rollback();
+            return matchId;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.*;
+import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.match.GoalInfo;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.stadium.Stadium;
+import ml.echelon133.sportevents.team.Team;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Measures the latency of reading all events of a match under both storage layouts of events:
+1) TABLE_PER_CLASS - the default layout, where the events of a match are read with a UNION of seven tables
+2) SINGLE_TABLE - META-INF/single-table-events.xml, where they are read with a range scan of the (match_id, id) index
+
+readTimeline reads Match.events, same as GET /api/matches/{matchId}/events. readTimelineIds runs the same query
+but reads only ids of events, so that it measures the query without creating the entities.
+
+The database contains 20 matches with 'eventsPerMatch' events each, with every type of event present in every match.
+All benchmarks use an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventTimelineBenchmark {
+
+    private static final int MATCHES = 20;
+
+    public enum Layout { TABLE_PER_CLASS, SINGLE_TABLE }
+
+    @Param({"TABLE_PER_CLASS", "SINGLE_TABLE"})
+    private Layout layout;
+
+    @Param({"200", "1000"})
+    private int eventsPerMatch;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private Long matchId;
+
+    @Setup
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url",
+                              "jdbc:h2:mem:timeline" + layout + eventsPerMatch + ";DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.driver_class", "org.h2.Driver")
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySetting("hibernate.id.new_generator_mappings", "true")
+                .applySetting("hibernate.jdbc.batch_size", "50")
+                .build();
+
+        MetadataSources sources = new MetadataSources(registry)
+                .addAnnotatedClass(League.class)
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Stadium.class)
+                .addAnnotatedClass(Match.class)
+                .addAnnotatedClass(GoalInfo.class)
+                .addAnnotatedClass(AbstractMatchEvent.class)
+                .addAnnotatedClass(StandardEvent.class)
+                .addAnnotatedClass(ManagingEvent.class)
+                .addAnnotatedClass(GoalEvent.class)
+                .addAnnotatedClass(PenaltyEvent.class)
+                .addAnnotatedClass(CardEvent.class)
+                .addAnnotatedClass(SubstitutionEvent.class);
+        if (layout == Layout.SINGLE_TABLE) {
+            sources.addResource("META-INF/single-table-events.xml");
+        }
+        sessionFactory = sources.buildMetadata().buildSessionFactory();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            League league = new League("Benchmark league", "Country");
+            Team teamA = new Team("Team A", league);
+            Team teamB = new Team("Team B", league);
+            session.persist(league);
+            session.persist(teamA);
+            session.persist(teamB);
+            for (int m = 0; m < MATCHES; m++) {
+                Match match = new Match(new Date(), teamA, teamB, league);
+                session.persist(match);
+                for (int i = 0; i < eventsPerMatch; i++) {
+                    session.persist(buildEvent(i, match, teamA));
+                }
+                matchId = match.getId();
+                session.flush();
+                session.clear();
+                teamA = session.get(Team.class, teamA.getId());
+                teamB = session.get(Team.class, teamB.getId());
+                league = session.get(League.class, league.getId());
+            }
+            transaction.commit();
+        }
+    }
+
+    private static AbstractMatchEvent buildEvent(int i, Match match, Team team) {
+        switch (i % 6) {
+            case 0:
+                return new ManagingEvent(1L, "Event", AbstractMatchEvent.EventType.START_FIRST_HALF, match);
+            case 1:
+                return new GoalEvent(10L, "Event", AbstractMatchEvent.EventType.GOAL, match, team, "Player");
+            case 2:
+                return new CardEvent(20L, "Event", AbstractMatchEvent.EventType.CARD, match, "Player",
+                                     CardEvent.CardColor.YELLOW);
+            case 3:
+                return new SubstitutionEvent(30L, "Event", AbstractMatchEvent.EventType.SUBSTITUTION, match,
+                                             "Player in", "Player out");
+            case 4:
+                return new PenaltyEvent(120L, "Event", AbstractMatchEvent.EventType.PENALTY, match, team);
+            default:
+                return new StandardEvent(40L, "Event", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public int readTimeline() {
+        try (Session session = sessionFactory.openSession()) {
+            Match match = session.get(Match.class, matchId);
+            List<AbstractMatchEvent> events = match.getEvents();
+            return events.size();
+        }
+    }
+
+    @Benchmark
+    public int readTimelineIds() {
+        try (Session session = sessionFactory.openSession()) {
+            List<Long> ids = session
+                    .createQuery("SELECT e.id FROM AbstractMatchEvent e WHERE e.match.id = :matchId ORDER BY e.id DESC",
+                                 Long.class)
+                    .setParameter("matchId", matchId)
+                    .getResultList();
+            return ids.size();
+        }
+    }
+}
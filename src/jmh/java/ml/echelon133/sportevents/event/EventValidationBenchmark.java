@@ -0,0 +1,117 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent.EventType;
+import ml.echelon133.sportevents.match.Match.Status;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Compares the validation of event type against match status done with:
+1) switch on status.toString() that builds a new list of allowed types on every call (the previous implementation,
+    copied below without any changes)
+2) precomputed EnumMap/EnumSet table of MatchStateMachine
+
+Every invocation validates the same, randomly generated set of (status, type) pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventValidationBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private Status[] statuses;
+    private EventType[] types;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        statuses = new Status[PAIRS];
+        types = new EventType[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            statuses[i] = Status.values()[random.nextInt(Status.values().length)];
+            types[i] = EventType.values()[random.nextInt(EventType.values().length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void stringSwitch(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(isValidEventTypeForStatus(statuses[i], types[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void transitionTable(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(MatchStateMachine.isAllowed(statuses[i], types[i]));
+        }
+    }
+
+    private static boolean isValidEventTypeForStatus(Status status, EventType type) {
+        List<EventType> allowedEventTypes;
+
+        switch (status.toString()) {
+            case "NOT_STARTED":
+                allowedEventTypes = Arrays.asList(EventType.START_FIRST_HALF,
+                                                  EventType.STANDARD_DESCRIPTION);
+                break;
+            case "FIRST_HALF":
+                allowedEventTypes = Arrays.asList(EventType.GOAL,
+                                                  EventType.STANDARD_DESCRIPTION,
+                                                  EventType.CARD,
+                                                  EventType.FINISH_FIRST_HALF,
+                                                  EventType.SUBSTITUTION);
+                break;
+            case "SECOND_HALF":
+                allowedEventTypes = Arrays.asList(EventType.GOAL,
+                                                  EventType.STANDARD_DESCRIPTION,
+                                                  EventType.CARD,
+                                                  EventType.FINISH_SECOND_HALF,
+                                                  EventType.SUBSTITUTION,
+                                                  EventType.FINISH_MATCH);
+                break;
+            case "BREAK_TIME":
+                allowedEventTypes = Arrays.asList(EventType.START_SECOND_HALF,
+                                                  EventType.STANDARD_DESCRIPTION,
+                                                  EventType.START_OT_SECOND_HALF,
+                                                  EventType.START_OT_FIRST_HALF,
+                                                  EventType.SUBSTITUTION);
+                break;
+            case "OT_FIRST_HALF":
+                allowedEventTypes = Arrays.asList(EventType.GOAL,
+                                                  EventType.STANDARD_DESCRIPTION,
+                                                  EventType.CARD,
+                                                  EventType.FINISH_OT_FIRST_HALF,
+                                                  EventType.SUBSTITUTION);
+                break;
+            case "OT_SECOND_HALF":
+                allowedEventTypes = Arrays.asList(EventType.GOAL,
+                                                  EventType.STANDARD_DESCRIPTION,
+                                                  EventType.CARD,
+                                                  EventType.FINISH_OT_SECOND_HALF,
+                                                  EventType.SUBSTITUTION,
+                                                  EventType.FINISH_MATCH);
+                break;
+            case "PENALTIES":
+                allowedEventTypes = Arrays.asList(EventType.PENALTY,
+                                                  EventType.FINISH_MATCH);
+                break;
+            case "FINISHED":
+                allowedEventTypes = Arrays.asList(EventType.STANDARD_DESCRIPTION);
+                break;
+            default:
+                allowedEventTypes = Collections.emptyList();
+                break;
+        }
+        return allowedEventTypes.contains(type);
+    }
+}
@@ -0,0 +1,132 @@
+package ml.echelon133.sportevents.match;
+
+import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.league.LeagueController;
+import ml.echelon133.sportevents.league.LeagueResource;
+import ml.echelon133.sportevents.league.LeagueResourceAssembler;
+import ml.echelon133.sportevents.stadium.Stadium;
+import ml.echelon133.sportevents.stadium.StadiumController;
+import ml.echelon133.sportevents.stadium.StadiumResource;
+import ml.echelon133.sportevents.stadium.StadiumResourceAssembler;
+import ml.echelon133.sportevents.team.Team;
+import ml.echelon133.sportevents.team.TeamController;
+import ml.echelon133.sportevents.team.TeamResource;
+import ml.echelon133.sportevents.team.TeamResourceAssembler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+/*
+Measures MatchResourceAssembler.toResources over 1000 matches (a large GET /api/matches response), where links
+of every match, its teams, league and stadium are built with:
+1) linkTo(methodOn(...)) for every link (the previous implementation of the assemblers, copied below)
+2) LinkTemplate - URI templates computed once and expanded with ids
+
+Every invocation builds the resources within a new request, so that the base URI is resolved
+as many times as it would be during a real request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MatchResourceAssemblerBenchmark {
+
+    private static final int MATCHES = 1000;
+    private static final int TEAMS = 40;
+
+    private List<Match> matches;
+    private MatchResourceAssembler assembler;
+
+    @Setup
+    public void setup() {
+        LeagueResourceAssembler leagueResourceAssembler = new LeagueResourceAssembler();
+        assembler = new MatchResourceAssembler(new TeamResourceAssembler(leagueResourceAssembler),
+                                               leagueResourceAssembler,
+                                               new StadiumResourceAssembler());
+
+        League league = new League("Benchmark league", "Country");
+        league.setId(1L);
+        Stadium stadium = new Stadium("Benchmark stadium", "City", 50000);
+        stadium.setId(1L);
+        List<Team> teams = new ArrayList<>();
+        for (long id = 1; id <= TEAMS; id++) {
+            Team team = new Team("Team " + id, league);
+            team.setId(id);
+            teams.add(team);
+        }
+
+        matches = new ArrayList<>();
+        for (int i = 0; i < MATCHES; i++) {
+            Match match = new Match(new Date(), teams.get(i % TEAMS), teams.get((i + 1) % TEAMS), league, stadium);
+            match.setId((long) i + 1);
+            matches.add(match);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void startRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/matches");
+        request.setServerName("sportevents.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @Benchmark
+    public List<MatchResource> methodOnLinks() throws Exception {
+        startRequest();
+        List<MatchResource> resources = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            resources.add(toResourceWithMethodOn(match));
+        }
+        return resources;
+    }
+
+    @Benchmark
+    public List<MatchResource> linkTemplates() {
+        startRequest();
+        return assembler.toResources(matches);
+    }
+
+    private static MatchResource toResourceWithMethodOn(Match entity) throws Exception {
+        return new MatchResource(entity,
+                teamWithMethodOn(entity.getTeamA()),
+                teamWithMethodOn(entity.getTeamB()),
+                leagueWithMethodOn(entity.getLeague()),
+                stadiumWithMethodOn(entity.getStadium()),
+                linkTo(MatchController.class).withRel("matches"),
+                linkTo(methodOn(MatchController.class).getMatch(entity.getId(), null)).withSelfRel());
+    }
+
+    private static TeamResource teamWithMethodOn(Team entity) throws Exception {
+        return new TeamResource(entity,
+                leagueWithMethodOn(entity.getLeague()),
+                linkTo(TeamController.class).withRel("teams"),
+                linkTo(methodOn(TeamController.class).getTeam(entity.getId())).withSelfRel(),
+                linkTo(methodOn(TeamController.class).getTeamMatches(entity.getId(), null, null, null, null, null))
+                        .withRel("team-matches").expand());
+    }
+
+    private static LeagueResource leagueWithMethodOn(League entity) throws Exception {
+        return new LeagueResource(entity,
+                linkTo(LeagueController.class).withRel("leagues"),
+                linkTo(methodOn(LeagueController.class).getLeagueTeams(entity.getId())).withRel("league-teams"),
+                linkTo(methodOn(LeagueController.class).getLeague(entity.getId())).withSelfRel());
+    }
+
+    private static StadiumResource stadiumWithMethodOn(Stadium entity) throws Exception {
+        return new StadiumResource(entity,
+                linkTo(StadiumController.class).withRel("stadiums"),
+                linkTo(methodOn(StadiumController.class).getStadium(entity.getId())).withSelfRel());
+    }
+}
@@ -0,0 +1,153 @@
+package ml.echelon133.sportevents.match;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ml.echelon133.sportevents.event.types.*;
+import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.league.LeagueResourceAssembler;
+import ml.echelon133.sportevents.stadium.Stadium;
+import ml.echelon133.sportevents.stadium.StadiumResourceAssembler;
+import ml.echelon133.sportevents.team.Team;
+import ml.echelon133.sportevents.team.TeamResourceAssembler;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.Resources;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Measures the latency of a page of GET /api/matches and the size of its JSON payload in both views:
+1) fullView - matches read with their teams, leagues, stadiums and goals, assembled into resources with links
+2) summaryView - ?view=summary, only the columns of MatchSummary are selected and serialized as they are
+
+Both benchmarks run the same queries as MatchRepository and serialize the result to JSON bytes. Sizes of both
+payloads are printed once during the setup. Every match has 3 goals. All benchmarks use an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatchSummaryBenchmark {
+
+    private static final int MATCHES = 500;
+    private static final int TEAMS = 20;
+
+    @Param({"100", "500"})
+    private int pageSize;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private MatchResourceAssembler assembler;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() throws Exception {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:summary" + pageSize + ";DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.driver_class", "org.h2.Driver")
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySetting("hibernate.id.new_generator_mappings", "true")
+                .applySetting("hibernate.jdbc.batch_size", "50")
+                .build();
+
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(League.class)
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Stadium.class)
+                .addAnnotatedClass(Match.class)
+                .addAnnotatedClass(GoalInfo.class)
+                .addAnnotatedClass(AbstractMatchEvent.class)
+                .addAnnotatedClass(StandardEvent.class)
+                .addAnnotatedClass(ManagingEvent.class)
+                .addAnnotatedClass(GoalEvent.class)
+                .addAnnotatedClass(PenaltyEvent.class)
+                .addAnnotatedClass(CardEvent.class)
+                .addAnnotatedClass(SubstitutionEvent.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        LeagueResourceAssembler leagueResourceAssembler = new LeagueResourceAssembler();
+        assembler = new MatchResourceAssembler(new TeamResourceAssembler(leagueResourceAssembler),
+                                               leagueResourceAssembler,
+                                               new StadiumResourceAssembler());
+        objectMapper = new ObjectMapper();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            League league = new League("Benchmark league", "Country");
+            Stadium stadium = new Stadium("Benchmark stadium", "City", 50000);
+            session.persist(league);
+            session.persist(stadium);
+            List<Team> teams = new ArrayList<>();
+            for (int t = 0; t < TEAMS; t++) {
+                Team team = new Team("Team " + t, league);
+                session.persist(team);
+                teams.add(team);
+            }
+            for (int m = 0; m < MATCHES; m++) {
+                Match match = new Match(new Date(), teams.get(m % TEAMS), teams.get((m + 1) % TEAMS), league, stadium);
+                match.setStatus(Match.Status.FINISHED);
+                match.getResult().addGoalTeamA(10L, "Player A1");
+                match.getResult().addGoalTeamA(55L, "Player A2");
+                match.getResult().addGoalTeamB(80L, "Player B1");
+                session.persist(match);
+            }
+            transaction.commit();
+        }
+
+        System.out.printf("%n%d matches: full view %d bytes, summary view %d bytes%n",
+                          pageSize, fullView().length, summaryView().length);
+    }
+
+    @TearDown
+    public void teardown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    private static void startRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/matches");
+        request.setServerName("sportevents.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @Benchmark
+    public byte[] fullView() throws Exception {
+        startRequest();
+        try (Session session = sessionFactory.openSession()) {
+            List<Match> matches = session
+                    .createQuery("SELECT m FROM Match m WHERE m.id > :afterId ORDER BY m.id", Match.class)
+                    .setParameter("afterId", 0L)
+                    .setHint("javax.persistence.loadgraph", session.getEntityGraph(Match.WITH_RELATIONS))
+                    .setMaxResults(pageSize)
+                    .getResultList();
+            // Goals are loaded while the resources are serialized, so the session stays open until then
+            return objectMapper.writeValueAsBytes(new Resources<>(assembler.toResources(matches)));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public byte[] summaryView() throws Exception {
+        try (Session session = sessionFactory.openSession()) {
+            List<MatchSummary> summaries = session
+                    .createQuery(MatchRepository.SELECT_SUMMARY + "WHERE m.id > :afterId ORDER BY m.id",
+                                 MatchSummary.class)
+                    .setParameter("afterId", 0L)
+                    .setMaxResults(pageSize)
+                    .getResultList();
+            return objectMapper.writeValueAsBytes(new Resources<>(summaries));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ml.echelon133.sportevents.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Measures finding names that contain a text (as typed into a search box) among 20000 team names:
+1) likeQuery - "WHERE name LIKE '%text%' ... LIMIT 100" of TeamRepository, run against an in-memory H2 table
+2) findIdsContaining - the same page of ids read from a NameIndex
+3) search - best 10 matches ranked by NameIndex, as returned by GET /api/search
+
+The H2 table is in memory, so likeQuery does not include the network round trip and the disk reads that the same
+scan costs in MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameIndexBenchmark {
+
+    private static final int NAMES = 20000;
+    private static final String[] CITIES = {"Madrid", "Lodz", "Munchen", "Wroclaw", "Sevilla", "Krakow", "Milano",
+                                            "Bilbao", "Poznan", "Torino", "Lisboa", "Goteborg", "Zurich", "Porto"};
+    private static final String[] KINDS = {"Real", "Atletico", "Sporting", "Racing", "Dynamo", "Olimpia", "Lech"};
+
+    @Param({"a", "mad", "real madrid 1"})
+    private String text;
+
+    private NameIndex nameIndex;
+    private Connection connection;
+    private PreparedStatement likeStatement;
+
+    @Setup
+    public void setup() throws Exception {
+        List<IndexedName> names = new ArrayList<>(NAMES);
+        for (int i = 0; i < NAMES; i++) {
+            String name = KINDS[i % KINDS.length] + " " + CITIES[(i / KINDS.length) % CITIES.length] + " " + i;
+            names.add(new IndexedName((long) i + 1, name));
+        }
+        nameIndex = new NameIndex("benchmark", new SimpleMeterRegistry());
+        nameIndex.load(names);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:names;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE team (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO team VALUES (?, ?)")) {
+            for (IndexedName name : names) {
+                insert.setLong(1, name.getId());
+                insert.setString(2, name.getName());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        likeStatement = connection.prepareStatement(
+                "SELECT id FROM team WHERE LOWER(name) LIKE ? AND id > 0 ORDER BY id LIMIT 100");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        likeStatement.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE team");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> likeQuery() throws Exception {
+        likeStatement.setString(1, "%" + text.toLowerCase() + "%");
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet resultSet = likeStatement.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Long> findIdsContaining() {
+        return nameIndex.findIdsContaining(text, 0L, 100).get();
+    }
+
+    @Benchmark
+    public List<NameIndex.Hit> search() {
+        return nameIndex.search(text, 10);
+    }
+}
@@ -0,0 +1,214 @@
+package ml.echelon133.sportevents.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Bounded cache of rarely changing entities (teams, leagues, stadiums) that are read by id.
+
+When the cache holds more than maxEntries entities, the ones that were loaded first are evicted. Entities also expire
+after the configured time, so that a change made outside of this application is picked up eventually. Changes made
+by this application invalidate the entity right away and once more after the transaction commits, so that
+an entity read by another request before the commit does not stay in the cache.
+
+Cached entities are detached and shared between requests. They must only be read - callers that modify an entity
+or its relationships have to load a managed one from the repository.
+
+Metrics (tagged with the name of the cache): reference.cache.hits, reference.cache.misses,
+reference.cache.hit.ratio, reference.cache.evictions (tagged with the cause: size or expired),
+reference.cache.load (time of loading an entity that was not cached) and reference.cache.size.
+ */
+public class ReferenceDataCache<T> {
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(Long id) throws ResourceDoesNotExistException;
+    }
+
+    private static class Entry<T> {
+        private final Long id;
+        private final T value;
+        private final long expiresAt;
+
+        Entry(Long id, T value, long expiresAt) {
+            this.id = id;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentMap<Long, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<T>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // Incremented by every invalidation. A load that was started before an invalidation is not cached,
+    // because it could have read the entity before it was changed
+    private final AtomicLong invalidations = new AtomicLong();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Timer loadTimer;
+    private Clock clock;
+
+    public ReferenceDataCache(String name, MeterRegistry meterRegistry, int maxEntries, long ttlSeconds) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum number of entries must be a positive number");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        // Clock instance needed to simplify testing. Tests can inject Clock.fixed(...) instances to this service
+        this.clock = Clock.systemDefaultZone();
+
+        this.hits = meterRegistry.counter("reference.cache.hits", "cache", name);
+        this.misses = meterRegistry.counter("reference.cache.misses", "cache", name);
+        this.sizeEvictions = meterRegistry.counter("reference.cache.evictions", "cache", name, "cause", "size");
+        this.expiredEvictions = meterRegistry.counter("reference.cache.evictions", "cache", name, "cause", "expired");
+        this.loadTimer = meterRegistry.timer("reference.cache.load", "cache", name);
+        meterRegistry.gauge("reference.cache.size", Tags.of("cache", name), size);
+        meterRegistry.gauge("reference.cache.hit.ratio", Tags.of("cache", name), this, ReferenceDataCache::hitRatio);
+    }
+
+    public T get(Long id, Loader<T> loader) throws ResourceDoesNotExistException {
+        long now = clock.millis();
+        Entry<T> entry = entries.get(id);
+        if (entry != null && entry.expiresAt <= now) {
+            if (remove(entry)) {
+                expiredEvictions.increment();
+            }
+            entry = null;
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry.value;
+        }
+
+        misses.increment();
+        long invalidationsBeforeLoad = invalidations.get();
+        long loadStart = System.nanoTime();
+        T value;
+        try {
+            value = loader.load(id);
+        } finally {
+            loadTimer.record(System.nanoTime() - loadStart, TimeUnit.NANOSECONDS);
+        }
+        put(id, value, invalidationsBeforeLoad, now);
+        return value;
+    }
+
+    private void put(Long id, T value, long invalidationsBeforeLoad, long now) {
+        removeExpired(now);
+
+        Entry<T> newEntry = new Entry<>(id, value, now + ttlMillis);
+        // The check runs under the lock of the key, same as the removal done by invalidate(id), so an entity
+        // that is invalidated while it is being loaded either is not cached or is removed right after
+        Entry<T> current = entries.compute(id, (key, previous) -> {
+            if (invalidations.get() != invalidationsBeforeLoad) {
+                return previous;
+            }
+            if (previous == null) {
+                size.incrementAndGet();
+            }
+            return newEntry;
+        });
+        if (current != newEntry) {
+            return;
+        }
+        insertionOrder.add(newEntry);
+
+        while (size.get() > maxEntries) {
+            Entry<T> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (remove(oldest)) {
+                sizeEvictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(Long id) {
+        invalidations.incrementAndGet();
+        Entry<T> removed = entries.remove(id);
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        for (Entry<T> entry : entries.values()) {
+            remove(entry);
+        }
+    }
+
+    // Invalidates the entity now and once more after the transaction commits (if there is one)
+    public void invalidateAfterCommit(Long id) {
+        invalidate(id);
+        runAfterCommit(() -> invalidate(id));
+    }
+
+    public void invalidateAllAfterCommit() {
+        invalidateAll();
+        runAfterCommit(this::invalidateAll);
+    }
+
+    private static void runAfterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        }
+    }
+
+    private void removeExpired(long now) {
+        // Every entry lives for the same time, so the oldest entries are the first ones to expire.
+        // Entries that were already removed from the map are dropped from the queue as well
+        Entry<T> head;
+        while ((head = insertionOrder.peek()) != null && (head.expiresAt <= now || entries.get(head.id) != head)) {
+            if (insertionOrder.remove(head) && remove(head)) {
+                expiredEvictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(Entry<T> entry) {
+        // Removes the entry only if it was not replaced by a newer entry with the same id in the meantime
+        boolean removed = entries.remove(entry.id, entry);
+        if (removed) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return (requests == 0) ? 0 : hits.count() / requests;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+}
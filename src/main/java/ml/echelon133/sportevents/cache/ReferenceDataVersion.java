@@ -0,0 +1,47 @@
+package ml.echelon133.sportevents.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Version of all reference data (teams, leagues, stadiums), incremented whenever any of them is saved or deleted.
+
+Names of teams, leagues and stadiums are a part of every match resource, but changing them does not change the version
+of the matches. Responses that depend on reference data (ETags of matches and serialized responses of finished
+matches) are built together with this version, and are no longer valid once it changes. Reference data changes
+rarely, so it does not matter that a change invalidates the responses of all matches.
+
+A response has to be built with the version that was read before the match was loaded. The version is incremented
+after the transaction commits, so a response built from the data read before the commit has an older version.
+
+Changes made by other instances of the application are not tracked.
+ */
+@Component
+public class ReferenceDataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long get() {
+        return version.get();
+    }
+
+    public void increment() {
+        version.incrementAndGet();
+    }
+
+    public void incrementAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+}
@@ -4,49 +4,275 @@ import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
 import ml.echelon133.sportevents.event.types.dto.MatchEventDto;
 import ml.echelon133.sportevents.exception.FailedValidationException;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.FinishedMatchResponseCache;
 import ml.echelon133.sportevents.match.Match;
 import ml.echelon133.sportevents.match.MatchService;
+import ml.echelon133.sportevents.match.MatchVersionCache;
+import ml.echelon133.sportevents.websocket.MatchEventStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.lang.reflect.Type;
+import java.util.*;
 
 @RestController
 @RequestMapping("/api/matches/{matchId}")
 public class EventController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    // Same limit as the one of eventKey of MatchEventDto
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+    private static final Type EVENTS_TYPE = new ParameterizedTypeReference<List<AbstractMatchEvent>>() {}.getType();
+
     private MatchService matchService;
     private EventService eventService;
+    private MatchEventLanes eventLanes;
+    private EventDeduplicationCache deduplicationCache;
+    private MatchVersionCache versionCache;
+    private EventPollRegistry pollRegistry;
+    private MatchEventStreams eventStreams;
+    private FinishedMatchResponseCache responseCache;
 
     @Autowired
-    public EventController(MatchService matchService, EventService eventService) {
+    public EventController(MatchService matchService,
+                           EventService eventService,
+                           MatchEventLanes eventLanes,
+                           EventDeduplicationCache deduplicationCache,
+                           MatchVersionCache versionCache,
+                           EventPollRegistry pollRegistry,
+                           MatchEventStreams eventStreams,
+                           FinishedMatchResponseCache responseCache) {
         this.matchService = matchService;
         this.eventService = eventService;
+        this.eventLanes = eventLanes;
+        this.deduplicationCache = deduplicationCache;
+        this.versionCache = versionCache;
+        this.pollRegistry = pollRegistry;
+        this.eventStreams = eventStreams;
+        this.responseCache = responseCache;
+    }
+
+    // Events of a match change only together with the match, so the version of the match is also the version of
+    // every view of its timeline. Returns true if the client already has the current version
+    private boolean isNotModified(Long matchId, WebRequest request) {
+        Optional<String> currentETag = versionCache.getETag(matchId);
+        return currentETag.isPresent() && request.checkNotModified(currentETag.get());
     }
 
     @GetMapping("/events")
-    public ResponseEntity<List<AbstractMatchEvent>> getEvents(@PathVariable Long matchId) throws ResourceDoesNotExistException {
+    public ResponseEntity<?> getEvents(@PathVariable Long matchId, WebRequest request)
+            throws ResourceDoesNotExistException {
+
+        if (isNotModified(matchId, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        // Timelines of finished matches are written from their serialized responses (see FinishedMatchResponseCache)
+        boolean acceptsJson = FinishedMatchResponseCache.acceptsJson(request);
+        if (acceptsJson) {
+            Optional<FinishedMatchResponseCache.CachedResponse> cached =
+                    responseCache.get(FinishedMatchResponseCache.View.EVENTS, matchId);
+            if (cached.isPresent()) {
+                return cached.get().toResponseEntity();
+            }
+        }
+
+        long referenceDataVersion = versionCache.getReferenceDataVersion();
         Match match = matchService.findById(matchId);
-        return new ResponseEntity<>(match.getEvents(), HttpStatus.OK);
+        versionCache.putVersion(matchId, match.getVersion());
+        if (acceptsJson && match.getStatus() == Match.Status.FINISHED) {
+            return responseCache.serialize(FinishedMatchResponseCache.View.EVENTS, match, referenceDataVersion,
+                                           match.getEvents(), EVENTS_TYPE).toResponseEntity();
+        }
+        return ResponseEntity.ok()
+                .eTag(MatchVersionCache.toETag(match.getVersion(), referenceDataVersion))
+                .body(match.getEvents());
+    }
+
+    @GetMapping(value = "/events", params = "afterId")
+    public ResponseEntity<EventPage> getEventsAfter(@PathVariable Long matchId,
+                                                    @RequestParam("afterId") Long afterId,
+                                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                                    WebRequest request)
+            throws ResourceDoesNotExistException {
+
+        if (isNotModified(matchId, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        // Throws if the match does not exist. Events of the match are not loaded here
+        long referenceDataVersion = versionCache.getReferenceDataVersion();
+        Match match = matchService.findByIdForReading(matchId);
+        versionCache.putVersion(matchId, match.getVersion());
+
+        int pageSize = toPageSize(limit);
+        EventPage page = readPage(matchId, afterId, pageSize);
+        return ResponseEntity.ok()
+                .eTag(MatchVersionCache.toETag(match.getVersion(), referenceDataVersion))
+                .body(page);
+    }
+
+    @GetMapping(value = "/events/poll")
+    public DeferredResult<ResponseEntity<EventPage>> pollEvents(@PathVariable Long matchId,
+                                                                @RequestParam("afterId") Long afterId,
+                                                                @RequestParam(value = "limit", required = false) Integer limit)
+            throws ResourceDoesNotExistException {
+
+        // Throws if the match does not exist
+        matchService.findByIdForReading(matchId);
+
+        // The request is registered before the events are read. An event committed before the read is returned
+        // by the read, and an event committed after it wakes the request up, so no event can be missed
+        int pageSize = toPageSize(limit);
+        DeferredResult<ResponseEntity<EventPage>> result = pollRegistry.register(matchId, afterId, pageSize);
+        EventPage page = readPage(matchId, afterId, pageSize);
+        if (!page.getEvents().isEmpty()) {
+            result.setResult(ResponseEntity.ok(page));
+        }
+        return result;
+    }
+
+    // SseEmitter sets the text/event-stream content type itself. It is not declared as produced by this method,
+    // so that errors (ex. a match that does not exist) can still be returned as JSON
+    @GetMapping(value = "/stream")
+    public SseEmitter streamEvents(@PathVariable Long matchId,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId)
+            throws ResourceDoesNotExistException {
+
+        // Throws if the match does not exist
+        matchService.findByIdForReading(matchId);
+        return eventStreams.subscribe(matchId, lastEventId,
+                                      afterId -> eventService.findEventsAfter(matchId, afterId, MAX_PAGE_SIZE));
+    }
+
+    private static int toPageSize(Integer limit) {
+        return (limit == null) ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private EventPage readPage(Long matchId, Long afterId, int pageSize) {
+        // One event more than requested is read to find out whether there are more events after this page
+        List<AbstractMatchEvent> events = eventService.findEventsAfter(matchId, afterId, pageSize + 1);
+        boolean hasMore = events.size() > pageSize;
+        if (hasMore) {
+            events = events.subList(0, pageSize);
+        }
+        Long nextCursor = events.isEmpty() ? afterId : events.get(events.size() - 1).getId();
+        return new EventPage(events, nextCursor, hasMore);
     }
 
     @PostMapping("/events")
-    public ResponseEntity<Map<String, Boolean>> receiveEvent(@PathVariable Long matchId, @Valid @RequestBody MatchEventDto eventDto, BindingResult result)
-            throws FailedValidationException, ResourceDoesNotExistException, ProcessedEventRejectedException {
+    public ResponseEntity<Map<String, Boolean>> receiveEvent(@PathVariable Long matchId,
+                                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                             @Valid @RequestBody MatchEventDto eventDto, BindingResult result)
+            throws FailedValidationException, ResourceDoesNotExistException, ProcessedEventRejectedException,
+                   EventLaneFullException {
 
         if (result.hasErrors()) {
             throw new FailedValidationException(result.getFieldErrors());
         }
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new FailedValidationException(
+                    "Idempotency-Key validation error: size must be between 0 and " + MAX_IDEMPOTENCY_KEY_LENGTH);
+        }
 
-        Match match = matchService.findById(matchId);
-        AbstractMatchEvent event = eventService.convertEventDtoToEntity(eventDto, match);
-        boolean processingResult = eventService.processEvent(event);
+        // The header takes precedence over the key sent in the body
+        String eventKey = (idempotencyKey != null) ? idempotencyKey : eventDto.getEventKey();
+
+        // The match is loaded inside of the lane of this match, so that it is never modified by two events at once.
+        // The dedup cache is also checked inside of the lane, so that two retries of the same event sent at the same
+        // time cannot both miss the cache
+        boolean processingResult = eventLanes.execute(matchId, () -> {
+            if (eventKey != null) {
+                Optional<Boolean> previousResult = deduplicationCache.getResult(matchId, eventKey);
+                if (previousResult.isPresent()) {
+                    return previousResult.get();
+                }
+            }
+
+            Match match = matchService.findById(matchId);
+            AbstractMatchEvent event = eventService.convertEventDtoToEntity(eventDto, match);
+            boolean processed = eventService.processEvent(event);
+            if (eventKey != null) {
+                deduplicationCache.putResultAfterCommit(matchId, eventKey, processed);
+            }
+            return processed;
+        });
         return new ResponseEntity<>(Collections.singletonMap("eventProcessed", processingResult), HttpStatus.OK);
     }
+
+    @PostMapping("/events/batch")
+    public ResponseEntity<List<ProcessedEventResult>> receiveEventBatch(@PathVariable Long matchId,
+                                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                                        @RequestBody List<MatchEventDto> eventDtos)
+            throws FailedValidationException, ResourceDoesNotExistException, ProcessedEventRejectedException,
+                   EventLaneFullException {
+
+        // A single key cannot tell which events of a retried batch were already processed
+        if (idempotencyKey != null) {
+            throw new FailedValidationException(
+                    "Idempotency-Key validation error: events of a batch are identified by their eventKey fields");
+        }
+
+        // Every event is validated separately, so that one invalid event does not cause rejection of the whole batch
+        List<ProcessedEventResult> results = eventLanes.execute(matchId, () -> {
+            Match match = matchService.findById(matchId);
+            return processNewEvents(matchId, match, eventDtos);
+        });
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    // Events of the batch whose eventKey was already processed in this match (by an earlier request or by an earlier
+    // event of the same batch) get the original result and are not processed again
+    private List<ProcessedEventResult> processNewEvents(Long matchId, Match match, List<MatchEventDto> eventDtos) {
+        ProcessedEventResult[] results = new ProcessedEventResult[eventDtos.size()];
+        List<MatchEventDto> newEventDtos = new ArrayList<>();
+        List<Integer> newEventIndexes = new ArrayList<>();
+        Map<String, Integer> indexesOfKeys = new HashMap<>();
+        Map<Integer, Integer> repeatedIndexes = new HashMap<>();
+
+        for (int i = 0; i < eventDtos.size(); i++) {
+            MatchEventDto eventDto = eventDtos.get(i);
+            String eventKey = (eventDto == null) ? null : eventDto.getEventKey();
+            if (eventKey != null) {
+                Optional<Boolean> previousResult = deduplicationCache.getResult(matchId, eventKey);
+                if (previousResult.isPresent()) {
+                    results[i] = ProcessedEventResult.accepted(i, previousResult.get());
+                    continue;
+                }
+                Integer firstIndex = indexesOfKeys.putIfAbsent(eventKey, i);
+                if (firstIndex != null) {
+                    repeatedIndexes.put(i, firstIndex);
+                    continue;
+                }
+            }
+            newEventDtos.add(eventDto);
+            newEventIndexes.add(i);
+        }
+
+        List<ProcessedEventResult> newResults = eventService.processEvents(match, newEventDtos);
+        for (int i = 0; i < newResults.size(); i++) {
+            ProcessedEventResult newResult = newResults.get(i);
+            int index = newEventIndexes.get(i);
+            newResult.setIndex(index);
+            results[index] = newResult;
+
+            // Only accepted events are remembered, same as in receiveEvent, where rejected events end with an exception
+            MatchEventDto eventDto = eventDtos.get(index);
+            if (eventDto != null && eventDto.getEventKey() != null && newResult.getMessages() == null) {
+                deduplicationCache.putResultAfterCommit(matchId, eventDto.getEventKey(), newResult.isEventProcessed());
+            }
+        }
+        repeatedIndexes.forEach((index, firstIndex) -> results[index] = new ProcessedEventResult(
+                index, results[firstIndex].isEventProcessed(), results[firstIndex].getMessages()));
+        return Arrays.asList(results);
+    }
 }
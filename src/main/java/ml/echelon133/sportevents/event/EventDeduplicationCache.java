@@ -0,0 +1,181 @@
+package ml.echelon133.sportevents.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Remembers results of events that were sent with an idempotency key, so that a retried request with the same key
+returns the original result instead of processing the event for the second time.
+
+Keys are scoped to a match - the same key sent to two different matches identifies two different events.
+The cache is bounded: when it holds more than maxEntries results, the oldest ones are evicted. Results also expire
+after the configured time, because feeders retry only for a short while after the original request.
+
+Neither reads nor writes take a lock. Entries are kept in a ConcurrentHashMap and, in the order in which they were
+added, in a ConcurrentLinkedQueue which is used to find the oldest entry during eviction.
+ */
+@Component
+public class EventDeduplicationCache {
+
+    private static class Key {
+        private final Long matchId;
+        private final String idempotencyKey;
+
+        Key(Long matchId, String idempotencyKey) {
+            this.matchId = matchId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(matchId, key.matchId) &&
+                    Objects.equals(idempotencyKey, key.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(matchId, idempotencyKey);
+        }
+    }
+
+    private static class Entry {
+        private final Key key;
+        private final Boolean eventProcessed;
+        private final long expiresAt;
+
+        Entry(Key key, Boolean eventProcessed, long expiresAt) {
+            this.key = key;
+            this.eventProcessed = eventProcessed;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private Clock clock;
+
+    @Autowired
+    public EventDeduplicationCache(MeterRegistry meterRegistry,
+                                   @Value("${events.dedup.max-entries:10000}") int maxEntries,
+                                   @Value("${events.dedup.ttl-seconds:600}") long ttlSeconds) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum number of entries must be a positive number");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        // Clock instance needed to simplify testing. Tests can inject Clock.fixed(...) instances to this service
+        this.clock = Clock.systemDefaultZone();
+
+        this.hits = meterRegistry.counter("events.dedup.hits");
+        this.misses = meterRegistry.counter("events.dedup.misses");
+        this.evictions = meterRegistry.counter("events.dedup.evictions");
+        meterRegistry.gauge("events.dedup.size", size);
+    }
+
+    public Optional<Boolean> getResult(Long matchId, String idempotencyKey) {
+        Entry entry = entries.get(new Key(matchId, idempotencyKey));
+        if (entry != null && entry.expiresAt <= clock.millis()) {
+            remove(entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.eventProcessed);
+    }
+
+    public void putResult(Long matchId, String idempotencyKey, Boolean eventProcessed) {
+        long now = clock.millis();
+        removeExpired(now);
+
+        Key key = new Key(matchId, idempotencyKey);
+        Entry entry = new Entry(key, eventProcessed, now + ttlMillis);
+
+        Entry previous = entries.put(key, entry);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        insertionOrder.add(entry);
+
+        while (size.get() > maxEntries) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (remove(oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // If called inside of a transaction, the result is remembered only when that transaction commits. Otherwise
+    // a retry of an event whose transaction was rolled back would get the result of an event that was never saved
+    public void putResultAfterCommit(Long matchId, String idempotencyKey, Boolean eventProcessed) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    putResult(matchId, idempotencyKey, eventProcessed);
+                }
+            });
+        } else {
+            putResult(matchId, idempotencyKey, eventProcessed);
+        }
+    }
+
+    private void removeExpired(long now) {
+        // Every entry lives for the same time, so the oldest entries are the first ones to expire.
+        // Entries that were already removed from the map (expired during a read, replaced by a newer entry)
+        // are dropped from the queue as well
+        Entry head;
+        while ((head = insertionOrder.peek()) != null && (head.expiresAt <= now || entries.get(head.key) != head)) {
+            // remove(Object) removes exactly this entry, even if another thread has taken the head in the meantime
+            if (insertionOrder.remove(head)) {
+                remove(head);
+            }
+        }
+    }
+
+    private boolean remove(Entry entry) {
+        // Removes the entry only if it was not replaced by a newer entry with the same key in the meantime
+        boolean removed = entries.remove(entry.key, entry);
+        if (removed) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+}
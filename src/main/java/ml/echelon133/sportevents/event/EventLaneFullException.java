@@ -0,0 +1,8 @@
+package ml.echelon133.sportevents.event;
+
+public class EventLaneFullException extends Exception {
+
+    public EventLaneFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+
+import java.util.List;
+
+/*
+A part of the timeline of a match, returned by GET /api/matches/{matchId}/events?afterId=
+
+'events' are ordered from the oldest to the newest. 'nextCursor' is the value of 'afterId' that should be sent
+with the next request. It is equal to the id of the last returned event, or to the received 'afterId' if there were
+no new events, so a client can always poll with the last cursor it got. 'hasMore' tells whether more events
+were already available when this page was read
+ */
+public class EventPage {
+
+    private List<AbstractMatchEvent> events;
+    private Long nextCursor;
+    private boolean hasMore;
+
+    public EventPage(List<AbstractMatchEvent> events, Long nextCursor, boolean hasMore) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<AbstractMatchEvent> getEvents() {
+        return events;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,134 @@
+package ml.echelon133.sportevents.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Keeps long-polling requests (GET /api/matches/{matchId}/events/poll) that wait for new events of a match.
+
+A waiting request is only a DeferredResult kept in this registry - the container thread that received it is released
+as soon as the controller returns, so waiting clients do not occupy any threads. When events of a match are committed,
+the event processing calls notifyAfterCommit() and every request waiting for that match is completed directly with
+the new events. Requests that do not get any event before the timeout are completed with an empty page.
+ */
+@Component
+public class EventPollRegistry {
+
+    private static class Waiter {
+        private final Long afterId;
+        private final int limit;
+        private final DeferredResult<ResponseEntity<EventPage>> result;
+
+        Waiter(Long afterId, int limit, DeferredResult<ResponseEntity<EventPage>> result) {
+            this.afterId = afterId;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+
+    private final ConcurrentMap<Long, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final long timeoutMillis;
+    private final Counter wokenUp;
+    private final Counter timedOut;
+
+    @Autowired
+    public EventPollRegistry(MeterRegistry meterRegistry,
+                             @Value("${events.poll.timeout-seconds:25}") long timeoutSeconds) {
+        this.timeoutMillis = timeoutSeconds * 1000;
+        this.wokenUp = meterRegistry.counter("events.poll.woken");
+        this.timedOut = meterRegistry.counter("events.poll.timeouts");
+        meterRegistry.gauge("events.poll.waiting", waiting);
+    }
+
+    // Creates a result that is completed either with events of the match that have an id greater than afterId,
+    // or with an empty page after the timeout
+    public DeferredResult<ResponseEntity<EventPage>> register(Long matchId, Long afterId, int limit) {
+        EventPage emptyPage = new EventPage(Collections.emptyList(), afterId, false);
+        DeferredResult<ResponseEntity<EventPage>> result = new DeferredResult<>(timeoutMillis, ResponseEntity.ok(emptyPage));
+        Waiter waiter = new Waiter(afterId, limit, result);
+
+        result.onTimeout(timedOut::increment);
+        result.onCompletion(() -> remove(matchId, waiter));
+        waiters.compute(matchId, (id, matchWaiters) -> {
+            Set<Waiter> set = (matchWaiters == null) ? ConcurrentHashMap.newKeySet() : matchWaiters;
+            set.add(waiter);
+            return set;
+        });
+        waiting.incrementAndGet();
+        return result;
+    }
+
+    private void remove(Long matchId, Waiter waiter) {
+        waiters.computeIfPresent(matchId, (id, matchWaiters) -> {
+            if (matchWaiters.remove(waiter)) {
+                waiting.decrementAndGet();
+            }
+            return matchWaiters.isEmpty() ? null : matchWaiters;
+        });
+    }
+
+    // Events have to be sorted by id in ascending order
+    public void notifyWaiters(Long matchId, List<AbstractMatchEvent> events) {
+        Set<Waiter> matchWaiters = waiters.get(matchId);
+        if (matchWaiters == null || events.isEmpty()) {
+            return;
+        }
+
+        for (Waiter waiter : matchWaiters) {
+            List<AbstractMatchEvent> newEvents = new ArrayList<>();
+            for (AbstractMatchEvent event : events) {
+                if (event.getId() > waiter.afterId) {
+                    newEvents.add(event);
+                }
+            }
+            if (newEvents.isEmpty()) {
+                continue;
+            }
+
+            boolean hasMore = newEvents.size() > waiter.limit;
+            if (hasMore) {
+                newEvents = newEvents.subList(0, waiter.limit);
+            }
+            Long nextCursor = newEvents.get(newEvents.size() - 1).getId();
+            // setResult returns false if the request has already been completed (ex. it timed out in the meantime)
+            if (waiter.result.setResult(ResponseEntity.ok(new EventPage(newEvents, nextCursor, hasMore)))) {
+                wokenUp.increment();
+            }
+        }
+    }
+
+    // Waiting clients must not receive events of a transaction that is later rolled back
+    public void notifyAfterCommit(Long matchId, List<AbstractMatchEvent> events) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    notifyWaiters(matchId, events);
+                }
+            });
+        } else {
+            notifyWaiters(matchId, events);
+        }
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+}
@@ -0,0 +1,34 @@
+package ml.echelon133.sportevents.event;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Exposes the rules of MatchStateMachine, so that clients that send events can check whether an event will be accepted
+before they send it
+ */
+@RestController
+@RequestMapping("/api/event-rules")
+public class EventRulesController {
+
+    private static final Map<String, Object> RULES;
+
+    static {
+        Map<String, Object> rules = new LinkedHashMap<>();
+        rules.put("allowedEventTypes", MatchStateMachine.getAllowedEventTypes());
+        rules.put("statusTransitions", MatchStateMachine.getStatusTransitions());
+        RULES = Collections.unmodifiableMap(rules);
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getEventRules() {
+        return new ResponseEntity<>(RULES, HttpStatus.OK);
+    }
+}
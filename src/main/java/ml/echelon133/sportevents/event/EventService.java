@@ -4,8 +4,14 @@ import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
 import ml.echelon133.sportevents.event.types.dto.MatchEventDto;
 import ml.echelon133.sportevents.match.Match;
 
+import java.util.List;
+
 public interface EventService {
     boolean processEvent(AbstractMatchEvent event) throws ProcessedEventRejectedException;
+    List<ProcessedEventResult> processEvents(Match match, List<MatchEventDto> eventDtos);
+    // Same as processEvents, but does not send the events to websocket, stream and long-polling clients
+    List<ProcessedEventResult> importEvents(Match match, List<MatchEventDto> eventDtos);
+    List<AbstractMatchEvent> findEventsAfter(Long matchId, Long afterId, int limit);
     AbstractMatchEvent convertEventDtoToEntity(MatchEventDto eventDto, Match eventMatch)
             throws ProcessedEventRejectedException;
 }
@@ -2,13 +2,19 @@ package ml.echelon133.sportevents.event;
 
 import ml.echelon133.sportevents.event.types.*;
 import ml.echelon133.sportevents.event.types.dto.*;
+import ml.echelon133.sportevents.match.LiveMatchStore;
 import ml.echelon133.sportevents.match.Match;
 import ml.echelon133.sportevents.match.MatchService;
+import ml.echelon133.sportevents.rebuild.MatchRebuildService;
 import ml.echelon133.sportevents.team.Team;
 import ml.echelon133.sportevents.websocket.WebSocketEventService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.util.*;
 
 @Service
@@ -16,11 +22,27 @@ public class EventServiceImpl implements EventService {
 
     private MatchService matchService;
     private WebSocketEventService webSocketEventService;
+    private Validator validator;
+    private MatchRebuildService rebuildService;
+    private MatchEventRepository eventRepository;
+    private EventPollRegistry pollRegistry;
+    private LiveMatchStore liveMatchStore;
 
     @Autowired
-    public EventServiceImpl(MatchService matchService, WebSocketEventService webSocketEventService) {
+    public EventServiceImpl(MatchService matchService,
+                            MatchEventRepository eventRepository,
+                            WebSocketEventService webSocketEventService,
+                            Validator validator,
+                            MatchRebuildService rebuildService,
+                            EventPollRegistry pollRegistry,
+                            LiveMatchStore liveMatchStore) {
         this.matchService = matchService;
+        this.eventRepository = eventRepository;
         this.webSocketEventService = webSocketEventService;
+        this.validator = validator;
+        this.rebuildService = rebuildService;
+        this.pollRegistry = pollRegistry;
+        this.liveMatchStore = liveMatchStore;
     }
 
     private Team extractScoringTeamWithId(Long teamId, Match eventMatch) throws ProcessedEventRejectedException {
@@ -90,142 +112,124 @@ public class EventServiceImpl implements EventService {
         return entityEvent;
     }
 
+    @Override
+    public List<AbstractMatchEvent> findEventsAfter(Long matchId, Long afterId, int limit) {
+        // Clients that follow a live match usually ask only for its newest events, which are kept in memory
+        Optional<List<AbstractMatchEvent>> recentEvents = liveMatchStore.findEventsAfter(matchId, afterId, limit);
+        if (recentEvents.isPresent()) {
+            return recentEvents.get();
+        }
+        return eventRepository.findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(matchId, afterId, PageRequest.of(0, limit));
+    }
+
     @Override
     public boolean processEvent(AbstractMatchEvent event) throws ProcessedEventRejectedException {
-        boolean processedAndSaved = false;
         Match match = event.getMatch();
+        Long previousEventCount = match.getEventCount();
 
-        if (isValidEventTypeForStatus(match.getStatus(), event.getType())) {
-            processedAndSaved = continueEventProcessing(event);
-            webSocketEventService.sendEventOverWebSocket(match.getWebsocketPath(), event);
-        } else {
-            String message = String
-                    .format("Cannot send events of type %s when match status is %s%n", event.getType().toString(),
-                                                                                       match.getStatus().toString());
-            throw new ProcessedEventRejectedException(message);
-        }
+        applyEvent(event);
+        // The event is inserted on its own and the match only gets its changed columns updated,
+        // so the cost of an event does not depend on how many events the match already has
+        eventRepository.save(event);
+        boolean processedAndSaved = matchService.save(match) != null;
+        rebuildService.takeSnapshotIfDue(match, previousEventCount);
+        // Registered before the notifications, so that clients woken up after the commit already read the new event
+        liveMatchStore.addEventsAfterCommit(match.getId(), Collections.singletonList(event));
+        webSocketEventService.sendEventOverWebSocket(match.getWebsocketPath(), event);
+        pollRegistry.notifyAfterCommit(match.getId(), Collections.singletonList(event));
         return processedAndSaved;
     }
 
-    private boolean isValidEventTypeForStatus(Match.Status status, AbstractMatchEvent.EventType type) {
-        List<AbstractMatchEvent.EventType> allowedEventTypes;
+    @Override
+    @Transactional
+    public List<ProcessedEventResult> processEvents(Match match, List<MatchEventDto> eventDtos) {
+        return processEvents(match, eventDtos, true);
+    }
 
-        switch (status.toString()) {
-            case "NOT_STARTED":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.START_FIRST_HALF,
-                                                  AbstractMatchEvent.EventType.STANDARD_DESCRIPTION);
-                break;
-            case "FIRST_HALF":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.GOAL,
-                                                  AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
-                                                  AbstractMatchEvent.EventType.CARD,
-                                                  AbstractMatchEvent.EventType.FINISH_FIRST_HALF,
-                                                  AbstractMatchEvent.EventType.SUBSTITUTION);
-                break;
-            case "SECOND_HALF":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.GOAL,
-                                                  AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
-                                                  AbstractMatchEvent.EventType.CARD,
-                                                  AbstractMatchEvent.EventType.FINISH_SECOND_HALF,
-                                                  AbstractMatchEvent.EventType.SUBSTITUTION,
-                                                  AbstractMatchEvent.EventType.FINISH_MATCH);
-                break;
-            case "BREAK_TIME":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.START_SECOND_HALF,
-                                                  AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
-                                                  AbstractMatchEvent.EventType.START_OT_SECOND_HALF,
-                                                  AbstractMatchEvent.EventType.START_OT_FIRST_HALF,
-                                                  AbstractMatchEvent.EventType.SUBSTITUTION);
-                break;
-            case "OT_FIRST_HALF":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.GOAL,
-                                                  AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
-                                                  AbstractMatchEvent.EventType.CARD,
-                                                  AbstractMatchEvent.EventType.FINISH_OT_FIRST_HALF,
-                                                  AbstractMatchEvent.EventType.SUBSTITUTION);
-                break;
-            case "OT_SECOND_HALF":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.GOAL,
-                                                  AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
-                                                  AbstractMatchEvent.EventType.CARD,
-                                                  AbstractMatchEvent.EventType.FINISH_OT_SECOND_HALF,
-                                                  AbstractMatchEvent.EventType.SUBSTITUTION,
-                                                  AbstractMatchEvent.EventType.FINISH_MATCH);
-                break;
-            case "PENALTIES":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.PENALTY,
-                                                  AbstractMatchEvent.EventType.FINISH_MATCH);
-                break;
-            case "FINISHED":
-                allowedEventTypes = Arrays.asList(AbstractMatchEvent.EventType.STANDARD_DESCRIPTION);
-                break;
-            default:
-                allowedEventTypes = Collections.emptyList();
-                break;
+    @Override
+    @Transactional
+    public List<ProcessedEventResult> importEvents(Match match, List<MatchEventDto> eventDtos) {
+        // Imported events are historical, so clients that follow the match live are not notified about them
+        return processEvents(match, eventDtos, false);
+    }
+
+    private List<ProcessedEventResult> processEvents(Match match, List<MatchEventDto> eventDtos, boolean notifyClients) {
+        // Events are applied in the order in which they were sent, so that ex. a GOAL sent right after
+        // START_FIRST_HALF is validated against the status set by the previous event.
+        // The match is saved only once, after all events of the batch have been applied
+        List<AbstractMatchEvent> acceptedEvents = new ArrayList<>();
+        List<ProcessedEventResult> acceptedResults = new ArrayList<>();
+        List<ProcessedEventResult> results = new ArrayList<>();
+        Long previousEventCount = match.getEventCount();
+
+        for (int i = 0; i < eventDtos.size(); i++) {
+            MatchEventDto eventDto = eventDtos.get(i);
+            if (eventDto == null) {
+                results.add(ProcessedEventResult.rejected(i, "Event cannot be null"));
+                continue;
+            }
+
+            List<String> validationErrors = validateEventDto(eventDto);
+            if (!validationErrors.isEmpty()) {
+                results.add(ProcessedEventResult.rejected(i, validationErrors));
+                continue;
+            }
+
+            try {
+                AbstractMatchEvent event = convertEventDtoToEntity(eventDto, match);
+                applyEvent(event);
+                // whether the event was processed is known only after the match is saved
+                ProcessedEventResult result = ProcessedEventResult.accepted(i, false);
+                acceptedEvents.add(event);
+                acceptedResults.add(result);
+                results.add(result);
+            } catch (ProcessedEventRejectedException ex) {
+                results.add(ProcessedEventResult.rejected(i, ex.getMessage()));
+            }
         }
-        return allowedEventTypes.contains(type);
+
+        if (!acceptedEvents.isEmpty()) {
+            eventRepository.saveAll(acceptedEvents);
+            boolean saved = matchService.save(match) != null;
+            acceptedResults.forEach(r -> r.setEventProcessed(saved));
+            rebuildService.takeSnapshotIfDue(match, previousEventCount);
+            liveMatchStore.addEventsAfterCommit(match.getId(), acceptedEvents);
+            if (notifyClients) {
+                for (AbstractMatchEvent event : acceptedEvents) {
+                    webSocketEventService.sendEventOverWebSocket(match.getWebsocketPath(), event);
+                }
+                pollRegistry.notifyAfterCommit(match.getId(), acceptedEvents);
+            }
+        }
+        return results;
     }
 
-    private boolean continueEventProcessing(AbstractMatchEvent event) {
+    private List<String> validateEventDto(MatchEventDto eventDto) {
+        // Error messages have the same format as the ones built by FailedValidationException,
+        // so that clients get identical messages from both single event and batch endpoints
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<MatchEventDto> violation : validator.validate(eventDto)) {
+            errors.add(violation.getPropertyPath() + " validation error: " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    private void applyEvent(AbstractMatchEvent event) throws ProcessedEventRejectedException {
         Match match = event.getMatch();
-        match.addEvent(event);
 
-        switch (event.getType().toString()) {
-            case "START_FIRST_HALF":
-                match.setStatus(Match.Status.FIRST_HALF);
-                break;
-            case "FINISH_FIRST_HALF":
-                match.setStatus(Match.Status.BREAK_TIME);
-                break;
-            case "START_SECOND_HALF":
-                match.setStatus(Match.Status.SECOND_HALF);
-                break;
-            case "FINISH_SECOND_HALF":
-                match.setStatus(Match.Status.BREAK_TIME);
-                break;
-            case "FINISH_MATCH":
-                match.setStatus(Match.Status.FINISHED);
-                break;
-            case "START_OT_FIRST_HALF":
-                match.setStatus(Match.Status.OT_FIRST_HALF);
-                break;
-            case "FINISH_OT_FIRST_HALF":
-                match.setStatus(Match.Status.BREAK_TIME);
-                break;
-            case "START_OT_SECOND_HALF":
-                match.setStatus(Match.Status.OT_SECOND_HALF);
-                break;
-            case "FINISH_OT_SECOND_HALF":
-                match.setStatus(Match.Status.PENALTIES);
-                break;
-            case "GOAL":
-                GoalEvent goalEvent = (GoalEvent)event;
-                Team teamScoringGoal = goalEvent.getTeamScoring();
-                if (teamScoringGoal == match.getTeamA()) {
-                    match.getResult().addGoalTeamA(goalEvent.getTime(), goalEvent.getPlayerScoring());
-                } else {
-                    match.getResult().addGoalTeamB(goalEvent.getTime(), goalEvent.getPlayerScoring());
-                }
-                break;
-            case "PENALTY":
-                PenaltyEvent penaltyEvent = (PenaltyEvent)event;
-                Team teamScoringPenalty = penaltyEvent.getTeam();
-                if (teamScoringPenalty == match.getTeamA()) {
-                    match.getResult().addPenaltyTeamA();
-                } else {
-                    match.getResult().addPenaltyTeamB();
-                }
-                break;
-            case "STANDARD_DESCRIPTION":
-            case "SUBSTITUTION":
-            case "CARD":
-                // events of this type do not change state
-                break;
-            default:
-                // cases above catch all event types
-                // do nothing here
-                break;
+        if (MatchStateMachine.isAllowed(match.getStatus(), event.getType())) {
+            continueEventProcessing(event);
+        } else {
+            String message = String
+                    .format("Cannot send events of type %s when match status is %s%n", event.getType().toString(),
+                                                                                       match.getStatus().toString());
+            throw new ProcessedEventRejectedException(message);
         }
-        return matchService.save(match) != null;
+    }
+
+    private void continueEventProcessing(AbstractMatchEvent event) {
+        Match match = event.getMatch();
+        match.addEvent(event);
+        MatchStateMachine.apply(match, event);
     }
 }
@@ -0,0 +1,234 @@
+package ml.echelon133.sportevents.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Every match has its own lane - a bounded queue of tasks that are executed one at a time, in the order in which
+they were submitted. This makes the processing of events single-writer per match: two events sent at the same time
+to the same match never load and modify that match concurrently, so no update is lost.
+
+Lanes of different matches are drained in parallel by a shared pool of threads. A lane exists only as long as
+it has queued tasks. When it becomes empty it is removed, and the next submitted task creates a new one.
+All operations on a lane (adding a task, taking a task, removing an empty lane) are done inside
+ConcurrentHashMap.compute* methods, which are atomic for a single key. Thanks to that, there is never more than
+one lane per match.
+
+Every task is executed in its own transaction. Match has a version column, so a task that modified a match which was
+changed by someone else in the meantime (ex. by an admin, or by another instance of the application) fails with
+OptimisticLockingFailureException. Such a task is executed again, in a new transaction, so it loads the current state
+of the match and validates the event against it. After maxAttempts failed attempts the conflict is reported
+to the caller.
+ */
+@Component
+public class MatchEventLanes {
+
+    // How many tasks of one lane can be executed before the thread is given back to the pool.
+    // Prevents a very busy match from starving other matches
+    private static final int DRAIN_BATCH_SIZE = 16;
+
+    @FunctionalInterface
+    public interface LaneTask<T> {
+        T run() throws ResourceDoesNotExistException, ProcessedEventRejectedException;
+    }
+
+    private static class Lane {
+        private final Long matchId;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        Lane(Long matchId) {
+            this.matchId = matchId;
+        }
+    }
+
+    // Carries checked exceptions of a LaneTask through TransactionTemplate, which causes the transaction rollback
+    private static class LaneTaskException extends RuntimeException {
+        LaneTaskException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private final ConcurrentMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final ExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+    private final int laneCapacity;
+    private final Counter rejectedTasks;
+    private final DistributionSummary laneDepth;
+    private final int maxAttempts;
+    private final Counter retries;
+    private final Counter conflicts;
+
+    @Autowired
+    public MatchEventLanes(PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${events.lanes.capacity:256}") int laneCapacity,
+                           @Value("${events.lanes.threads:0}") int threads,
+                           @Value("${events.lanes.max-attempts:3}") int maxAttempts) {
+        if (laneCapacity < 1) {
+            throw new IllegalArgumentException("Lane capacity must be a positive number");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Maximum number of attempts must be a positive number");
+        }
+        // When the number of threads is not configured, use all available cores
+        int poolSize = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.laneCapacity = laneCapacity;
+        this.maxAttempts = maxAttempts;
+        this.executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("event-lane-"));
+
+        meterRegistry.gauge("events.lanes.active", lanes, ConcurrentMap::size);
+        meterRegistry.gauge("events.lanes.queued", queuedTasks);
+        this.rejectedTasks = meterRegistry.counter("events.lanes.rejected");
+        this.laneDepth = DistributionSummary
+                .builder("events.lanes.depth")
+                .description("Number of tasks waiting in the lane of a match, measured when a new task is added")
+                .register(meterRegistry);
+        this.retries = meterRegistry.counter("events.lanes.retries");
+        this.conflicts = meterRegistry.counter("match.conflicts", "source", "events");
+    }
+
+    public <T> T execute(Long matchId, LaneTask<T> task)
+            throws ResourceDoesNotExistException, ProcessedEventRejectedException, EventLaneFullException {
+
+        CompletableFuture<T> future = submit(matchId, task);
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the event to be processed", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ResourceDoesNotExistException) {
+                throw (ResourceDoesNotExistException) cause;
+            } else if (cause instanceof ProcessedEventRejectedException) {
+                throw (ProcessedEventRejectedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Long matchId, LaneTask<T> task) throws EventLaneFullException {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable work = () -> runTask(task, future);
+
+        // compute is atomic for a single key, so this can safely race with other submits and with pollTask
+        int[] depth = {-1};
+        boolean[] schedule = {false};
+        Lane lane = lanes.compute(matchId, (id, existing) -> {
+            Lane l = (existing == null) ? new Lane(id) : existing;
+            if (l.tasks.size() < laneCapacity) {
+                l.tasks.add(work);
+                depth[0] = l.tasks.size();
+                if (!l.scheduled) {
+                    l.scheduled = true;
+                    schedule[0] = true;
+                }
+            }
+            return l;
+        });
+
+        if (depth[0] < 0) {
+            rejectedTasks.increment();
+            String message = String.format("Too many events waiting to be processed for match with id %d", matchId);
+            throw new EventLaneFullException(message);
+        }
+
+        queuedTasks.incrementAndGet();
+        laneDepth.record(depth[0]);
+        if (schedule[0]) {
+            executor.execute(() -> drain(lane));
+        }
+        return future;
+    }
+
+    private void drain(Lane lane) {
+        for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+            Runnable task = pollTask(lane);
+            if (task == null) {
+                // lane was empty and has been removed
+                return;
+            }
+            task.run();
+        }
+        // the lane still has tasks, but other lanes should get a chance to run first
+        executor.execute(() -> drain(lane));
+    }
+
+    private Runnable pollTask(Lane lane) {
+        Runnable[] task = {null};
+        lanes.computeIfPresent(lane.matchId, (id, l) -> {
+            task[0] = l.tasks.poll();
+            // returning null removes the lane of this match
+            return (task[0] == null) ? null : l;
+        });
+        if (task[0] != null) {
+            queuedTasks.decrementAndGet();
+        }
+        return task[0];
+    }
+
+    private <T> void runTask(LaneTask<T> task, CompletableFuture<T> future) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(status -> {
+                    try {
+                        return task.run();
+                    } catch (ResourceDoesNotExistException | ProcessedEventRejectedException ex) {
+                        throw new LaneTaskException(ex);
+                    }
+                });
+                future.complete(result);
+                return;
+            } catch (OptimisticLockingFailureException ex) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    future.completeExceptionally(ex);
+                    return;
+                }
+                retries.increment();
+            } catch (LaneTaskException ex) {
+                future.completeExceptionally(ex.getCause());
+                return;
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+                return;
+            }
+        }
+    }
+
+    public int getActiveLaneCount() {
+        return lanes.size();
+    }
+
+    public int getQueuedTaskCount() {
+        return queuedTasks.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface MatchEventRepository extends JpaRepository<AbstractMatchEvent, Long> {
+    // Ids of events are taken one at a time from a single sequence, after the match is loaded. A match is saved
+    // with every event and has a version column, so an event whose id is lower than an already saved event
+    // of the same match cannot be saved anymore. Ordering by id gives the order in which events were processed
+    List<AbstractMatchEvent> findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(Long matchId, Long eventId);
+
+    // Reads at most pageable.getPageSize() events that follow eventId. Only the first page is ever requested,
+    // so the database starts at eventId in the (match_id, id) index instead of skipping an offset
+    List<AbstractMatchEvent> findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(Long matchId, Long eventId, Pageable pageable);
+
+    @Query("SELECT MAX(e.id) FROM AbstractMatchEvent e WHERE e.match.id = :matchId")
+    Long findLastEventId(@Param("matchId") Long matchId);
+}
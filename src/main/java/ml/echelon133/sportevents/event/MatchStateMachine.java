@@ -0,0 +1,126 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent.EventType;
+import ml.echelon133.sportevents.event.types.GoalEvent;
+import ml.echelon133.sportevents.event.types.PenaltyEvent;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.match.Match.Status;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Rules of the match, precomputed once:
+
+1) ALLOWED_EVENT_TYPES - which event types can be accepted when the match has a certain status
+2) STATUS_TRANSITIONS - which status is set by an event of a certain type (only managing events change the status)
+3) EFFECTS - what happens to the match when an event of a certain type is accepted
+
+Checking whether an event is allowed is a single EnumMap lookup followed by an EnumSet (bit vector) lookup.
+ */
+public final class MatchStateMachine {
+
+    @FunctionalInterface
+    public interface EventEffect {
+        void apply(Match match, AbstractMatchEvent event);
+    }
+
+    private static final EventEffect NO_EFFECT = (match, event) -> {};
+
+    private static final Map<Status, Set<EventType>> ALLOWED_EVENT_TYPES;
+    private static final Map<EventType, Status> STATUS_TRANSITIONS;
+    private static final Map<EventType, EventEffect> EFFECTS;
+
+    static {
+        Map<Status, Set<EventType>> allowed = new EnumMap<>(Status.class);
+        allowed.put(Status.NOT_STARTED, EnumSet.of(
+                EventType.START_FIRST_HALF, EventType.STANDARD_DESCRIPTION));
+        allowed.put(Status.FIRST_HALF, EnumSet.of(
+                EventType.GOAL, EventType.STANDARD_DESCRIPTION, EventType.CARD,
+                EventType.FINISH_FIRST_HALF, EventType.SUBSTITUTION));
+        allowed.put(Status.SECOND_HALF, EnumSet.of(
+                EventType.GOAL, EventType.STANDARD_DESCRIPTION, EventType.CARD,
+                EventType.FINISH_SECOND_HALF, EventType.SUBSTITUTION, EventType.FINISH_MATCH));
+        allowed.put(Status.BREAK_TIME, EnumSet.of(
+                EventType.START_SECOND_HALF, EventType.STANDARD_DESCRIPTION, EventType.START_OT_SECOND_HALF,
+                EventType.START_OT_FIRST_HALF, EventType.SUBSTITUTION));
+        allowed.put(Status.OT_FIRST_HALF, EnumSet.of(
+                EventType.GOAL, EventType.STANDARD_DESCRIPTION, EventType.CARD,
+                EventType.FINISH_OT_FIRST_HALF, EventType.SUBSTITUTION));
+        allowed.put(Status.OT_SECOND_HALF, EnumSet.of(
+                EventType.GOAL, EventType.STANDARD_DESCRIPTION, EventType.CARD,
+                EventType.FINISH_OT_SECOND_HALF, EventType.SUBSTITUTION, EventType.FINISH_MATCH));
+        allowed.put(Status.PENALTIES, EnumSet.of(
+                EventType.PENALTY, EventType.FINISH_MATCH));
+        allowed.put(Status.FINISHED, EnumSet.of(
+                EventType.STANDARD_DESCRIPTION));
+        // every status has to be present in the table, even if no event is allowed
+        for (Status status : Status.values()) {
+            allowed.putIfAbsent(status, EnumSet.noneOf(EventType.class));
+            allowed.put(status, Collections.unmodifiableSet(allowed.get(status)));
+        }
+
+        Map<EventType, Status> transitions = new EnumMap<>(EventType.class);
+        transitions.put(EventType.START_FIRST_HALF, Status.FIRST_HALF);
+        transitions.put(EventType.FINISH_FIRST_HALF, Status.BREAK_TIME);
+        transitions.put(EventType.START_SECOND_HALF, Status.SECOND_HALF);
+        transitions.put(EventType.FINISH_SECOND_HALF, Status.BREAK_TIME);
+        transitions.put(EventType.FINISH_MATCH, Status.FINISHED);
+        transitions.put(EventType.START_OT_FIRST_HALF, Status.OT_FIRST_HALF);
+        transitions.put(EventType.FINISH_OT_FIRST_HALF, Status.BREAK_TIME);
+        transitions.put(EventType.START_OT_SECOND_HALF, Status.OT_SECOND_HALF);
+        transitions.put(EventType.FINISH_OT_SECOND_HALF, Status.PENALTIES);
+
+        Map<EventType, EventEffect> effects = new EnumMap<>(EventType.class);
+        for (EventType type : EventType.values()) {
+            effects.put(type, NO_EFFECT);
+        }
+        transitions.forEach((type, status) -> effects.put(type, (match, event) -> match.setStatus(status)));
+        effects.put(EventType.GOAL, MatchStateMachine::applyGoal);
+        effects.put(EventType.PENALTY, MatchStateMachine::applyPenalty);
+
+        ALLOWED_EVENT_TYPES = Collections.unmodifiableMap(allowed);
+        STATUS_TRANSITIONS = Collections.unmodifiableMap(transitions);
+        EFFECTS = Collections.unmodifiableMap(effects);
+    }
+
+    private MatchStateMachine() {}
+
+    private static void applyGoal(Match match, AbstractMatchEvent event) {
+        GoalEvent goalEvent = (GoalEvent)event;
+        if (goalEvent.getTeamScoring() == match.getTeamA()) {
+            match.getResult().addGoalTeamA(goalEvent.getTime(), goalEvent.getPlayerScoring());
+        } else {
+            match.getResult().addGoalTeamB(goalEvent.getTime(), goalEvent.getPlayerScoring());
+        }
+    }
+
+    private static void applyPenalty(Match match, AbstractMatchEvent event) {
+        PenaltyEvent penaltyEvent = (PenaltyEvent)event;
+        if (penaltyEvent.getTeam() == match.getTeamA()) {
+            match.getResult().addPenaltyTeamA();
+        } else {
+            match.getResult().addPenaltyTeamB();
+        }
+    }
+
+    public static boolean isAllowed(Status status, EventType type) {
+        return ALLOWED_EVENT_TYPES.get(status).contains(type);
+    }
+
+    public static void apply(Match match, AbstractMatchEvent event) {
+        EFFECTS.get(event.getType()).apply(match, event);
+    }
+
+    public static Map<Status, Set<EventType>> getAllowedEventTypes() {
+        return ALLOWED_EVENT_TYPES;
+    }
+
+    public static Map<EventType, Status> getStatusTransitions() {
+        return STATUS_TRANSITIONS;
+    }
+}
@@ -0,0 +1,64 @@
+package ml.echelon133.sportevents.event;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+This class describes the outcome of processing a single event that was sent as a part of a batch.
+
+'index' is the position of the event in the array that was sent by the client, which makes it possible to tell
+which events were accepted and which were rejected (with 'messages' containing reasons of rejection)
+ */
+public class ProcessedEventResult {
+
+    private int index;
+    private boolean eventProcessed;
+    private List<String> messages;
+
+    public ProcessedEventResult() {}
+    public ProcessedEventResult(int index, boolean eventProcessed) {
+        this.index = index;
+        this.eventProcessed = eventProcessed;
+    }
+
+    public ProcessedEventResult(int index, boolean eventProcessed, List<String> messages) {
+        this(index, eventProcessed);
+        this.messages = messages;
+    }
+
+    public static ProcessedEventResult accepted(int index, boolean saved) {
+        return new ProcessedEventResult(index, saved);
+    }
+
+    public static ProcessedEventResult rejected(int index, String... messages) {
+        return new ProcessedEventResult(index, false, Arrays.asList(messages));
+    }
+
+    public static ProcessedEventResult rejected(int index, List<String> messages) {
+        return new ProcessedEventResult(index, false, messages);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isEventProcessed() {
+        return eventProcessed;
+    }
+
+    public void setEventProcessed(boolean eventProcessed) {
+        this.eventProcessed = eventProcessed;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<String> messages) {
+        this.messages = messages;
+    }
+}
@@ -2,6 +2,8 @@ package ml.echelon133.sportevents.event.types;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import ml.echelon133.sportevents.match.Match;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -17,8 +19,23 @@ public class AbstractMatchEvent {
         GOAL, PENALTY, STANDARD_DESCRIPTION, SUBSTITUTION, CARD
     }
 
+    // Ids come from a sequence (a table on databases without sequences) instead of the insert itself, so inserts
+    // of events can be sent to the database in JDBC batches. 'hibernate_sequence' is the sequence that was used by
+    // GenerationType.AUTO before, so existing ids stay unique.
+    // Every id is taken from the sequence on its own, unlike ids of goals which are reserved in blocks. Clients and
+    // rebuilds read events of a match in the order of their ids, so ids have to grow in the order in which events
+    // are processed, even if two instances of the application write events of the same match. Blocks reserved
+    // by different instances would break that (an instance with an older block gives out lower ids)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "match_event_id")
+    @GenericGenerator(
+            name = "match_event_id",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+                    @Parameter(name = "increment_size", value = "1"),
+                    @Parameter(name = "optimizer", value = "none")
+            })
     private Long id;
 
     private Long time;
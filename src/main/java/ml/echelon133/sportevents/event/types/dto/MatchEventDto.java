@@ -5,6 +5,7 @@ import ml.echelon133.sportevents.event.types.dto.validation.ValidEventType;
 import org.hibernate.validator.constraints.Range;
 
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 public abstract class MatchEventDto {
 
@@ -20,6 +21,10 @@ public abstract class MatchEventDto {
     @ValidEventType
     private String type;
 
+    // Optional. Identifies the event when the request is retried, same as the Idempotency-Key header
+    @Size(max = 128)
+    private String eventKey;
+
     public MatchEventDto() {}
     public MatchEventDto(Long time, String message, String type) {
         setTime(time);
@@ -50,4 +55,12 @@ public abstract class MatchEventDto {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
 }
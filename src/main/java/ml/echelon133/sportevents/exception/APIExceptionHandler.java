@@ -1,6 +1,8 @@
 package ml.echelon133.sportevents.exception;
 
+import ml.echelon133.sportevents.event.EventLaneFullException;
 import ml.echelon133.sportevents.event.ProcessedEventRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -75,4 +77,21 @@ public class APIExceptionHandler extends ResponseEntityExceptionHandler {
                 ex.getMessage());
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(value = EventLaneFullException.class)
+    protected ResponseEntity<ErrorMessage> handleEventLaneFullException(EventLaneFullException ex, WebRequest request) {
+        ErrorMessage message = new ErrorMessage(new Date(),
+                request.getDescription(false),
+                ex.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(value = OptimisticLockingFailureException.class)
+    protected ResponseEntity<ErrorMessage> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                                   WebRequest request) {
+        ErrorMessage message = new ErrorMessage(new Date(),
+                request.getDescription(false),
+                "Resource was modified concurrently. Load it again and retry the request");
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
 }
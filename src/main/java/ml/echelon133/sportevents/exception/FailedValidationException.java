@@ -12,6 +12,7 @@ public class FailedValidationException extends Exception {
 
     public FailedValidationException(String message) {
         super(message);
+        textErrors.add(message);
     }
 
     public FailedValidationException(List<FieldError> errors) {
@@ -0,0 +1,90 @@
+package ml.echelon133.sportevents.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/*
+Reads lines of text like BufferedReader.readLine(), but never keeps more than 'maxLineLength' characters of a line
+in memory. BufferedReader reads the whole line before returning it, so a single huge line without a line break
+(ex. a file that is not newline-delimited at all) would have to fit in memory at once.
+
+A line that is too long is skipped up to its line break and reported with LineTooLongException. The reader can be
+used after the exception, the next call returns the line after the skipped one.
+ */
+class BoundedLineReader implements Closeable {
+
+    static class LineTooLongException extends IOException {
+        LineTooLongException(int maxLineLength) {
+            super("Line is longer than " + maxLineLength + " characters");
+        }
+    }
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    BoundedLineReader(Reader reader, int maxLineLength) {
+        if (maxLineLength < 1) {
+            throw new IllegalArgumentException("Maximum line length must be a positive number");
+        }
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+    }
+
+    // Returns the next line without its line break ("\n" or "\r\n"), or null at the end of the stream
+    String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean tooLong = false;
+        boolean anythingRead = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    if (!anythingRead) {
+                        return null;
+                    }
+                    break;
+                }
+            }
+            anythingRead = true;
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            if (!tooLong) {
+                if (line.length() + (position - start) > maxLineLength + 1) {
+                    // the rest of the line is skipped without being kept
+                    tooLong = true;
+                    line.setLength(0);
+                } else {
+                    line.append(buffer, start, position - start);
+                }
+            }
+            if (position < limit) {
+                // line break
+                position++;
+                break;
+            }
+        }
+
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        if (tooLong || line.length() > maxLineLength) {
+            throw new LineTooLongException(maxLineLength);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,34 @@
+package ml.echelon133.sportevents.importer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+@RestController
+@RequestMapping("/api/events/import")
+public class EventImportController {
+
+    private EventImportService importService;
+
+    @Autowired
+    public EventImportController(EventImportService importService) {
+        this.importService = importService;
+    }
+
+    // The body is given to the service as a stream, so that it is never read into memory as a whole
+    @PostMapping(consumes = {"application/x-ndjson", "application/stream+json"})
+    public ResponseEntity<ImportReport> importEvents(InputStream body) throws IOException {
+        ImportReport report = importService.importEvents(body);
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    @GetMapping
+    public ResponseEntity<Collection<ImportReport>> getRunningImports() {
+        return new ResponseEntity<>(importService.findRunningImports(), HttpStatus.OK);
+    }
+}
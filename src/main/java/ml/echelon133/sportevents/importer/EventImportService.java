@@ -0,0 +1,10 @@
+package ml.echelon133.sportevents.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+public interface EventImportService {
+    ImportReport importEvents(InputStream input) throws IOException;
+    Collection<ImportReport> findRunningImports();
+}
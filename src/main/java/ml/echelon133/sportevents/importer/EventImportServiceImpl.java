@@ -0,0 +1,204 @@
+package ml.echelon133.sportevents.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.event.EventLaneFullException;
+import ml.echelon133.sportevents.event.EventService;
+import ml.echelon133.sportevents.event.MatchEventLanes;
+import ml.echelon133.sportevents.event.ProcessedEventRejectedException;
+import ml.echelon133.sportevents.event.ProcessedEventResult;
+import ml.echelon133.sportevents.event.types.dto.MatchEventDto;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.MatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Imports events from a newline-delimited JSON stream. Every line contains a single ImportedEventDto.
+
+The stream is read one line at a time and every line is parsed on its own, so a malformed line is reported
+and skipped without losing track of the lines after it. Only the current batch and at most 'maxLineLength'
+characters of the current line are kept in memory, which means that the memory used by an import does not depend
+on the size of the imported file. Longer lines are skipped and reported.
+
+Consecutive events of the same match are collected into a batch of at most 'batchSize' events, which is processed
+in the lane of that match like a batch sent to /api/matches/{matchId}/events/batch, except that the imported events
+are not sent to clients that follow the match live. A batch is processed before the next line is read, so the events
+of every match are applied in the order of lines in the file. A batch that fails is reported line by line and
+the import continues with the next batch
+ */
+@Service
+public class EventImportServiceImpl implements EventImportService {
+
+    private final Map<String, ImportReport> runningImports = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final ObjectReader lineReader;
+    private final EventService eventService;
+    private final MatchService matchService;
+    private final MatchEventLanes eventLanes;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final int maxLineLength;
+    private final Counter importedLines;
+    private final Counter rejectedEvents;
+    private Clock clock;
+
+    @Autowired
+    public EventImportServiceImpl(ObjectMapper objectMapper,
+                                  EventService eventService,
+                                  MatchService matchService,
+                                  MatchEventLanes eventLanes,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${events.import.batch-size:500}") int batchSize,
+                                  @Value("${events.import.max-reported-errors:1000}") int maxReportedErrors,
+                                  @Value("${events.import.max-line-length:65536}") int maxLineLength) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be a positive number");
+        }
+        if (maxLineLength < 1) {
+            throw new IllegalArgumentException("Maximum line length must be a positive number");
+        }
+        // Clock instance needed to simplify testing. Tests can inject Clock.fixed(...) instances to this service
+        this.clock = Clock.systemDefaultZone();
+        this.objectMapper = objectMapper;
+        this.lineReader = objectMapper.readerFor(ImportedEventDto.class);
+        this.eventService = eventService;
+        this.matchService = matchService;
+        this.eventLanes = eventLanes;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.maxLineLength = maxLineLength;
+        this.importedLines = meterRegistry.counter("events.import.lines");
+        this.rejectedEvents = meterRegistry.counter("events.import.rejected");
+    }
+
+    @Override
+    public ImportReport importEvents(InputStream input) throws IOException {
+        ImportReport report = new ImportReport(UUID.randomUUID().toString(), clock.millis(), maxReportedErrors);
+        runningImports.put(report.getImportId(), report);
+
+        // line numbers and events of the batch that is currently being collected
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        List<MatchEventDto> batchEvents = new ArrayList<>(batchSize);
+        Long batchMatchId = null;
+
+        try (BoundedLineReader reader =
+                     new BoundedLineReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength)) {
+            long lineNumber = 0;
+            while (true) {
+                String line;
+                try {
+                    line = reader.readLine();
+                } catch (BoundedLineReader.LineTooLongException ex) {
+                    lineNumber++;
+                    report.lineRead();
+                    importedLines.increment();
+                    reject(report, lineNumber, null, ex.getMessage());
+                    continue;
+                }
+                if (line == null) {
+                    break;
+                }
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                report.lineRead();
+                importedLines.increment();
+
+                ImportedEventDto importedEvent;
+                try {
+                    importedEvent = parseLine(line);
+                } catch (JsonProcessingException ex) {
+                    reject(report, lineNumber, null, "Line could not be parsed: " + ex.getOriginalMessage());
+                    continue;
+                }
+                if (importedEvent.getMatchId() == null || importedEvent.getEvent() == null) {
+                    reject(report, lineNumber, importedEvent.getMatchId(), "Line has to contain matchId and event");
+                    continue;
+                }
+
+                if (!importedEvent.getMatchId().equals(batchMatchId) || batchEvents.size() == batchSize) {
+                    processBatch(report, batchMatchId, batchLines, batchEvents);
+                    batchMatchId = importedEvent.getMatchId();
+                }
+                batchLines.add(lineNumber);
+                batchEvents.add(importedEvent.getEvent());
+            }
+            processBatch(report, batchMatchId, batchLines, batchEvents);
+        } finally {
+            report.finish(clock.millis());
+            runningImports.remove(report.getImportId());
+        }
+        return report;
+    }
+
+    private ImportedEventDto parseLine(String line) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+            return lineReader.readValue(parser);
+        }
+    }
+
+    private void processBatch(ImportReport report, Long matchId, List<Long> lines, List<MatchEventDto> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<ProcessedEventResult> results = eventLanes.execute(matchId, () ->
+                    eventService.importEvents(matchService.findById(matchId), events));
+
+            for (ProcessedEventResult result : results) {
+                if (result.isEventProcessed()) {
+                    report.eventProcessed();
+                } else {
+                    List<String> messages = (result.getMessages() == null) ?
+                            Collections.singletonList("Event was not processed") : result.getMessages();
+                    reject(report, lines.get(result.getIndex()), matchId, messages);
+                }
+            }
+        } catch (ResourceDoesNotExistException | ProcessedEventRejectedException |
+                EventLaneFullException | RuntimeException ex) {
+            // The whole batch failed (its transaction was rolled back), so every line of it is reported with
+            // the same reason. RuntimeException covers failures of the database, ex. a violated constraint
+            String message = (ex.getMessage() == null) ? ex.getClass().getSimpleName() : ex.getMessage();
+            for (Long line : lines) {
+                reject(report, line, matchId, Collections.singletonList(message));
+            }
+        }
+
+        lines.clear();
+        events.clear();
+    }
+
+    private void reject(ImportReport report, long line, Long matchId, String message) {
+        reject(report, line, matchId, Collections.singletonList(message));
+    }
+
+    private void reject(ImportReport report, long line, Long matchId, List<String> messages) {
+        report.eventRejected(new ImportLineError(line, matchId, messages));
+        rejectedEvents.increment();
+    }
+
+    @Override
+    public Collection<ImportReport> findRunningImports() {
+        return new ArrayList<>(runningImports.values());
+    }
+
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+}
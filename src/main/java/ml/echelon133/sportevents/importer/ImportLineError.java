@@ -0,0 +1,28 @@
+package ml.echelon133.sportevents.importer;
+
+import java.util.List;
+
+public class ImportLineError {
+
+    private long line;
+    private Long matchId;
+    private List<String> messages;
+
+    public ImportLineError(long line, Long matchId, List<String> messages) {
+        this.line = line;
+        this.matchId = matchId;
+        this.messages = messages;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public Long getMatchId() {
+        return matchId;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+}
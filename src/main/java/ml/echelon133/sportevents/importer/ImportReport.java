@@ -0,0 +1,90 @@
+package ml.echelon133.sportevents.importer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+Progress of a single import. While the import is running, its report is updated after every batch and can be read
+by other threads (GET /api/events/import), so that a client can watch a long import.
+
+Only the first 'maxReportedErrors' errors are kept. Errors above that limit are only counted, so that
+a completely broken file does not make the report grow with the size of the file
+ */
+public class ImportReport {
+
+    private final String importId;
+    private final long startedAt;
+    private final int maxReportedErrors;
+    private final List<ImportLineError> errors = new CopyOnWriteArrayList<>();
+    private volatile long linesRead;
+    private volatile long eventsProcessed;
+    private volatile long eventsRejected;
+    private volatile long unreportedErrors;
+    private volatile long elapsedMillis;
+    private volatile boolean finished;
+
+    public ImportReport(String importId, long startedAt, int maxReportedErrors) {
+        this.importId = importId;
+        this.startedAt = startedAt;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    void lineRead() {
+        linesRead++;
+    }
+
+    void eventProcessed() {
+        eventsProcessed++;
+    }
+
+    void eventRejected(ImportLineError error) {
+        eventsRejected++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(error);
+        } else {
+            unreportedErrors++;
+        }
+    }
+
+    void finish(long finishedAt) {
+        elapsedMillis = finishedAt - startedAt;
+        finished = true;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    public long getEventsRejected() {
+        return eventsRejected;
+    }
+
+    public List<ImportLineError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public long getUnreportedErrors() {
+        return unreportedErrors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
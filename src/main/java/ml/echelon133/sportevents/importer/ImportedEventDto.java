@@ -0,0 +1,35 @@
+package ml.echelon133.sportevents.importer;
+
+import ml.echelon133.sportevents.event.types.dto.MatchEventDto;
+
+/*
+A single line of an imported file. The event itself has the same format as events sent to /api/matches/{matchId}/events,
+so it is deserialized with the same mix-in (its 'type' decides which MatchEventDto subclass is created)
+ */
+public class ImportedEventDto {
+
+    private Long matchId;
+    private MatchEventDto event;
+
+    public ImportedEventDto() {}
+    public ImportedEventDto(Long matchId, MatchEventDto event) {
+        this.matchId = matchId;
+        this.event = event;
+    }
+
+    public Long getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(Long matchId) {
+        this.matchId = matchId;
+    }
+
+    public MatchEventDto getEvent() {
+        return event;
+    }
+
+    public void setEvent(MatchEventDto event) {
+        this.event = event;
+    }
+}
@@ -0,0 +1,21 @@
+package ml.echelon133.sportevents.league;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+Leagues read by id (GET /api/leagues/{leagueId} and leagues of created or replaced matches)
+ */
+@Component
+public class LeagueCache extends ReferenceDataCache<League> {
+
+    @Autowired
+    public LeagueCache(MeterRegistry meterRegistry,
+                       @Value("${reference.cache.max-entries:1000}") int maxEntries,
+                       @Value("${reference.cache.ttl-seconds:300}") long ttlSeconds) {
+        super("leagues", meterRegistry, maxEntries, ttlSeconds);
+    }
+}
@@ -2,9 +2,11 @@ package ml.echelon133.sportevents.league;
 
 import ml.echelon133.sportevents.exception.FailedValidationException;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.links.KeysetPage;
 import ml.echelon133.sportevents.team.TeamResource;
 import ml.echelon133.sportevents.team.TeamResourceAssembler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resources;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
@@ -37,15 +40,22 @@ public class LeagueController {
     }
 
     @GetMapping
-    public ResponseEntity<Resources<LeagueResource>> getLeagues() {
-        Resources<LeagueResource> resources = new Resources<>(leagueResourceAssembler.toResources(leagueService.findAll()));
+    public ResponseEntity<Resources<LeagueResource>> getLeagues(
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        int pageSize = KeysetPage.toPageSize(limit);
+        List<League> leagues = leagueService.findAll(KeysetPage.toAfterId(afterId), pageSize + 1);
+        Resources<LeagueResource> resources = KeysetPage.toResources(leagues, pageSize, leagueResourceAssembler,
+                League::getId,
+                lastId -> linkTo(methodOn(LeagueController.class).getLeagues(lastId, pageSize)).withRel(Link.REL_NEXT));
         resources.add(linkTo(LeagueController.class).withRel("leagues"));
         return new ResponseEntity<>(resources, HttpStatus.OK);
     }
 
     @GetMapping("/{leagueId}")
     public ResponseEntity<LeagueResource> getLeague(@PathVariable Long leagueId) throws ResourceDoesNotExistException {
-        LeagueResource leagueResource = leagueResourceAssembler.toResource(leagueService.findById(leagueId));
+        LeagueResource leagueResource = leagueResourceAssembler.toResource(leagueService.findByIdForReading(leagueId));
         return new ResponseEntity<>(leagueResource, HttpStatus.OK);
     }
 
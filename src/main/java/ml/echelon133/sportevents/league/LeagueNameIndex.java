@@ -0,0 +1,30 @@
+package ml.echelon133.sportevents.league;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.search.NameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+Names of all leagues, searched by GET /api/search
+ */
+@Component
+public class LeagueNameIndex extends NameIndex {
+
+    private LeagueRepository leagueRepository;
+
+    @Autowired
+    public LeagueNameIndex(LeagueRepository leagueRepository, MeterRegistry meterRegistry) {
+        super("leagues", meterRegistry);
+        this.leagueRepository = leagueRepository;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        load(leagueRepository.findAllNames());
+    }
+}
@@ -1,6 +1,16 @@
 package ml.echelon133.sportevents.league;
 
+import ml.echelon133.sportevents.search.IndexedName;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface LeagueRepository extends JpaRepository<League, Long> {
+    List<League> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Loads the name index (see LeagueNameIndex)
+    @Query("SELECT new ml.echelon133.sportevents.search.IndexedName(l.id, l.name) FROM League l")
+    List<IndexedName> findAllNames();
 }
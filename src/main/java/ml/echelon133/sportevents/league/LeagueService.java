@@ -7,7 +7,10 @@ import java.util.List;
 public interface LeagueService {
     League convertDtoToEntity(LeagueDto leagueDto);
     League save(League league);
-    List<League> findAll();
+    // Returns at most 'limit' leagues that have an id greater than afterId, ordered by id (see KeysetPage)
+    List<League> findAll(Long afterId, int limit);
     League findById(Long id) throws ResourceDoesNotExistException;
+    // Returned league can be cached and shared between requests, so it must not be modified nor saved
+    League findByIdForReading(Long id) throws ResourceDoesNotExistException;
     boolean deleteById(Long id);
 }
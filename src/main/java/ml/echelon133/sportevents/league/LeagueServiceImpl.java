@@ -1,7 +1,10 @@
 package ml.echelon133.sportevents.league;
 
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.team.TeamCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,10 +14,22 @@ import java.util.Optional;
 public class LeagueServiceImpl implements LeagueService {
 
     private LeagueRepository leagueRepository;
+    private LeagueCache leagueCache;
+    private TeamCache teamCache;
+    private LeagueNameIndex leagueNameIndex;
+    private ReferenceDataVersion referenceDataVersion;
 
     @Autowired
-    public LeagueServiceImpl(LeagueRepository leagueRepository) {
+    public LeagueServiceImpl(LeagueRepository leagueRepository,
+                             LeagueCache leagueCache,
+                             TeamCache teamCache,
+                             LeagueNameIndex leagueNameIndex,
+                             ReferenceDataVersion referenceDataVersion) {
         this.leagueRepository = leagueRepository;
+        this.leagueCache = leagueCache;
+        this.teamCache = teamCache;
+        this.leagueNameIndex = leagueNameIndex;
+        this.referenceDataVersion = referenceDataVersion;
     }
 
     @Override
@@ -24,12 +39,24 @@ public class LeagueServiceImpl implements LeagueService {
 
     @Override
     public League save(League league) {
-        return leagueRepository.save(league);
+        League savedLeague = leagueRepository.save(league);
+        invalidateAfterCommit(savedLeague.getId());
+        leagueNameIndex.putAfterCommit(savedLeague.getId(), savedLeague.getName());
+        return savedLeague;
+    }
+
+    private void invalidateAfterCommit(Long id) {
+        leagueCache.invalidateAfterCommit(id);
+        // Cached teams hold their league. Leagues change rarely, so all teams are invalidated
+        // instead of keeping track of teams of every league
+        teamCache.invalidateAllAfterCommit();
+        // Names of leagues are a part of cached responses of matches
+        referenceDataVersion.incrementAfterCommit();
     }
 
     @Override
-    public List<League> findAll() {
-        return leagueRepository.findAll();
+    public List<League> findAll(Long afterId, int limit) {
+        return leagueRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
     }
 
     @Override
@@ -41,10 +68,17 @@ public class LeagueServiceImpl implements LeagueService {
         throw new ResourceDoesNotExistException("League with this id does not exist");
     }
 
+    @Override
+    public League findByIdForReading(Long id) throws ResourceDoesNotExistException {
+        return leagueCache.get(id, this::findById);
+    }
+
     @Override
     public boolean deleteById(Long id) {
         boolean exists = leagueRepository.existsById(id);
         if (exists) {
+            invalidateAfterCommit(id);
+            leagueNameIndex.removeAfterCommit(id);
             leagueRepository.deleteById(id);
             exists = leagueRepository.existsById(id);
         }
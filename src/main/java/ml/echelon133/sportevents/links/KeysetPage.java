@@ -0,0 +1,77 @@
+package ml.echelon133.sportevents.links;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+Keyset (seek) pagination of collection endpoints, ex. GET /api/matches?afterId=&limit=
+
+Entities are always ordered by their id, which is unique and never changes, so pages are stable - an entity that
+is added or removed while a client reads the collection does not shift the following pages, as it would with
+an offset. Repositories read a page with "WHERE id > afterId ORDER BY id LIMIT n", which is a range scan
+of an index that does not read the rows of previous pages.
+
+Services are asked for one entity more than the page size, so that the controller knows whether there is
+a next page without counting all entities. The response contains a 'next' link only if there is a next page.
+ */
+public final class KeysetPage {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private KeysetPage() {}
+
+    public static int toPageSize(Integer limit) {
+        return (limit == null) ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // The first page starts before the lowest id
+    public static long toAfterId(Long afterId) {
+        return (afterId == null) ? 0L : afterId;
+    }
+
+    // 'entities' is the result of reading pageSize + 1 entities. nextLink receives the id of the last entity
+    // of the page
+    public static <T, R extends ResourceSupport> Resources<R> toResources(List<T> entities,
+                                                                        int pageSize,
+                                                                        ResourceAssemblerSupport<T, R> assembler,
+                                                                        Function<T, Long> idOf,
+                                                                        Function<Long, Link> nextLink) {
+        List<T> page = trim(entities, pageSize);
+        Resources<R> resources = new Resources<>(assembler.toResources(page));
+        addNextLink(resources, entities, page, idOf, nextLink);
+        return resources;
+    }
+
+    // Same as above, for elements that are returned as they are (ex. summaries without links)
+    public static <T> Resources<T> toResources(List<T> elements,
+                                               int pageSize,
+                                               Function<T, Long> idOf,
+                                               Function<Long, Link> nextLink) {
+        List<T> page = trim(elements, pageSize);
+        Resources<T> resources = new Resources<>(page);
+        addNextLink(resources, elements, page, idOf, nextLink);
+        return resources;
+    }
+
+    private static <T> List<T> trim(List<T> elements, int pageSize) {
+        return (elements.size() > pageSize) ? elements.subList(0, pageSize) : elements;
+    }
+
+    private static <T> void addNextLink(Resources<?> resources,
+                                        List<T> elements,
+                                        List<T> page,
+                                        Function<T, Long> idOf,
+                                        Function<Long, Link> nextLink) {
+        if (elements.size() > page.size()) {
+            // linkTo leaves optional request parameters that are null as template variables, ex. {&status},
+            // expanding the link without values removes them
+            resources.add(nextLink.apply(idOf.apply(page.get(page.size() - 1))).expand());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ml.echelon133.sportevents.links;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.core.AnnotationMappingDiscoverer;
+import org.springframework.hateoas.mvc.BasicLinkBuilder;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.util.UriUtils;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+Link to a controller (or to a handler method of a controller) whose URI template is computed only once.
+
+linkTo(methodOn(...)) invokes a proxy of the controller and resolves the mapping of the invoked method for every
+link, which dominates the time of assembling large lists of resources. A LinkTemplate reads the mapping once,
+when it is created, and builds a link by appending the expanded template to the base URI of the current request.
+The base URI is the same one that linkTo uses (it respects X-Forwarded-* headers) and is computed only once
+per request.
+
+Templates are meant to be kept in static fields of resource assemblers, ex.
+LinkTemplate.of(TeamController.class, "getTeam").withSelfRel(team.getId())
+ */
+public final class LinkTemplate {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{([^}]+)}");
+    private static final AnnotationMappingDiscoverer DISCOVERER = new AnnotationMappingDiscoverer(RequestMapping.class);
+    private static final String BASE_URI_ATTRIBUTE = LinkTemplate.class.getName() + ".BASE_URI";
+
+    // literal parts of the template, there is always one more of them than there are variables
+    private final String[] literals;
+    private final String template;
+
+    private LinkTemplate(String template) {
+        this.template = template;
+        List<String> parts = new ArrayList<>();
+        Matcher matcher = VARIABLE.matcher(template);
+        int literalStart = 0;
+        while (matcher.find()) {
+            parts.add(template.substring(literalStart, matcher.start()));
+            literalStart = matcher.end();
+        }
+        parts.add(template.substring(literalStart));
+        this.literals = parts.toArray(new String[0]);
+    }
+
+    // Link to the mapping of the controller class, ex. /api/matches
+    public static LinkTemplate of(Class<?> controller) {
+        return new LinkTemplate(DISCOVERER.getMapping(controller));
+    }
+
+    // Link to the mapping of the only public method of the controller that has this name, ex. /api/matches/{matchId}
+    public static LinkTemplate of(Class<?> controller, String methodName) {
+        List<Method> methods = Arrays.stream(controller.getMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .collect(Collectors.toList());
+        if (methods.size() != 1) {
+            throw new IllegalArgumentException(
+                    String.format("%s must have exactly one public method named %s", controller.getName(), methodName));
+        }
+        return new LinkTemplate(DISCOVERER.getMapping(controller, methods.get(0)));
+    }
+
+    public Link withRel(String rel, Object... parameters) {
+        return new Link(expand(parameters), rel);
+    }
+
+    public Link withSelfRel(Object... parameters) {
+        return withRel(Link.REL_SELF, parameters);
+    }
+
+    // Parameters replace variables of the template in the order in which the variables occur
+    public String expand(Object... parameters) {
+        int variables = literals.length - 1;
+        if (parameters.length != variables) {
+            throw new IllegalArgumentException(
+                    String.format("%s expects %d parameters, got %d", template, variables, parameters.length));
+        }
+
+        StringBuilder href = new StringBuilder(currentBaseUri());
+        for (int i = 0; i < variables; i++) {
+            href.append(literals[i]);
+            Object parameter = parameters[i];
+            // Ids do not need encoding
+            if (parameter instanceof Long || parameter instanceof Integer) {
+                href.append(parameter);
+            } else {
+                href.append(UriUtils.encodePathSegment(String.valueOf(parameter), StandardCharsets.UTF_8));
+            }
+        }
+        href.append(literals[variables]);
+        return href.toString();
+    }
+
+    // Base URI of all links built during the current request, ex. http://example.com (empty outside of requests)
+    public static String currentBaseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = BasicLinkBuilder.linkToCurrentMapping().toString();
+            if (baseUri.endsWith("/")) {
+                baseUri = baseUri.substring(0, baseUri.length() - 1);
+            }
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,242 @@
+package ml.echelon133.sportevents.match;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.links.LinkTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Serialized responses of GET /api/matches/{matchId} and GET /api/matches/{matchId}/events of finished matches.
+
+Finished matches are read long after they were played (ex. while browsing results), but they change very rarely,
+so their responses are serialized once and then written to clients as they are. A response is serialized with
+the same message converters that Spring MVC uses, so it does not differ from a response of a match that is
+not cached.
+
+A response is cached on the first read after the match is finished, and not when the match is finished, because
+links in the response contain the host of the request (see LinkTemplate) - responses are only served to requests
+with the same base URI as the request that cached them. Every response is cached together with the version of
+the match and is only served while it is the current version (see MatchVersionCache), so an event or an edit of
+a finished match replaces its response on the next read. Responses of replaced and deleted matches are also
+removed right away. Responses contain names of teams, leagues and stadiums, so they are also cached together with
+the version of reference data (see ReferenceDataVersion) and are not served after any of them is modified.
+
+When the size of all cached responses exceeds maxBytes, the responses that were cached first are evicted.
+
+Metrics: match.finished.cache.hits, match.finished.cache.misses, match.finished.cache.evictions
+and match.finished.cache.bytes
+ */
+@Component
+public class FinishedMatchResponseCache {
+
+    public enum View { MATCH, EVENTS }
+
+    public static final class CachedResponse {
+        private final View view;
+        private final Long matchId;
+        private final Long version;
+        private final long referenceDataVersion;
+        private final String baseUri;
+        private final MediaType contentType;
+        private final byte[] body;
+
+        CachedResponse(View view, Long matchId, Long version, long referenceDataVersion, String baseUri,
+                       MediaType contentType, byte[] body) {
+            this.view = view;
+            this.matchId = matchId;
+            this.version = version;
+            this.referenceDataVersion = referenceDataVersion;
+            this.baseUri = baseUri;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+
+        // Written to the client as it is, so it must not be modified
+        public byte[] getBody() {
+            return body;
+        }
+
+        public ResponseEntity<byte[]> toResponseEntity() {
+            return ResponseEntity.ok()
+                    .eTag(MatchVersionCache.toETag(version, referenceDataVersion))
+                    .contentType(contentType)
+                    .body(body);
+        }
+    }
+
+    private final Map<View, ConcurrentMap<Long, CachedResponse>> responses = new EnumMap<>(View.class);
+    private final Queue<CachedResponse> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final List<HttpMessageConverter<?>> converters;
+    private final MatchVersionCache versionCache;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public FinishedMatchResponseCache(RequestMappingHandlerAdapter handlerAdapter,
+                                      MatchVersionCache versionCache,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${match.finished.cache.max-bytes:67108864}") long maxBytes) {
+        this(handlerAdapter.getMessageConverters(), versionCache, meterRegistry, maxBytes);
+    }
+
+    public FinishedMatchResponseCache(List<HttpMessageConverter<?>> converters,
+                                      MatchVersionCache versionCache,
+                                      MeterRegistry meterRegistry,
+                                      long maxBytes) {
+        this.converters = converters;
+        this.versionCache = versionCache;
+        this.maxBytes = maxBytes;
+        for (View view : View.values()) {
+            responses.put(view, new ConcurrentHashMap<>());
+        }
+        this.hits = meterRegistry.counter("match.finished.cache.hits");
+        this.misses = meterRegistry.counter("match.finished.cache.misses");
+        this.evictions = meterRegistry.counter("match.finished.cache.evictions");
+        meterRegistry.gauge("match.finished.cache.bytes", cachedBytes);
+    }
+
+    // Responses are serialized as application/json, so they are only served to requests that accept it
+    public static boolean acceptsJson(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return true;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON));
+    }
+
+    public Optional<CachedResponse> get(View view, Long matchId) {
+        CachedResponse response = responses.get(view).get(matchId);
+        if (response != null
+                && response.version.equals(versionCache.getVersion(matchId).orElse(null))
+                && response.referenceDataVersion == versionCache.getReferenceDataVersion()
+                && response.baseUri.equals(LinkTemplate.currentBaseUri())) {
+            hits.increment();
+            return Optional.of(response);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    // Serializes the body of the response. The response is cached only if the match is finished.
+    // referenceDataVersion has to be read before the match was loaded (see MatchVersionCache)
+    public CachedResponse serialize(View view, Match match, long referenceDataVersion, Object body, Type bodyType) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MediaType contentType = write(body, bodyType, output);
+        CachedResponse response = new CachedResponse(view, match.getId(), match.getVersion(), referenceDataVersion,
+                                                     LinkTemplate.currentBaseUri(), contentType, output.toByteArray());
+        if (match.getStatus() == Match.Status.FINISHED && match.getVersion() != null) {
+            put(response);
+        }
+        return response;
+    }
+
+    private void put(CachedResponse response) {
+        CachedResponse previous = responses.get(response.view).put(response.matchId, response);
+        if (previous != null) {
+            // Responses are rarely replaced, so it does not matter that the queue has to be searched
+            insertionOrder.remove(previous);
+            cachedBytes.addAndGet(-previous.body.length);
+        }
+        cachedBytes.addAndGet(response.body.length);
+        insertionOrder.add(response);
+
+        while (cachedBytes.get() > maxBytes) {
+            CachedResponse oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (remove(oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public void remove(Long matchId) {
+        for (View view : View.values()) {
+            CachedResponse response = responses.get(view).get(matchId);
+            if (response != null && remove(response)) {
+                insertionOrder.remove(response);
+            }
+        }
+    }
+
+    private boolean remove(CachedResponse response) {
+        // Removes the response only if it was not replaced by a newer response of the same match in the meantime
+        boolean removed = responses.get(response.view).remove(response.matchId, response);
+        if (removed) {
+            cachedBytes.addAndGet(-response.body.length);
+        }
+        return removed;
+    }
+
+    public long size() {
+        return cachedBytes.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private MediaType write(Object body, Type bodyType, OutputStream output) {
+        HttpHeaders headers = new HttpHeaders();
+        HttpOutputMessage message = new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return output;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+
+        try {
+            for (HttpMessageConverter<?> converter : converters) {
+                if (converter instanceof GenericHttpMessageConverter) {
+                    GenericHttpMessageConverter<Object> genericConverter = (GenericHttpMessageConverter<Object>) converter;
+                    if (genericConverter.canWrite(bodyType, body.getClass(), MediaType.APPLICATION_JSON)) {
+                        genericConverter.write(body, bodyType, MediaType.APPLICATION_JSON, message);
+                        return headers.getContentType();
+                    }
+                } else if (converter.canWrite(body.getClass(), MediaType.APPLICATION_JSON)) {
+                    ((HttpMessageConverter<Object>) converter).write(body, MediaType.APPLICATION_JSON, message);
+                    return headers.getContentType();
+                }
+            }
+        } catch (IOException ex) {
+            throw new HttpMessageNotWritableException("Could not serialize the response: " + ex.getMessage(), ex);
+        }
+        throw new HttpMessageNotWritableException("No converter can serialize " + bodyType + " as application/json");
+    }
+}
@@ -1,5 +1,8 @@
 package ml.echelon133.sportevents.match;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -8,8 +11,20 @@ import javax.persistence.Id;
 @Entity
 public class GoalInfo {
 
+    // Ids of goals are reserved in blocks, so that goals saved together with the match are inserted in a single
+    // JDBC batch instead of one insert per goal. Nothing is read in the order of these ids, so blocks reserved by
+    // different instances of the application may overlap in time. Databases with goals saved before
+    // this generator was used need db/goal-info-sequence-migration.sql, which starts the sequence after them
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "goal_info_id")
+    @GenericGenerator(
+            name = "goal_info_id",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "goal_info_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
     private Long minute;
@@ -0,0 +1,251 @@
+package ml.echelon133.sportevents.match;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/*
+In-memory copy of every live match (status between FIRST_HALF and PENALTIES) together with its most recent events.
+Live matches get most of the read traffic, so reads of them (GET /api/matches/{matchId}, GET /api/matches?status=
+and reads of the newest events) are served from here without the database.
+
+Every entry is an immutable copy of the match that is replaced as a whole, so reads are lock-free and never see
+a half-applied event. Entries are replaced only after the transaction that changed the match commits, so
+a rolled back event is never visible. Writers of one match are already serialized by MatchEventLanes;
+an older version of a match never replaces a newer one, ex. when an edit of an admin commits at the same time.
+
+Matches that become live are added on their first change, and all matches that are live when the application
+starts are loaded before it accepts requests. Until then all reads go to the database.
+The store is only authoritative as long as all events of a match are processed by this instance of the application.
+
+Recent events are treated as all events of a match only if the eventCount column of the match was equal to
+the number of its saved events when the match was added to the store. The column was added after events were
+already saved, so on a database that was not migrated with db/match-event-count-migration.sql, matches that were
+live during the upgrade have no count (read as 0) or a too small one. Reads of their older events go to the database.
+ */
+@Component
+public class LiveMatchStore {
+
+    private static final EnumSet<Match.Status> LIVE_STATUSES = EnumSet.range(Match.Status.FIRST_HALF, Match.Status.PENALTIES);
+
+    private static final class LiveMatch {
+        private final Match match;
+        // sorted by id in ascending order
+        private final List<AbstractMatchEvent> recentEvents;
+        // true if eventCount of the match was equal to the number of its saved events when it was added
+        private final boolean eventCountAccurate;
+
+        LiveMatch(Match match, List<AbstractMatchEvent> recentEvents, boolean eventCountAccurate) {
+            this.match = match;
+            this.recentEvents = Collections.unmodifiableList(recentEvents);
+            this.eventCountAccurate = eventCountAccurate;
+        }
+    }
+
+    private final ConcurrentMap<Long, LiveMatch> liveMatches = new ConcurrentHashMap<>();
+    private final MatchRepository matchRepository;
+    private final int recentEventsLimit;
+    private final Counter hits;
+    private final Counter misses;
+    private volatile boolean loaded;
+
+    @Autowired
+    public LiveMatchStore(MatchRepository matchRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${match.live.recent-events:50}") int recentEventsLimit) {
+        this.matchRepository = matchRepository;
+        this.recentEventsLimit = recentEventsLimit;
+        this.hits = meterRegistry.counter("match.live.hits");
+        this.misses = meterRegistry.counter("match.live.misses");
+        meterRegistry.gauge("match.live.size", liveMatches, Map::size);
+    }
+
+    public static boolean isLive(Match.Status status) {
+        return LIVE_STATUSES.contains(status);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        for (Match match : matchRepository.findAllByStatusIn(LIVE_STATUSES)) {
+            put(match);
+        }
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Matches returned by this store are shared between requests and must not be modified
+    public Optional<Match> findById(Long matchId) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        LiveMatch liveMatch = liveMatches.get(matchId);
+        if (liveMatch == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(liveMatch.match);
+    }
+
+    // Returns nothing if matches with this status are not kept in the store. Otherwise returns at most 'limit'
+    // matches that have an id greater than afterId, ordered by id
+    public Optional<List<Match>> findAllWithStatus(Match.Status status, Long afterId, int limit) {
+        if (!loaded || !isLive(status)) {
+            return Optional.empty();
+        }
+        hits.increment();
+        List<Match> matches = liveMatches.values().stream()
+                .map(liveMatch -> liveMatch.match)
+                .filter(match -> match.getStatus() == status && match.getId() > afterId)
+                .sorted(Comparator.comparing(Match::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+        return Optional.of(matches);
+    }
+
+    // Returns nothing if recent events of the match do not contain all events that have an id greater than afterId
+    public Optional<List<AbstractMatchEvent>> findEventsAfter(Long matchId, Long afterId, int limit) {
+        LiveMatch liveMatch = liveMatches.get(matchId);
+        if (liveMatch == null) {
+            return Optional.empty();
+        }
+
+        List<AbstractMatchEvent> recentEvents = liveMatch.recentEvents;
+        boolean allEventsKept = liveMatch.eventCountAccurate
+                && recentEvents.size() >= liveMatch.match.getEventCount();
+        boolean afterIdKept = !recentEvents.isEmpty() && afterId >= recentEvents.get(0).getId();
+        if (!allEventsKept && !afterIdKept) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        List<AbstractMatchEvent> events = recentEvents.stream()
+                .filter(event -> event.getId() > afterId)
+                .limit(limit)
+                .collect(Collectors.toList());
+        return Optional.of(events);
+    }
+
+    public void put(Match match) {
+        if (!isLive(match.getStatus())) {
+            liveMatches.remove(match.getId());
+            return;
+        }
+
+        Match copy = copyOf(match);
+        // Events are counted only when the match is added, which happens once per match that becomes live
+        boolean eventCountAccurate = liveMatches.containsKey(match.getId())
+                || matchRepository.countEvents(match.getId()) == copy.getEventCount();
+        liveMatches.compute(match.getId(), (id, current) -> {
+            if (current == null) {
+                return new LiveMatch(copy, Collections.emptyList(), eventCountAccurate);
+            }
+            if (versionOf(current.match) > versionOf(copy)) {
+                return current;
+            }
+            return new LiveMatch(copy, current.recentEvents, current.eventCountAccurate);
+        });
+    }
+
+    // The copy is made after the commit, when the match already has the version it was saved with
+    public void putAfterCommit(Match match) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    put(match);
+                }
+            });
+        } else {
+            put(match);
+        }
+    }
+
+    // Events have to be sorted by id in ascending order. Events of matches that are not live are not kept
+    public void addEvents(Long matchId, List<AbstractMatchEvent> events) {
+        liveMatches.computeIfPresent(matchId, (id, current) -> {
+            List<AbstractMatchEvent> recentEvents = new ArrayList<>(current.recentEvents);
+            recentEvents.addAll(events);
+            int overflow = recentEvents.size() - recentEventsLimit;
+            if (overflow > 0) {
+                recentEvents = recentEvents.subList(overflow, recentEvents.size());
+            }
+            return new LiveMatch(current.match, new ArrayList<>(recentEvents), current.eventCountAccurate);
+        });
+    }
+
+    public void addEventsAfterCommit(Long matchId, List<AbstractMatchEvent> events) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    addEvents(matchId, events);
+                }
+            });
+        } else {
+            addEvents(matchId, events);
+        }
+    }
+
+    public void remove(Long matchId) {
+        liveMatches.remove(matchId);
+    }
+
+    // Removed only after the deletion commits. Otherwise a read between the removal and the commit could put
+    // the deleted match back
+    public void removeAfterCommit(Long matchId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    remove(matchId);
+                }
+            });
+        } else {
+            remove(matchId);
+        }
+    }
+
+    private static long versionOf(Match match) {
+        return (match.getVersion() == null) ? 0L : match.getVersion();
+    }
+
+    private static Match copyOf(Match match) {
+        Match copy = new Match(match.getStartDate(), match.getTeamA(), match.getTeamB(),
+                               match.getLeague(), match.getStadium());
+        copy.setId(match.getId());
+        copy.setStatus(match.getStatus());
+        copy.setWebsocketPath(match.getWebsocketPath());
+        copy.setEventCount(match.getEventCount());
+        copy.setVersion(match.getVersion());
+
+        // Lists of goals are modified in place by the event processing, so they are copied too
+        ScoreInfo result = match.getResult();
+        ScoreInfo resultCopy = new ScoreInfo();
+        resultCopy.setTeamAGoals(result.getTeamAGoals());
+        resultCopy.setTeamBGoals(result.getTeamBGoals());
+        resultCopy.setTeamAPenalties(result.getTeamAPenalties());
+        resultCopy.setTeamBPenalties(result.getTeamBPenalties());
+        resultCopy.setTeamAGoalInfo(new ArrayList<>(result.getTeamAGoalInfo()));
+        resultCopy.setTeamBGoalInfo(new ArrayList<>(result.getTeamBGoalInfo()));
+        copy.setResult(resultCopy);
+        return copy;
+    }
+}
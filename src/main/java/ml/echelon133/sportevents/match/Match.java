@@ -5,6 +5,8 @@ import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
 import ml.echelon133.sportevents.league.League;
 import ml.echelon133.sportevents.stadium.Stadium;
 import ml.echelon133.sportevents.team.Team;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,9 +14,30 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "football_match")
+// Pages of matches with a status are read from the (status, id) index (see KeysetPage). Match history of a team
+// is read from the newest match from one of the (team, startDate, id) indexes (see MatchRepository)
+@Table(name = "football_match", indexes = {
+        @Index(name = "football_match_status_id", columnList = "status, id"),
+        @Index(name = "football_match_team_a_date", columnList = "teamA_id, startDate, id"),
+        @Index(name = "football_match_team_b_date", columnList = "teamB_id, startDate, id")
+})
+// Everything that a serialized match contains except for goals (see ScoreInfo). Used by queries that read
+// lists of matches, so that teams, leagues and stadiums are joined instead of being selected one by one
+@NamedEntityGraph(
+        name = Match.WITH_RELATIONS,
+        attributeNodes = {
+                @NamedAttributeNode(value = "teamA", subgraph = "team"),
+                @NamedAttributeNode(value = "teamB", subgraph = "team"),
+                @NamedAttributeNode("league"),
+                @NamedAttributeNode("stadium")
+        },
+        subgraphs = @NamedSubgraph(name = "team", attributeNodes = @NamedAttributeNode("league")))
+// Processing an event changes only a few columns (status, score, eventCount), so only changed columns are updated
+@DynamicUpdate
 public class Match {
 
+    public static final String WITH_RELATIONS = "Match.withRelations";
+
     public enum Status {
         NOT_STARTED, FIRST_HALF, SECOND_HALF,
         BREAK_TIME, OT_FIRST_HALF, OT_SECOND_HALF,
@@ -56,10 +79,22 @@ public class Match {
 
     private String websocketPath;
 
+    // Number of events of this match. Lets the event processing decide when to take a snapshot
+    // of the match state without loading all events
+    @JsonIgnore
+    private Long eventCount;
+
+    // Incremented on every update of the match. Writers that loaded an older version of the match fail instead of
+    // overwriting changes made in the meantime (ex. a score update of another feeder or an edit of an admin)
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     public Match() {
         this.result = new ScoreInfo();
         this.status = Status.NOT_STARTED;
         this.events = new ArrayList<>();
+        this.eventCount = 0L;
     }
 
     public Match(Date startDate, Team teamA, Team teamB) {
@@ -153,7 +188,30 @@ public class Match {
 
     public void addEvent(AbstractMatchEvent event) {
         event.setMatch(this);
-        this.events.add(event);
+        // Adding to a collection that was not loaded yet would make Hibernate load all events of this match.
+        // The event has to be saved on its own, it is not saved by cascade from the match.
+        // If the collection was already loaded, it is kept up to date
+        if (Hibernate.isInitialized(this.events)) {
+            this.events.add(event);
+        }
+        this.eventCount = getEventCount() + 1;
+    }
+
+    public Long getEventCount() {
+        // matches saved before this column was added have no value
+        return (eventCount == null) ? 0L : eventCount;
+    }
+
+    public void setEventCount(Long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
     public String getWebsocketPath() {
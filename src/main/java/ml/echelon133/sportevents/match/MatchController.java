@@ -1,25 +1,33 @@
 package ml.echelon133.sportevents.match;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import ml.echelon133.sportevents.event.EventController;
 import ml.echelon133.sportevents.exception.FailedValidationException;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import ml.echelon133.sportevents.league.LeagueController;
+import ml.echelon133.sportevents.links.KeysetPage;
 import ml.echelon133.sportevents.stadium.StadiumController;
 import ml.echelon133.sportevents.team.TeamController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resources;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
 
 @RestController
@@ -28,29 +36,44 @@ public class MatchController {
 
     private MatchResourceAssembler resourceAssembler;
     private MatchService matchService;
+    private MeterRegistry meterRegistry;
+    private MatchVersionCache versionCache;
+    private FinishedMatchResponseCache responseCache;
 
     @Autowired
     public MatchController(MatchResourceAssembler resourceAssembler,
-                           MatchService matchService) {
+                           MatchService matchService,
+                           MeterRegistry meterRegistry,
+                           MatchVersionCache versionCache,
+                           FinishedMatchResponseCache responseCache) {
         this.resourceAssembler = resourceAssembler;
         this.matchService = matchService;
+        this.meterRegistry = meterRegistry;
+        this.versionCache = versionCache;
+        this.responseCache = responseCache;
     }
 
     @GetMapping
     public ResponseEntity<Resources<MatchResource>> getMatches(
             @RequestParam(value = "status", required = false) String status,
-            @RequestParam(value = "dateWithin", required = false) String dateWithin) {
+            @RequestParam(value = "dateWithin", required = false) String dateWithin,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
 
+        int pageSize = KeysetPage.toPageSize(limit);
+        long after = KeysetPage.toAfterId(afterId);
         List<Match> matches;
         if (status != null) {
-            matches = matchService.findAllWithStatus(status);
+            matches = matchService.findAllWithStatus(status, after, pageSize + 1);
         } else if (dateWithin != null) {
-            matches = matchService.findAllWithDateWithin(dateWithin);
+            matches = matchService.findAllWithDateWithin(dateWithin, after, pageSize + 1);
         } else {
-            matches = matchService.findAll();
+            matches = matchService.findAll(after, pageSize + 1);
         }
 
-        Resources<MatchResource> resources = new Resources<>(resourceAssembler.toResources(matches));
+        Resources<MatchResource> resources = KeysetPage.toResources(matches, pageSize, resourceAssembler, Match::getId,
+                lastId -> linkTo(methodOn(MatchController.class).getMatches(status, dateWithin, lastId, pageSize))
+                        .withRel(Link.REL_NEXT));
         resources.add(linkTo(MatchController.class).withRel("matches"));
         resources.add(linkTo(LeagueController.class).withRel("leagues"));
         resources.add(linkTo(TeamController.class).withRel("teams"));
@@ -58,10 +81,64 @@ public class MatchController {
         return new ResponseEntity<>(resources, HttpStatus.OK);
     }
 
+    // Same pages of matches as above, with only a few fields of every match (see MatchSummary)
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<Resources<MatchSummary>> getMatchSummaries(
+            @RequestParam(value = "view") String view,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "dateWithin", required = false) String dateWithin,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        int pageSize = KeysetPage.toPageSize(limit);
+        long after = KeysetPage.toAfterId(afterId);
+        List<MatchSummary> summaries;
+        if (status != null) {
+            summaries = matchService.findSummariesWithStatus(status, after, pageSize + 1);
+        } else if (dateWithin != null) {
+            summaries = matchService.findSummariesWithDateWithin(dateWithin, after, pageSize + 1);
+        } else {
+            summaries = matchService.findSummaries(after, pageSize + 1);
+        }
+
+        Resources<MatchSummary> resources = KeysetPage.toResources(summaries, pageSize, MatchSummary::getId,
+                lastId -> linkTo(methodOn(MatchController.class)
+                        .getMatchSummaries(view, status, dateWithin, lastId, pageSize)).withRel(Link.REL_NEXT));
+        resources.add(linkTo(MatchController.class).withRel("matches"));
+        return new ResponseEntity<>(resources, HttpStatus.OK);
+    }
+
     @GetMapping("/{matchId}")
-    public ResponseEntity<MatchResource> getMatch(@PathVariable Long matchId) throws ResourceDoesNotExistException {
-        MatchResource matchResource = resourceAssembler.toResource(matchService.findById(matchId));
-        return new ResponseEntity<>(matchResource, HttpStatus.OK);
+    public ResponseEntity<?> getMatch(@PathVariable Long matchId, WebRequest request)
+            throws ResourceDoesNotExistException {
+
+        // Clients that already have the current version of the match get 304 without the match being loaded
+        Optional<String> currentETag = versionCache.getETag(matchId);
+        if (currentETag.isPresent() && request.checkNotModified(currentETag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag.get()).build();
+        }
+
+        // Finished matches are written from their serialized responses (see FinishedMatchResponseCache)
+        boolean acceptsJson = FinishedMatchResponseCache.acceptsJson(request);
+        if (acceptsJson) {
+            Optional<FinishedMatchResponseCache.CachedResponse> cached =
+                    responseCache.get(FinishedMatchResponseCache.View.MATCH, matchId);
+            if (cached.isPresent()) {
+                return cached.get().toResponseEntity();
+            }
+        }
+
+        long referenceDataVersion = versionCache.getReferenceDataVersion();
+        Match match = matchService.findByIdForReading(matchId);
+        versionCache.putVersion(matchId, match.getVersion());
+        MatchResource matchResource = resourceAssembler.toResource(match);
+        if (acceptsJson && match.getStatus() == Match.Status.FINISHED) {
+            return responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, referenceDataVersion,
+                                           matchResource, MatchResource.class).toResponseEntity();
+        }
+        return ResponseEntity.ok()
+                .eTag(MatchVersionCache.toETag(match.getVersion(), referenceDataVersion))
+                .body(matchResource);
     }
 
     @PostMapping
@@ -89,12 +166,28 @@ public class MatchController {
         }
 
         Match match = matchService.findById(matchId);
+
+        // Edits of an admin are not retried, because they were based on a state of the match that is no longer current.
+        // The admin has to load the match again and decide whether the edit still makes sense
+        if (matchDto.getVersion() != null && !matchDto.getVersion().equals(match.getVersion())) {
+            meterRegistry.counter("match.conflicts", "source", "admin").increment();
+            throw new ObjectOptimisticLockingFailureException(Match.class, matchId);
+        }
+
         Match replacementEntity = matchService.convertDtoToEntity(matchDto);
 
         // Merge all changes into match
         match = matchService.mergeChanges(match, replacementEntity);
 
-        Match savedMatch = matchService.save(match);
+        Match savedMatch;
+        try {
+            savedMatch = matchService.save(match);
+        } catch (OptimisticLockingFailureException ex) {
+            // The match was modified between loading and saving it (ex. by an event)
+            meterRegistry.counter("match.conflicts", "source", "admin").increment();
+            throw ex;
+        }
+        responseCache.remove(matchId);
         MatchResource matchResource = resourceAssembler.toResource(savedMatch);
         return new ResponseEntity<>(matchResource, HttpStatus.OK);
     }
@@ -102,6 +195,7 @@ public class MatchController {
     @DeleteMapping("/{matchId}")
     public ResponseEntity<Map> deleteMatch(@PathVariable Long matchId) {
         boolean deleted = matchService.deleteById(matchId);
+        responseCache.remove(matchId);
         Map<String, Boolean> response = Collections.singletonMap("deleted", deleted);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
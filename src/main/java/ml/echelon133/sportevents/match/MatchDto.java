@@ -20,6 +20,10 @@ public class MatchDto {
     @NotNull
     private String startDate;
 
+    // Version of the match that was read by the client. If given, the match is replaced only if it was not
+    // modified since then
+    private Long version;
+
     public MatchDto() {}
     public MatchDto(String startDate, Long teamA, Long teamB) {
         this.startDate = startDate;
@@ -76,4 +80,12 @@ public class MatchDto {
     public void setStartDate(String startDate) {
         this.startDate = startDate;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,11 +1,96 @@
 package ml.echelon133.sportevents.match;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 public interface MatchRepository extends JpaRepository<Match, Long> {
-    List<Match> findAllByStatusEquals(Match.Status status);
-    List<Match> findAllByStartDateBetween(Date date1, Date date2);
+    // Lists of matches are read together with their teams, leagues and stadiums. Pages of matches
+    // are read with a limit and without counting all matches (see KeysetPage)
+    @EntityGraph(Match.WITH_RELATIONS)
+    List<Match> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @EntityGraph(Match.WITH_RELATIONS)
+    List<Match> findAllByStatusEqualsAndIdGreaterThanOrderByIdAsc(Match.Status status, Long id, Pageable pageable);
+
+    @EntityGraph(Match.WITH_RELATIONS)
+    List<Match> findAllByStatusIn(Collection<Match.Status> statuses);
+
+    @EntityGraph(Match.WITH_RELATIONS)
+    List<Match> findAllByStartDateBetweenAndIdGreaterThanOrderByIdAsc(Date date1, Date date2, Long id,
+                                                                      Pageable pageable);
+
+    // Summaries select only the columns of MatchSummary, in pages same as lists of matches
+    String SELECT_SUMMARY = "SELECT new ml.echelon133.sportevents.match.MatchSummary(" +
+            "m.id, m.startDate, m.status, a.id, a.name, b.id, b.name, " +
+            "m.result.teamAGoals, m.result.teamBGoals, m.result.teamAPenalties, m.result.teamBPenalties) " +
+            "FROM Match m JOIN m.teamA a JOIN m.teamB b ";
+
+    @Query(SELECT_SUMMARY + "WHERE m.id > :afterId ORDER BY m.id")
+    List<MatchSummary> findSummaries(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "WHERE m.status = :status AND m.id > :afterId ORDER BY m.id")
+    List<MatchSummary> findSummariesWithStatus(@Param("status") Match.Status status,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "WHERE m.startDate BETWEEN :date1 AND :date2 AND m.id > :afterId ORDER BY m.id")
+    List<MatchSummary> findSummariesWithStartDateBetween(@Param("date1") Date date1,
+                                                         @Param("date2") Date date2,
+                                                         @Param("afterId") Long afterId,
+                                                         Pageable pageable);
+
+    // Match history of a team, from the newest match. Matches in which the team is teamA and matches in which it is
+    // teamB are read by separate queries, so that each of them reads at most one page of rows from its own index
+    // (see Match). Only matches older than the cursor (the start date and id of the last match of the previous page)
+    // are read
+    String TEAM_HISTORY_FILTERS = "m.startDate >= :from AND m.startDate < :to " +
+            "AND (:status IS NULL OR m.status = :status) " +
+            "AND (m.startDate < :cursorDate OR (m.startDate = :cursorDate AND m.id < :cursorId)) " +
+            "ORDER BY m.startDate DESC, m.id DESC";
+
+    @EntityGraph(Match.WITH_RELATIONS)
+    @Query("SELECT m FROM Match m WHERE m.teamA.id = :teamId AND " + TEAM_HISTORY_FILTERS)
+    List<Match> findHistoryAsTeamA(@Param("teamId") Long teamId,
+                                   @Param("status") Match.Status status,
+                                   @Param("from") Date from,
+                                   @Param("to") Date to,
+                                   @Param("cursorDate") Date cursorDate,
+                                   @Param("cursorId") Long cursorId,
+                                   Pageable pageable);
+
+    @EntityGraph(Match.WITH_RELATIONS)
+    @Query("SELECT m FROM Match m WHERE m.teamB.id = :teamId AND " + TEAM_HISTORY_FILTERS)
+    List<Match> findHistoryAsTeamB(@Param("teamId") Long teamId,
+                                   @Param("status") Match.Status status,
+                                   @Param("from") Date from,
+                                   @Param("to") Date to,
+                                   @Param("cursorDate") Date cursorDate,
+                                   @Param("cursorId") Long cursorId,
+                                   Pageable pageable);
+
+    // Goals of matches are loaded with a subselect that repeats the query which read the matches (see ScoreInfo),
+    // but without its limit, which would load goals of every match after the cursor of a page.
+    // These queries initialize goals of the matches of a page instead, so pages of matches have to be passed here
+    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.result.teamAGoalInfo WHERE m IN :matches")
+    List<Match> fetchTeamAGoals(@Param("matches") List<Match> matches);
+
+    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.result.teamBGoalInfo WHERE m IN :matches")
+    List<Match> fetchTeamBGoals(@Param("matches") List<Match> matches);
+
+    @Query("SELECT COUNT(e) FROM AbstractMatchEvent e WHERE e.match.id = :matchId")
+    long countEvents(@Param("matchId") Long matchId);
+
+    @Query("SELECT m.startDate FROM Match m WHERE m.id = :id")
+    Optional<Date> findStartDateById(@Param("id") Long id);
+
+    @Query("SELECT m.id FROM Match m ORDER BY m.id")
+    List<Long> findAllIds();
 }
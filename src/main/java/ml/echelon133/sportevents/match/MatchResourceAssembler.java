@@ -1,8 +1,8 @@
 package ml.echelon133.sportevents.match;
 
-import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import ml.echelon133.sportevents.league.LeagueResource;
 import ml.echelon133.sportevents.league.LeagueResourceAssembler;
+import ml.echelon133.sportevents.links.LinkTemplate;
 import ml.echelon133.sportevents.stadium.StadiumResource;
 import ml.echelon133.sportevents.stadium.StadiumResourceAssembler;
 import ml.echelon133.sportevents.team.TeamResource;
@@ -11,12 +11,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 import org.springframework.stereotype.Component;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 @Component
 public class MatchResourceAssembler extends ResourceAssemblerSupport<Match, MatchResource> {
 
+    private static final LinkTemplate MATCHES = LinkTemplate.of(MatchController.class);
+    private static final LinkTemplate MATCH = LinkTemplate.of(MatchController.class, "getMatch");
+
     private TeamResourceAssembler teamResourceAssembler;
     private LeagueResourceAssembler leagueResourceAssembler;
     private StadiumResourceAssembler stadiumResourceAssembler;
@@ -36,40 +36,17 @@ public class MatchResourceAssembler extends ResourceAssemblerSupport<Match, Matc
     public MatchResource toResource(Match entity) {
         TeamResource teamA = teamResourceAssembler.toResource(entity.getTeamA());
         TeamResource teamB = teamResourceAssembler.toResource(entity.getTeamB());
-        LeagueResource league;
-        StadiumResource stadium;
-        MatchResource matchResource;
 
         // entity.getLeague() can be null (league field is not required)
-        try {
-            league = leagueResourceAssembler.toResource(entity.getLeague());
-        } catch (Exception ex) {
-            league = null;
-        }
+        LeagueResource league =
+                (entity.getLeague() == null) ? null : leagueResourceAssembler.toResource(entity.getLeague());
 
         // entity.getStadium() can be null (stadium field is not required)
-        try {
-            stadium = stadiumResourceAssembler.toResource(entity.getStadium());
-        } catch (Exception ex) {
-            stadium = null;
-        }
-
-        try {
-            matchResource = new MatchResource(entity, teamA, teamB, league, stadium,
-                    linkTo(MatchController.class).withRel("matches"),
-                    linkTo(methodOn(MatchController.class).getMatch(entity.getId())).withSelfRel());
-        } catch (ResourceDoesNotExistException ex) {
-            // getMatch throws Exception only if resource (Match) does not exist
-            // getMatch(Long id) is used here only to generate a link to a resource (methodOn creates a proxy)
-            // see here: https://docs.spring.io/spring-hateoas/docs/current/api/org/springframework/hateoas/mvc/ControllerLinkBuilder.html#methodOn-java.lang.Class-java.lang.Object...-
-
-            // this exception handling is needed only for syntactic purposes
-            // see here: https://github.com/spring-projects/spring-hateoas/issues/82
-
-            // also see: https://github.com/search?q=This+should+never+happen&type=Code&utf8=%E2%9C%93
-            throw new RuntimeException("getMatch threw an exception - this should never happen");
-        }
+        StadiumResource stadium =
+                (entity.getStadium() == null) ? null : stadiumResourceAssembler.toResource(entity.getStadium());
 
-        return matchResource;
+        return new MatchResource(entity, teamA, teamB, league, stadium,
+                MATCHES.withRel("matches"),
+                MATCH.withSelfRel(entity.getId()));
     }
 }
@@ -9,9 +9,23 @@ public interface MatchService {
     Match convertDtoToEntity(MatchDto matchDto) throws ResourceDoesNotExistException, DateTimeParseException;
     Match mergeChanges(Match originalMatch, Match replacementMatch);
     Match save(Match match);
-    List<Match> findAll();
-    List<Match> findAllWithDateWithin(String dateWithin);
-    List<Match> findAllWithStatus(String status);
+    // Methods that read lists of matches return at most 'limit' matches that have an id greater than afterId,
+    // ordered by id (see KeysetPage)
+    List<Match> findAll(Long afterId, int limit);
+    List<Long> findAllIds();
+    List<Match> findAllWithDateWithin(String dateWithin, Long afterId, int limit);
+    List<Match> findAllWithStatus(String status, Long afterId, int limit);
+    // Same as the methods above, but without loading the matches (see MatchSummary)
+    List<MatchSummary> findSummaries(Long afterId, int limit);
+    List<MatchSummary> findSummariesWithDateWithin(String dateWithin, Long afterId, int limit);
+    List<MatchSummary> findSummariesWithStatus(String status, Long afterId, int limit);
+    // Matches of the team from the newest one, optionally with a status and with a start date between the dates
+    // 'from' and 'to' (yyyy-MM-dd, both inclusive). afterId is the id of the last match of the previous page,
+    // or null for the first page
+    List<Match> findAllOfTeam(Long teamId, String status, String from, String to, Long afterId, int limit)
+            throws ResourceDoesNotExistException, DateTimeParseException;
     Match findById(Long id) throws ResourceDoesNotExistException;
+    // Returned match is only meant to be read and must not be modified nor saved
+    Match findByIdForReading(Long id) throws ResourceDoesNotExistException;
     boolean deleteById(Long id);
 }
@@ -8,35 +8,51 @@ import ml.echelon133.sportevents.stadium.StadiumService;
 import ml.echelon133.sportevents.team.Team;
 import ml.echelon133.sportevents.team.TeamService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class MatchServiceImpl implements MatchService {
 
+    // Newest matches first, matches that start at the same time are ordered by id
+    private static final Comparator<Match> HISTORY_ORDER =
+            Comparator.comparing(Match::getStartDate).thenComparing(Match::getId).reversed();
+    // Upper bound of start dates of matches when no date range is given
+    private static final Date END_OF_TIME =
+            Date.from(LocalDate.of(9999, 12, 31).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
     private Clock clock;
     private MatchRepository matchRepository;
     private TeamService teamService;
     private LeagueService leagueService;
     private StadiumService stadiumService;
+    private MatchVersionCache versionCache;
+    private LiveMatchStore liveMatchStore;
 
     @Autowired
     public MatchServiceImpl(MatchRepository matchRepository,
                             TeamService teamService,
                             LeagueService leagueService,
-                            StadiumService stadiumService) {
+                            StadiumService stadiumService,
+                            MatchVersionCache versionCache,
+                            LiveMatchStore liveMatchStore) {
         // Clock instance needed to simplify testing. Tests can inject Clock.fixed(...) instances to this service
         this.clock = Clock.systemDefaultZone();
         this.matchRepository = matchRepository;
         this.teamService = teamService;
         this.leagueService = leagueService;
         this.stadiumService = stadiumService;
+        this.versionCache = versionCache;
+        this.liveMatchStore = liveMatchStore;
     }
 
     private Date convertStringToDate(String dateAsString) throws DateTimeParseException {
@@ -89,7 +105,9 @@ public class MatchServiceImpl implements MatchService {
         League league;
         Stadium stadium;
 
-        // startDate, teamA, teamB must not be null
+        // startDate, teamA, teamB must not be null.
+        // Cached (detached) teams, leagues and stadiums are not used here: Match cascades MERGE to them,
+        // so saving the match would write the state of a cached copy back to the database
         startDate = convertStringToDate(matchDto.getStartDate());
         teamA = teamService.findById(matchDto.getTeamA());
         teamB = teamService.findById(matchDto.getTeamB());
@@ -126,16 +144,33 @@ public class MatchServiceImpl implements MatchService {
             // Save Match entity after we set the websocketPath
             savedMatch = matchRepository.save(savedMatch);
         }
+        versionCache.putVersionAfterCommit(savedMatch);
+        liveMatchStore.putAfterCommit(savedMatch);
         return savedMatch;
     }
 
     @Override
-    public List<Match> findAll() {
-        return matchRepository.findAll();
+    public List<Match> findAll(Long afterId, int limit) {
+        return fetchGoals(matchRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit)));
+    }
+
+    // Goals would otherwise be loaded with a subselect that repeats the query of the page without its limit
+    // (see MatchRepository), so goals of every match after the cursor would be read
+    private List<Match> fetchGoals(List<Match> page) {
+        if (!page.isEmpty()) {
+            matchRepository.fetchTeamAGoals(page);
+            matchRepository.fetchTeamBGoals(page);
+        }
+        return page;
     }
 
     @Override
-    public List<Match> findAllWithDateWithin(String within) {
+    public List<Long> findAllIds() {
+        return matchRepository.findAllIds();
+    }
+
+    // Returns the start and the end of the period that begins now, or an empty Optional if the period is unknown
+    private Optional<Date[]> convertDateWithinToPeriod(String within) {
         LocalDateTime now = LocalDateTime.now(clock);
         LocalDateTime future = LocalDateTime.now(clock);
 
@@ -150,27 +185,115 @@ public class MatchServiceImpl implements MatchService {
                 future = future.plusDays(7);
                 break;
             default:
-                return Collections.emptyList();
+                return Optional.empty();
         }
 
         Date currentDate = Date.from(now.atZone(ZoneId.systemDefault()).toInstant());
         Date futureDate = Date.from(future.atZone(ZoneId.systemDefault()).toInstant());
-        return matchRepository.findAllByStartDateBetween(currentDate, futureDate);
+        return Optional.of(new Date[] { currentDate, futureDate });
+    }
+
+    @Override
+    public List<Match> findAllWithDateWithin(String within, Long afterId, int limit) {
+        Optional<Date[]> period = convertDateWithinToPeriod(within);
+        if (!period.isPresent()) {
+            return Collections.emptyList();
+        }
+        return fetchGoals(matchRepository.findAllByStartDateBetweenAndIdGreaterThanOrderByIdAsc(
+                period.get()[0], period.get()[1], afterId, PageRequest.of(0, limit)));
     }
 
     @Override
-    public List<Match> findAllWithStatus(String statusAsText) {
+    public List<Match> findAllWithStatus(String statusAsText, Long afterId, int limit) {
         Match.Status status;
         List<Match> matches;
         try {
             status = Match.Status.valueOf(statusAsText);
-            matches = matchRepository.findAllByStatusEquals(status);
+            // Live matches are read from memory
+            Optional<List<Match>> liveMatches = liveMatchStore.findAllWithStatus(status, afterId, limit);
+            if (liveMatches.isPresent()) {
+                matches = liveMatches.get();
+            } else {
+                matches = fetchGoals(matchRepository.findAllByStatusEqualsAndIdGreaterThanOrderByIdAsc(
+                        status, afterId, PageRequest.of(0, limit)));
+            }
         } catch (IllegalArgumentException ex) {
             matches = Collections.emptyList();
         }
         return matches;
     }
 
+    @Override
+    public List<MatchSummary> findSummaries(Long afterId, int limit) {
+        return matchRepository.findSummaries(afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<MatchSummary> findSummariesWithDateWithin(String within, Long afterId, int limit) {
+        Optional<Date[]> period = convertDateWithinToPeriod(within);
+        if (!period.isPresent()) {
+            return Collections.emptyList();
+        }
+        return matchRepository.findSummariesWithStartDateBetween(period.get()[0], period.get()[1], afterId,
+                                                                 PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<MatchSummary> findSummariesWithStatus(String statusAsText, Long afterId, int limit) {
+        Match.Status status;
+        try {
+            status = Match.Status.valueOf(statusAsText);
+        } catch (IllegalArgumentException ex) {
+            return Collections.emptyList();
+        }
+
+        // Live matches are already in memory, so their summaries are made from them
+        Optional<List<Match>> liveMatches = liveMatchStore.findAllWithStatus(status, afterId, limit);
+        if (liveMatches.isPresent()) {
+            return liveMatches.get().stream().map(MatchSummary::new).collect(Collectors.toList());
+        }
+        return matchRepository.findSummariesWithStatus(status, afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<Match> findAllOfTeam(Long teamId, String statusAsText, String from, String to, Long afterId, int limit)
+            throws ResourceDoesNotExistException, DateTimeParseException {
+
+        Match.Status status = null;
+        if (statusAsText != null) {
+            try {
+                status = Match.Status.valueOf(statusAsText);
+            } catch (IllegalArgumentException ex) {
+                return Collections.emptyList();
+            }
+        }
+        Date fromDate = (from == null) ? new Date(0) : convertStringToStartOfDay(LocalDate.parse(from));
+        Date toDate = (to == null) ? END_OF_TIME : convertStringToStartOfDay(LocalDate.parse(to).plusDays(1));
+
+        // The first page starts right before the end of the date range
+        Date cursorDate = toDate;
+        Long cursorId = Long.MAX_VALUE;
+        if (afterId != null) {
+            cursorDate = matchRepository.findStartDateById(afterId)
+                    .orElseThrow(() -> new ResourceDoesNotExistException("Match with this id does not exist"));
+            cursorId = afterId;
+        }
+
+        // Both queries return at most one page, so at most two pages of matches are read regardless of how many
+        // matches the team has played
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        List<Match> matches = new ArrayList<>(2 * limit);
+        matches.addAll(matchRepository.findHistoryAsTeamA(teamId, status, fromDate, toDate, cursorDate, cursorId, pageRequest));
+        matches.addAll(matchRepository.findHistoryAsTeamB(teamId, status, fromDate, toDate, cursorDate, cursorId, pageRequest));
+        matches.sort(HISTORY_ORDER);
+        List<Match> page = (matches.size() > limit) ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        return fetchGoals(page);
+    }
+
+    private static Date convertStringToStartOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
     @Override
     public Match findById(Long id) throws ResourceDoesNotExistException {
         Optional<Match> match = matchRepository.findById(id);
@@ -180,11 +303,23 @@ public class MatchServiceImpl implements MatchService {
         throw new ResourceDoesNotExistException("Match with this id does not exist");
     }
 
+    @Override
+    public Match findByIdForReading(Long id) throws ResourceDoesNotExistException {
+        Optional<Match> liveMatch = liveMatchStore.findById(id);
+        if (liveMatch.isPresent()) {
+            return liveMatch.get();
+        }
+        return findById(id);
+    }
+
     @Override
     public boolean deleteById(Long id) {
         boolean exists = matchRepository.existsById(id);
         if (exists) {
             matchRepository.deleteById(id);
+            // Same as after saves, cached copies of the match are changed only after the transaction commits
+            versionCache.removeAfterCommit(id);
+            liveMatchStore.removeAfterCommit(id);
             exists = matchRepository.existsById(id);
         }
         return !exists;
@@ -0,0 +1,93 @@
+package ml.echelon133.sportevents.match;
+
+import java.util.Date;
+
+/*
+A match as returned by GET /api/matches?view=summary, ex. for scoreboards and tickers.
+
+Summaries are read by a query that selects only these columns (see MatchRepository), so neither matches nor
+their teams, leagues, stadiums and goals are loaded as entities, and no resources with links are assembled.
+ */
+public class MatchSummary {
+
+    private Long id;
+    private Date startDate;
+    private Match.Status status;
+    private Long teamAId;
+    private String teamAName;
+    private Long teamBId;
+    private String teamBName;
+    private Long teamAGoals;
+    private Long teamBGoals;
+    private Long teamAPenalties;
+    private Long teamBPenalties;
+
+    public MatchSummary(Long id, Date startDate, Match.Status status,
+                        Long teamAId, String teamAName, Long teamBId, String teamBName,
+                        Long teamAGoals, Long teamBGoals, Long teamAPenalties, Long teamBPenalties) {
+        this.id = id;
+        this.startDate = startDate;
+        this.status = status;
+        this.teamAId = teamAId;
+        this.teamAName = teamAName;
+        this.teamBId = teamBId;
+        this.teamBName = teamBName;
+        this.teamAGoals = teamAGoals;
+        this.teamBGoals = teamBGoals;
+        this.teamAPenalties = teamAPenalties;
+        this.teamBPenalties = teamBPenalties;
+    }
+
+    // Used for live matches, which are already kept in memory (see LiveMatchStore)
+    public MatchSummary(Match match) {
+        this(match.getId(), match.getStartDate(), match.getStatus(),
+             match.getTeamA().getId(), match.getTeamA().getName(),
+             match.getTeamB().getId(), match.getTeamB().getName(),
+             match.getResult().getTeamAGoals(), match.getResult().getTeamBGoals(),
+             match.getResult().getTeamAPenalties(), match.getResult().getTeamBPenalties());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Match.Status getStatus() {
+        return status;
+    }
+
+    public Long getTeamAId() {
+        return teamAId;
+    }
+
+    public String getTeamAName() {
+        return teamAName;
+    }
+
+    public Long getTeamBId() {
+        return teamBId;
+    }
+
+    public String getTeamBName() {
+        return teamBName;
+    }
+
+    public Long getTeamAGoals() {
+        return teamAGoals;
+    }
+
+    public Long getTeamBGoals() {
+        return teamBGoals;
+    }
+
+    public Long getTeamAPenalties() {
+        return teamAPenalties;
+    }
+
+    public Long getTeamBPenalties() {
+        return teamBPenalties;
+    }
+}
@@ -0,0 +1,108 @@
+package ml.echelon133.sportevents.match;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+Keeps the current version of every match that was read or modified by this instance of the application.
+
+The version of a match changes whenever the match is modified (ex. by an event or by an admin), and the events of
+a match cannot change without the match being modified, so the version identifies both the state of the match and
+its timeline. Together with the version of reference data (see ReferenceDataVersion), which changes when a team,
+league or stadium embedded in the match is modified, it is used as the ETag of these resources. A request with an If-None-Match header that contains
+the current version is answered with 304 Not Modified without reading anything from the database.
+
+A version is stored only after the transaction which changed it commits, and a version is never replaced by
+an older one, so a slow read that loaded the match before a modification cannot bring back its previous version.
+
+Versions of matches modified by other instances of the application are not tracked.
+ */
+@Component
+public class MatchVersionCache {
+
+    private final ConcurrentMap<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final ReferenceDataVersion referenceDataVersion;
+
+    @Autowired
+    public MatchVersionCache(MeterRegistry meterRegistry, ReferenceDataVersion referenceDataVersion) {
+        this.referenceDataVersion = referenceDataVersion;
+        this.hits = meterRegistry.counter("match.versions.hits");
+        this.misses = meterRegistry.counter("match.versions.misses");
+        meterRegistry.gaugeMapSize("match.versions.size", Collections.emptyList(), versions);
+    }
+
+    public static String toETag(Long version, long referenceDataVersion) {
+        return "\"" + version + "-" + referenceDataVersion + "\"";
+    }
+
+    // Has to be read before the match is loaded, see ReferenceDataVersion
+    public long getReferenceDataVersion() {
+        return referenceDataVersion.get();
+    }
+
+    public Optional<String> getETag(Long matchId) {
+        Long version = versions.get(matchId);
+        if (version == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(toETag(version, referenceDataVersion.get()));
+    }
+
+    // Same as getETag, but not counted in the metrics of this cache
+    public Optional<Long> getVersion(Long matchId) {
+        return Optional.ofNullable(versions.get(matchId));
+    }
+
+    public void putVersion(Long matchId, Long version) {
+        if (matchId != null && version != null) {
+            versions.merge(matchId, version, Math::max);
+        }
+    }
+
+    // Version of the match is incremented when the transaction is flushed, so it is read after the commit
+    public void putVersionAfterCommit(Match match) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    putVersion(match.getId(), match.getVersion());
+                }
+            });
+        } else {
+            putVersion(match.getId(), match.getVersion());
+        }
+    }
+
+    public void remove(Long matchId) {
+        versions.remove(matchId);
+    }
+
+    // Removed only after the deletion commits. Otherwise a read between the removal and the commit could put
+    // the deleted match back
+    public void removeAfterCommit(Long matchId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    remove(matchId);
+                }
+            });
+        } else {
+            remove(matchId);
+        }
+    }
+}
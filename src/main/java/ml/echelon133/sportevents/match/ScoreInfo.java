@@ -1,5 +1,8 @@
 package ml.echelon133.sportevents.match;
 
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import javax.persistence.CascadeType;
 import javax.persistence.Embeddable;
 import javax.persistence.JoinColumn;
@@ -14,12 +17,16 @@ public class ScoreInfo {
     private Long teamAPenalties;
     private Long teamBPenalties;
 
+    // Goals are part of every serialized match. When a list of matches is read, the goals of all of them
+    // are loaded with one query per list instead of two queries per match
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "teamAGoalInfo_id")
+    @Fetch(FetchMode.SUBSELECT)
     private List<GoalInfo> teamAGoalInfo;
 
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "teamBGoalInfo_id")
+    @Fetch(FetchMode.SUBSELECT)
     private List<GoalInfo> teamBGoalInfo;
 
     public ScoreInfo() {
@@ -41,6 +48,17 @@ public class ScoreInfo {
         teamBGoals += 1;
     }
 
+    public void clear() {
+        // Lists are cleared instead of being replaced, because orphanRemoval requires
+        // the same collection instances to be kept
+        teamAGoals = 0L;
+        teamBGoals = 0L;
+        teamAPenalties = 0L;
+        teamBPenalties = 0L;
+        teamAGoalInfo.clear();
+        teamBGoalInfo.clear();
+    }
+
     public void addPenaltyTeamA() {
         teamAPenalties += 1;
     }
@@ -0,0 +1,45 @@
+package ml.echelon133.sportevents.rebuild;
+
+import ml.echelon133.sportevents.event.EventLaneFullException;
+import ml.echelon133.sportevents.event.MatchEventLanes;
+import ml.echelon133.sportevents.event.ProcessedEventRejectedException;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/matches")
+public class MatchRebuildController {
+
+    private MatchRebuildService rebuildService;
+    private MatchEventLanes eventLanes;
+
+    @Autowired
+    public MatchRebuildController(MatchRebuildService rebuildService, MatchEventLanes eventLanes) {
+        this.rebuildService = rebuildService;
+        this.eventLanes = eventLanes;
+    }
+
+    @PostMapping("/{matchId}/rebuild")
+    public ResponseEntity<RebuildResult> rebuildMatch(
+            @PathVariable Long matchId,
+            @RequestParam(value = "useSnapshot", defaultValue = "true") boolean useSnapshot)
+            throws ResourceDoesNotExistException, ProcessedEventRejectedException, EventLaneFullException {
+
+        // Rebuild runs in the lane of the match, so that it does not overlap with processing of new events
+        RebuildResult result = eventLanes.execute(matchId, () -> rebuildService.rebuild(matchId, useSnapshot));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<RebuildSummary> rebuildAllMatches(
+            @RequestParam(value = "useSnapshots", defaultValue = "false") boolean useSnapshots) {
+
+        // Snapshots are ignored by default, because a bulk rebuild is usually done after a fix of the rules,
+        // which makes all previously taken snapshots incorrect
+        RebuildSummary summary = rebuildService.rebuildAll(useSnapshots);
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,10 @@
+package ml.echelon133.sportevents.rebuild;
+
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.Match;
+
+public interface MatchRebuildService {
+    void takeSnapshotIfDue(Match match, Long previousEventCount);
+    RebuildResult rebuild(Long matchId, boolean useSnapshot) throws ResourceDoesNotExistException;
+    RebuildSummary rebuildAll(boolean useSnapshots);
+}
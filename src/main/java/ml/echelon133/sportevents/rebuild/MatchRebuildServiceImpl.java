@@ -0,0 +1,179 @@
+package ml.echelon133.sportevents.rebuild;
+
+import ml.echelon133.sportevents.event.EventLaneFullException;
+import ml.echelon133.sportevents.event.MatchEventLanes;
+import ml.echelon133.sportevents.event.MatchEventRepository;
+import ml.echelon133.sportevents.event.MatchStateMachine;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.GoalInfo;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.match.MatchService;
+import ml.echelon133.sportevents.match.ScoreInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Events of a match are the source of truth. Status and ScoreInfo of a match can always be derived again by applying
+all events of that match, in the order of their ids, to a match that has not started yet.
+
+To avoid replaying the whole history, a snapshot of the match state is taken every 'events.snapshots.interval' events.
+A rebuild restores the state from the snapshot and replays only the events that came after it.
+
+Every rebuild runs in the lane of its match (see MatchEventLanes), so it never overlaps with processing of a new event
+of that match. Bulk rebuild submits matches to their lanes, which are drained in parallel by all lane threads.
+ */
+@Service
+public class MatchRebuildServiceImpl implements MatchRebuildService {
+
+    private MatchService matchService;
+    private MatchEventRepository eventRepository;
+    private MatchSnapshotRepository snapshotRepository;
+    private MatchEventLanes eventLanes;
+    private long snapshotInterval;
+    private int parallelism;
+
+    @Autowired
+    public MatchRebuildServiceImpl(MatchService matchService,
+                                   MatchEventRepository eventRepository,
+                                   MatchSnapshotRepository snapshotRepository,
+                                   MatchEventLanes eventLanes,
+                                   @Value("${events.snapshots.interval:50}") long snapshotInterval,
+                                   @Value("${events.rebuild.parallelism:0}") int parallelism) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be a positive number");
+        }
+        this.matchService = matchService;
+        this.eventRepository = eventRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.eventLanes = eventLanes;
+        this.snapshotInterval = snapshotInterval;
+        // When parallelism is not configured, rebuild as many matches at once as there are cores
+        this.parallelism = (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void takeSnapshotIfDue(Match match, Long previousEventCount) {
+        // A batch of events can cross the interval boundary without landing exactly on it
+        if (match.getEventCount() / snapshotInterval > previousEventCount / snapshotInterval) {
+            Long lastEventId = eventRepository.findLastEventId(match.getId());
+            MatchSnapshot snapshot = snapshotRepository
+                    .findByMatchId(match.getId())
+                    .orElseGet(() -> new MatchSnapshot(match.getId()));
+            captureState(match, snapshot, lastEventId);
+            snapshotRepository.save(snapshot);
+        }
+    }
+
+    @Override
+    public RebuildResult rebuild(Long matchId, boolean useSnapshot) throws ResourceDoesNotExistException {
+        Match match = matchService.findById(matchId);
+        Optional<MatchSnapshot> snapshot = snapshotRepository.findByMatchId(matchId);
+
+        Long lastEventId = 0L;
+        boolean snapshotUsed = useSnapshot && snapshot.isPresent();
+        if (snapshotUsed) {
+            restoreState(match, snapshot.get());
+            lastEventId = Optional.ofNullable(snapshot.get().getLastEventId()).orElse(0L);
+        } else {
+            match.setStatus(Match.Status.NOT_STARTED);
+            match.getResult().clear();
+            match.setEventCount(0L);
+        }
+
+        List<AbstractMatchEvent> events = eventRepository.findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(matchId, lastEventId);
+        for (AbstractMatchEvent event : events) {
+            // Events are not validated again. They were accepted once, so they are what happened in the match
+            MatchStateMachine.apply(match, event);
+        }
+        match.setEventCount(match.getEventCount() + events.size());
+
+        if (!events.isEmpty()) {
+            // The next rebuild of this match starts where this one has finished
+            MatchSnapshot newSnapshot = snapshot.orElseGet(() -> new MatchSnapshot(matchId));
+            captureState(match, newSnapshot, events.get(events.size() - 1).getId());
+            snapshotRepository.save(newSnapshot);
+        }
+        matchService.save(match);
+        return new RebuildResult(matchId, events.size(), snapshotUsed);
+    }
+
+    @Override
+    public RebuildSummary rebuildAll(boolean useSnapshots) {
+        long start = System.nanoTime();
+        List<Long> matchIds = matchService.findAllIds();
+
+        // At most 'parallelism' rebuilds are waiting in lanes at once, so that processing of new events
+        // does not wait behind thousands of queued rebuilds
+        Semaphore inProgress = new Semaphore(parallelism);
+        AtomicInteger rebuiltMatches = new AtomicInteger();
+        AtomicLong replayedEvents = new AtomicLong();
+        List<Long> failedMatchIds = Collections.synchronizedList(new ArrayList<>());
+
+        for (Long matchId : matchIds) {
+            inProgress.acquireUninterruptibly();
+            try {
+                eventLanes.submit(matchId, () -> rebuild(matchId, useSnapshots)).whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        rebuiltMatches.incrementAndGet();
+                        replayedEvents.addAndGet(result.getReplayedEvents());
+                    } else {
+                        failedMatchIds.add(matchId);
+                    }
+                    inProgress.release();
+                });
+            } catch (EventLaneFullException ex) {
+                failedMatchIds.add(matchId);
+                inProgress.release();
+            }
+        }
+        // wait until all submitted rebuilds are finished
+        inProgress.acquireUninterruptibly(parallelism);
+
+        List<Long> failed = new ArrayList<>(failedMatchIds);
+        Collections.sort(failed);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new RebuildSummary(matchIds.size(), rebuiltMatches.get(), failed, replayedEvents.get(), elapsedMillis);
+    }
+
+    private void captureState(Match match, MatchSnapshot snapshot, Long lastEventId) {
+        ScoreInfo result = match.getResult();
+        snapshot.setLastEventId(lastEventId);
+        snapshot.setEventCount(match.getEventCount());
+        snapshot.setStatus(match.getStatus());
+        snapshot.setTeamAGoals(result.getTeamAGoals());
+        snapshot.setTeamBGoals(result.getTeamBGoals());
+        snapshot.setTeamAPenalties(result.getTeamAPenalties());
+        snapshot.setTeamBPenalties(result.getTeamBPenalties());
+
+        snapshot.getGoals().clear();
+        for (GoalInfo goal : result.getTeamAGoalInfo()) {
+            snapshot.getGoals().add(new SnapshotGoal(true, goal.getMinute(), goal.getScorerName()));
+        }
+        for (GoalInfo goal : result.getTeamBGoalInfo()) {
+            snapshot.getGoals().add(new SnapshotGoal(false, goal.getMinute(), goal.getScorerName()));
+        }
+    }
+
+    private void restoreState(Match match, MatchSnapshot snapshot) {
+        ScoreInfo result = match.getResult();
+        result.clear();
+        result.setTeamAGoals(snapshot.getTeamAGoals());
+        result.setTeamBGoals(snapshot.getTeamBGoals());
+        result.setTeamAPenalties(snapshot.getTeamAPenalties());
+        result.setTeamBPenalties(snapshot.getTeamBPenalties());
+        for (SnapshotGoal goal : snapshot.getGoals()) {
+            List<GoalInfo> goalInfo = goal.isTeamA() ? result.getTeamAGoalInfo() : result.getTeamBGoalInfo();
+            goalInfo.add(new GoalInfo(goal.getMinute(), goal.getScorerName()));
+        }
+        match.setStatus(snapshot.getStatus());
+        match.setEventCount(snapshot.getEventCount());
+    }
+}
@@ -0,0 +1,128 @@
+package ml.echelon133.sportevents.rebuild;
+
+import ml.echelon133.sportevents.match.Match;
+
+import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+State of a match after all events up to (and including) the event with id lastEventId were applied.
+Every match has at most one snapshot, which is overwritten when a newer one is taken.
+ */
+@Entity
+@Table(name = "match_snapshot")
+public class MatchSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private Long matchId;
+
+    private Long lastEventId;
+    private Long eventCount;
+
+    @Enumerated(EnumType.STRING)
+    private Match.Status status;
+
+    private Long teamAGoals;
+    private Long teamBGoals;
+    private Long teamAPenalties;
+    private Long teamBPenalties;
+
+    @ElementCollection
+    @CollectionTable(name = "match_snapshot_goal", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @OrderColumn(name = "goal_order")
+    private List<SnapshotGoal> goals;
+
+    public MatchSnapshot() {
+        this.goals = new ArrayList<>();
+    }
+
+    public MatchSnapshot(Long matchId) {
+        this();
+        this.matchId = matchId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(Long matchId) {
+        this.matchId = matchId;
+    }
+
+    public Long getLastEventId() {
+        return lastEventId;
+    }
+
+    public void setLastEventId(Long lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    public Long getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(Long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public Match.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Match.Status status) {
+        this.status = status;
+    }
+
+    public Long getTeamAGoals() {
+        return teamAGoals;
+    }
+
+    public void setTeamAGoals(Long teamAGoals) {
+        this.teamAGoals = teamAGoals;
+    }
+
+    public Long getTeamBGoals() {
+        return teamBGoals;
+    }
+
+    public void setTeamBGoals(Long teamBGoals) {
+        this.teamBGoals = teamBGoals;
+    }
+
+    public Long getTeamAPenalties() {
+        return teamAPenalties;
+    }
+
+    public void setTeamAPenalties(Long teamAPenalties) {
+        this.teamAPenalties = teamAPenalties;
+    }
+
+    public Long getTeamBPenalties() {
+        return teamBPenalties;
+    }
+
+    public void setTeamBPenalties(Long teamBPenalties) {
+        this.teamBPenalties = teamBPenalties;
+    }
+
+    public List<SnapshotGoal> getGoals() {
+        return goals;
+    }
+
+    public void setGoals(List<SnapshotGoal> goals) {
+        this.goals = goals;
+    }
+}
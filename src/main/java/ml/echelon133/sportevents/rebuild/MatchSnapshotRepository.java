@@ -0,0 +1,9 @@
+package ml.echelon133.sportevents.rebuild;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface MatchSnapshotRepository extends JpaRepository<MatchSnapshot, Long> {
+    Optional<MatchSnapshot> findByMatchId(Long matchId);
+}
@@ -0,0 +1,26 @@
+package ml.echelon133.sportevents.rebuild;
+
+public class RebuildResult {
+
+    private Long matchId;
+    private int replayedEvents;
+    private boolean snapshotUsed;
+
+    public RebuildResult(Long matchId, int replayedEvents, boolean snapshotUsed) {
+        this.matchId = matchId;
+        this.replayedEvents = replayedEvents;
+        this.snapshotUsed = snapshotUsed;
+    }
+
+    public Long getMatchId() {
+        return matchId;
+    }
+
+    public int getReplayedEvents() {
+        return replayedEvents;
+    }
+
+    public boolean isSnapshotUsed() {
+        return snapshotUsed;
+    }
+}
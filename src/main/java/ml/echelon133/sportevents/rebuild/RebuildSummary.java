@@ -0,0 +1,41 @@
+package ml.echelon133.sportevents.rebuild;
+
+import java.util.List;
+
+public class RebuildSummary {
+
+    private int matches;
+    private int rebuiltMatches;
+    private List<Long> failedMatchIds;
+    private long replayedEvents;
+    private long elapsedMillis;
+
+    public RebuildSummary(int matches, int rebuiltMatches, List<Long> failedMatchIds,
+                          long replayedEvents, long elapsedMillis) {
+        this.matches = matches;
+        this.rebuiltMatches = rebuiltMatches;
+        this.failedMatchIds = failedMatchIds;
+        this.replayedEvents = replayedEvents;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    public int getRebuiltMatches() {
+        return rebuiltMatches;
+    }
+
+    public List<Long> getFailedMatchIds() {
+        return failedMatchIds;
+    }
+
+    public long getReplayedEvents() {
+        return replayedEvents;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
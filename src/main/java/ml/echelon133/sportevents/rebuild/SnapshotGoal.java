@@ -0,0 +1,42 @@
+package ml.echelon133.sportevents.rebuild;
+
+import javax.persistence.Embeddable;
+
+@Embeddable
+public class SnapshotGoal {
+
+    private boolean teamA;
+    private Long minute;
+    private String scorerName;
+
+    public SnapshotGoal() {}
+    public SnapshotGoal(boolean teamA, Long minute, String scorerName) {
+        this.teamA = teamA;
+        this.minute = minute;
+        this.scorerName = scorerName;
+    }
+
+    public boolean isTeamA() {
+        return teamA;
+    }
+
+    public void setTeamA(boolean teamA) {
+        this.teamA = teamA;
+    }
+
+    public Long getMinute() {
+        return minute;
+    }
+
+    public void setMinute(Long minute) {
+        this.minute = minute;
+    }
+
+    public String getScorerName() {
+        return scorerName;
+    }
+
+    public void setScorerName(String scorerName) {
+        this.scorerName = scorerName;
+    }
+}
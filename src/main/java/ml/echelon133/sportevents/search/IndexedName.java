@@ -0,0 +1,23 @@
+package ml.echelon133.sportevents.search;
+
+/*
+Id and name of an entity, read by the queries that load a NameIndex without loading the entities themselves
+ */
+public class IndexedName {
+
+    private Long id;
+    private String name;
+
+    public IndexedName(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,327 @@
+package ml.echelon133.sportevents.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/*
+In-memory n-gram index of names of entities (teams, leagues, stadiums), used to find the entities whose name
+contains a text without a "LIKE '%text%'" scan of the whole table.
+
+Names are folded before they are indexed and searched (see fold), so the search is case insensitive and ignores
+diacritics, ex. "lodz" finds "LKS Lodz" written with Polish letters. Every folded name is indexed under each of its
+substrings of length 1, 2 and 3, in posting lists ordered by id. Texts of up to three characters are answered by
+a single posting list. Longer texts are answered by checking the names of the shortest posting list among
+the trigrams of the text. Folded names and their words are also kept in alphabetical order, so that names and words
+that start with the text are found by a range scan.
+
+Names of all entities are loaded when the application starts, and changes made by this application are applied
+after their transaction commits. Until the index is loaded, callers read from the database.
+
+Metrics (tagged with the name of the index): search.index.size.
+ */
+public class NameIndex {
+
+    private static final int MAX_GRAM_LENGTH = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Comparator<Entry> ALPHABETICAL =
+            Comparator.<Entry, String>comparing(entry -> entry.folded).thenComparing(entry -> entry.id);
+
+    // Letters that are not decomposed by Unicode normalization (l with stroke, d with stroke, o with stroke, dotless i,
+    // sharp s and ligatures)
+    private static final Map<Character, String> SPECIAL_LETTERS = new HashMap<>();
+    static {
+        SPECIAL_LETTERS.put('\u0142', "l");
+        SPECIAL_LETTERS.put('\u0111', "d");
+        SPECIAL_LETTERS.put('\u00f8', "o");
+        SPECIAL_LETTERS.put('\u0131', "i");
+        SPECIAL_LETTERS.put('\u00df', "ss");
+        SPECIAL_LETTERS.put('\u00e6', "ae");
+        SPECIAL_LETTERS.put('\u0153', "oe");
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final String name;
+        private final String folded;
+
+        Entry(Long id, String name) {
+            this.id = id;
+            this.name = name;
+            this.folded = (name == null) ? "" : fold(name);
+        }
+
+        // Every word of the name except for the first one, together with the rest of the name,
+        // ex. "real madrid cf" -> "madrid cf", "cf"
+        private List<String> laterWords() {
+            List<String> words = new ArrayList<>();
+            for (int i = 1; i < folded.length(); i++) {
+                if (!Character.isLetterOrDigit(folded.charAt(i - 1)) && Character.isLetterOrDigit(folded.charAt(i))) {
+                    words.add(folded.substring(i));
+                }
+            }
+            return words;
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (int length = 1; length <= MAX_GRAM_LENGTH; length++) {
+                for (int i = 0; i + length <= folded.length(); i++) {
+                    grams.add(folded.substring(i, i + length));
+                }
+            }
+            return grams;
+        }
+    }
+
+    public static final class Hit {
+        private final Long id;
+        private final String name;
+
+        public Hit(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final NavigableMap<Long, Entry> entries = new TreeMap<>();
+    private final Map<String, NavigableSet<Long>> postings = new HashMap<>();
+    private final NavigableMap<String, NavigableSet<Long>> names = new TreeMap<>();
+    private final NavigableMap<String, NavigableSet<Long>> laterWords = new TreeMap<>();
+    // Searches are much more frequent than changes of names, so they do not block each other
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public NameIndex(String name, MeterRegistry meterRegistry) {
+        meterRegistry.gauge("search.index.size", Tags.of("index", name), this, NameIndex::size);
+    }
+
+    // Lower case without diacritics and with single spaces between words, ex. "  Atletico  MADRID " -> "atletico madrid"
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        String withoutDiacritics = DIACRITICS.matcher(decomposed).replaceAll("");
+        StringBuilder folded = new StringBuilder(withoutDiacritics.length());
+        for (char c : withoutDiacritics.toCharArray()) {
+            String replacement = SPECIAL_LETTERS.get(c);
+            if (replacement == null) {
+                folded.append(c);
+            } else {
+                folded.append(replacement);
+            }
+        }
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    protected void load(List<IndexedName> names) {
+        for (IndexedName name : names) {
+            put(name.getId(), name.getName());
+        }
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void put(Long id, String name) {
+        Entry entry = new Entry(id, name);
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            entries.put(id, entry);
+            for (String gram : entry.grams()) {
+                add(postings, gram, id);
+            }
+            add(names, entry.folded, id);
+            for (String word : entry.laterWords()) {
+                add(laterWords, word, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAfterCommit(Long id, String name) {
+        runAfterCommit(() -> put(id, name));
+    }
+
+    public void removeAfterCommit(Long id) {
+        runAfterCommit(() -> remove(id));
+    }
+
+    // Returns nothing if the index is not loaded. Otherwise returns ids of at most 'limit' entities whose names
+    // contain the text and that have an id greater than afterId, ordered by id
+    public Optional<List<Long>> findIdsContaining(String text, Long afterId, int limit) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        String folded = fold(text);
+        List<Long> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidatesOf(folded).tailSet(afterId, false)) {
+                if (ids.size() == limit) {
+                    break;
+                }
+                if (contains(id, folded)) {
+                    ids.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.of(ids);
+    }
+
+    // At most 'limit' entities whose names contain the text, best matches first: names that start with the text,
+    // then names with a word that starts with it, then the remaining ones. Names are ordered alphabetically within
+    // each of these groups, so a name that is equal to the text comes first
+    public List<Hit> search(String text, int limit) {
+        String folded = fold(text);
+        List<Hit> hits = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            addStartingWith(names, folded, limit, hits, found);
+            addStartingWith(laterWords, folded, limit, hits, found);
+            if (hits.size() == limit) {
+                return hits;
+            }
+
+            // Only the first names in alphabetical order are kept, instead of sorting all of them
+            int remaining = limit - hits.size();
+            PriorityQueue<Entry> rest = new PriorityQueue<>(ALPHABETICAL.reversed());
+            for (Long id : candidatesOf(folded)) {
+                if (!found.contains(id) && contains(id, folded)) {
+                    rest.add(entries.get(id));
+                    if (rest.size() > remaining) {
+                        rest.poll();
+                    }
+                }
+            }
+            List<Entry> sorted = new ArrayList<>(rest);
+            sorted.sort(ALPHABETICAL);
+            for (Entry entry : sorted) {
+                hits.add(new Hit(entry.id, entry.name));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of all names that can contain the folded text, ordered by id. Every name that contains the text is
+    // in the posting list of each of its trigrams
+    private NavigableSet<Long> candidatesOf(String folded) {
+        if (folded.isEmpty()) {
+            return entries.navigableKeySet();
+        }
+        if (folded.length() <= MAX_GRAM_LENGTH) {
+            return postings.getOrDefault(folded, Collections.emptyNavigableSet());
+        }
+        NavigableSet<Long> candidates = null;
+        for (int i = 0; i + MAX_GRAM_LENGTH <= folded.length(); i++) {
+            NavigableSet<Long> posting =
+                    postings.getOrDefault(folded.substring(i, i + MAX_GRAM_LENGTH), Collections.emptyNavigableSet());
+            if (candidates == null || posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+        return candidates;
+    }
+
+    // Candidates of texts of up to three characters do not have to be checked
+    private boolean contains(Long id, String folded) {
+        return folded.length() <= MAX_GRAM_LENGTH || entries.get(id).folded.contains(folded);
+    }
+
+    private void addStartingWith(NavigableMap<String, NavigableSet<Long>> index,
+                                 String folded,
+                                 int limit,
+                                 List<Hit> hits,
+                                 Set<Long> found) {
+        for (NavigableSet<Long> ids : index.subMap(folded, true, folded + Character.MAX_VALUE, false).values()) {
+            for (Long id : ids) {
+                if (hits.size() == limit) {
+                    return;
+                }
+                if (found.add(id)) {
+                    hits.add(new Hit(id, entries.get(id).name));
+                }
+            }
+        }
+    }
+
+    private void removeEntry(Long id) {
+        Entry removed = entries.remove(id);
+        if (removed == null) {
+            return;
+        }
+        for (String gram : removed.grams()) {
+            remove(postings, gram, id);
+        }
+        remove(names, removed.folded, id);
+        for (String word : removed.laterWords()) {
+            remove(laterWords, word, id);
+        }
+    }
+
+    private static void add(Map<String, NavigableSet<Long>> index, String key, Long id) {
+        index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+    }
+
+    private static void remove(Map<String, NavigableSet<Long>> index, String key, Long id) {
+        NavigableSet<Long> ids = index.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static void runAfterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ml.echelon133.sportevents.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Meant to be called on every keystroke of a search box, so results contain only ids and names
+    @GetMapping
+    public ResponseEntity<SearchResults> search(@RequestParam(value = "q") String text,
+                                                @RequestParam(value = "limit", required = false) Integer limit) {
+        int resultLimit = (limit == null) ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return new ResponseEntity<>(searchService.search(text, resultLimit), HttpStatus.OK);
+    }
+}
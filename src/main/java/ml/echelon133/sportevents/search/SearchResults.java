@@ -0,0 +1,31 @@
+package ml.echelon133.sportevents.search;
+
+import java.util.List;
+
+/*
+Response of GET /api/search. Every list contains the best matches of one kind of entities (see NameIndex.search)
+ */
+public class SearchResults {
+
+    private List<NameIndex.Hit> teams;
+    private List<NameIndex.Hit> leagues;
+    private List<NameIndex.Hit> stadiums;
+
+    public SearchResults(List<NameIndex.Hit> teams, List<NameIndex.Hit> leagues, List<NameIndex.Hit> stadiums) {
+        this.teams = teams;
+        this.leagues = leagues;
+        this.stadiums = stadiums;
+    }
+
+    public List<NameIndex.Hit> getTeams() {
+        return teams;
+    }
+
+    public List<NameIndex.Hit> getLeagues() {
+        return leagues;
+    }
+
+    public List<NameIndex.Hit> getStadiums() {
+        return stadiums;
+    }
+}
@@ -0,0 +1,6 @@
+package ml.echelon133.sportevents.search;
+
+public interface SearchService {
+    // At most 'limit' teams, leagues and stadiums (each) whose names contain the text
+    SearchResults search(String text, int limit);
+}
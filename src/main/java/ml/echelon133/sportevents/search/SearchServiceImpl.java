@@ -0,0 +1,34 @@
+package ml.echelon133.sportevents.search;
+
+import ml.echelon133.sportevents.league.LeagueNameIndex;
+import ml.echelon133.sportevents.stadium.StadiumNameIndex;
+import ml.echelon133.sportevents.team.TeamNameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/*
+Searches only the name indexes, never the database
+ */
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private TeamNameIndex teamNameIndex;
+    private LeagueNameIndex leagueNameIndex;
+    private StadiumNameIndex stadiumNameIndex;
+
+    @Autowired
+    public SearchServiceImpl(TeamNameIndex teamNameIndex,
+                             LeagueNameIndex leagueNameIndex,
+                             StadiumNameIndex stadiumNameIndex) {
+        this.teamNameIndex = teamNameIndex;
+        this.leagueNameIndex = leagueNameIndex;
+        this.stadiumNameIndex = stadiumNameIndex;
+    }
+
+    @Override
+    public SearchResults search(String text, int limit) {
+        return new SearchResults(teamNameIndex.search(text, limit),
+                                 leagueNameIndex.search(text, limit),
+                                 stadiumNameIndex.search(text, limit));
+    }
+}
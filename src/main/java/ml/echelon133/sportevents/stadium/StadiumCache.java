@@ -0,0 +1,21 @@
+package ml.echelon133.sportevents.stadium;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+Stadiums read by id (GET /api/stadiums/{stadiumId} and stadiums of created or replaced matches)
+ */
+@Component
+public class StadiumCache extends ReferenceDataCache<Stadium> {
+
+    @Autowired
+    public StadiumCache(MeterRegistry meterRegistry,
+                        @Value("${reference.cache.max-entries:1000}") int maxEntries,
+                        @Value("${reference.cache.ttl-seconds:300}") long ttlSeconds) {
+        super("stadiums", meterRegistry, maxEntries, ttlSeconds);
+    }
+}
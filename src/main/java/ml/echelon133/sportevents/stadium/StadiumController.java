@@ -2,7 +2,9 @@ package ml.echelon133.sportevents.stadium;
 
 import ml.echelon133.sportevents.exception.FailedValidationException;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.links.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resources;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,9 +14,11 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
 @RestController
 @RequestMapping("/api/stadiums")
@@ -30,15 +34,22 @@ public class StadiumController {
     }
 
     @GetMapping
-    public ResponseEntity<Resources<StadiumResource>> getStadiums() {
-        Resources<StadiumResource> resources = new Resources<>(resourceAssembler.toResources(stadiumService.findAll()));
+    public ResponseEntity<Resources<StadiumResource>> getStadiums(
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        int pageSize = KeysetPage.toPageSize(limit);
+        List<Stadium> stadiums = stadiumService.findAll(KeysetPage.toAfterId(afterId), pageSize + 1);
+        Resources<StadiumResource> resources = KeysetPage.toResources(stadiums, pageSize, resourceAssembler,
+                Stadium::getId,
+                lastId -> linkTo(methodOn(StadiumController.class).getStadiums(lastId, pageSize)).withRel(Link.REL_NEXT));
         resources.add(linkTo(StadiumController.class).withRel("stadiums"));
         return new ResponseEntity<>(resources, HttpStatus.OK);
     }
 
     @GetMapping("/{stadiumId}")
     public ResponseEntity<StadiumResource> getStadium(@PathVariable Long stadiumId) throws ResourceDoesNotExistException {
-        StadiumResource stadiumResource = resourceAssembler.toResource(stadiumService.findById(stadiumId));
+        StadiumResource stadiumResource = resourceAssembler.toResource(stadiumService.findByIdForReading(stadiumId));
         return new ResponseEntity<>(stadiumResource, HttpStatus.OK);
     }
 
@@ -0,0 +1,30 @@
+package ml.echelon133.sportevents.stadium;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.search.NameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+Names of all stadiums, searched by GET /api/search
+ */
+@Component
+public class StadiumNameIndex extends NameIndex {
+
+    private StadiumRepository stadiumRepository;
+
+    @Autowired
+    public StadiumNameIndex(StadiumRepository stadiumRepository, MeterRegistry meterRegistry) {
+        super("stadiums", meterRegistry);
+        this.stadiumRepository = stadiumRepository;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        load(stadiumRepository.findAllNames());
+    }
+}
@@ -1,6 +1,16 @@
 package ml.echelon133.sportevents.stadium;
 
+import ml.echelon133.sportevents.search.IndexedName;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface StadiumRepository extends JpaRepository<Stadium, Long> {
+    List<Stadium> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Loads the name index (see StadiumNameIndex)
+    @Query("SELECT new ml.echelon133.sportevents.search.IndexedName(s.id, s.name) FROM Stadium s")
+    List<IndexedName> findAllNames();
 }
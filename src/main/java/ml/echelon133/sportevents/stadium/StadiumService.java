@@ -7,7 +7,10 @@ import java.util.List;
 public interface StadiumService {
     Stadium convertDtoToEntity(StadiumDto leagueDto);
     Stadium save(Stadium league);
-    List<Stadium> findAll();
+    // Returns at most 'limit' stadiums that have an id greater than afterId, ordered by id (see KeysetPage)
+    List<Stadium> findAll(Long afterId, int limit);
     Stadium findById(Long id) throws ResourceDoesNotExistException;
+    // Returned stadium can be cached and shared between requests, so it must not be modified nor saved
+    Stadium findByIdForReading(Long id) throws ResourceDoesNotExistException;
     boolean deleteById(Long id);
 }
@@ -1,7 +1,9 @@
 package ml.echelon133.sportevents.stadium;
 
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,10 +13,19 @@ import java.util.Optional;
 public class StadiumServiceImpl implements StadiumService {
 
     private StadiumRepository stadiumRepository;
+    private StadiumCache stadiumCache;
+    private StadiumNameIndex stadiumNameIndex;
+    private ReferenceDataVersion referenceDataVersion;
 
     @Autowired
-    public StadiumServiceImpl(StadiumRepository stadiumRepository) {
+    public StadiumServiceImpl(StadiumRepository stadiumRepository,
+                              StadiumCache stadiumCache,
+                              StadiumNameIndex stadiumNameIndex,
+                              ReferenceDataVersion referenceDataVersion) {
         this.stadiumRepository = stadiumRepository;
+        this.stadiumCache = stadiumCache;
+        this.stadiumNameIndex = stadiumNameIndex;
+        this.referenceDataVersion = referenceDataVersion;
     }
 
     @Override
@@ -24,12 +35,17 @@ public class StadiumServiceImpl implements StadiumService {
 
     @Override
     public Stadium save(Stadium stadium) {
-        return stadiumRepository.save(stadium);
+        Stadium savedStadium = stadiumRepository.save(stadium);
+        stadiumCache.invalidateAfterCommit(savedStadium.getId());
+        stadiumNameIndex.putAfterCommit(savedStadium.getId(), savedStadium.getName());
+        // Names of stadiums are a part of cached responses of matches
+        referenceDataVersion.incrementAfterCommit();
+        return savedStadium;
     }
 
     @Override
-    public List<Stadium> findAll() {
-        return stadiumRepository.findAll();
+    public List<Stadium> findAll(Long afterId, int limit) {
+        return stadiumRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
     }
 
     @Override
@@ -41,10 +57,18 @@ public class StadiumServiceImpl implements StadiumService {
         throw new ResourceDoesNotExistException("Stadium with this id does not exist");
     }
 
+    @Override
+    public Stadium findByIdForReading(Long id) throws ResourceDoesNotExistException {
+        return stadiumCache.get(id, this::findById);
+    }
+
     @Override
     public boolean deleteById(Long id) {
         boolean exists = stadiumRepository.existsById(id);
         if (exists) {
+            stadiumCache.invalidateAfterCommit(id);
+            stadiumNameIndex.removeAfterCommit(id);
+            referenceDataVersion.incrementAfterCommit();
             stadiumRepository.deleteById(id);
             exists = stadiumRepository.existsById(id);
         }
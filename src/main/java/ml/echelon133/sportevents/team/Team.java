@@ -9,8 +9,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Used by queries that read lists of teams, because every serialized team contains its league
+@NamedEntityGraph(name = Team.WITH_LEAGUE, attributeNodes = @NamedAttributeNode("league"))
 public class Team {
 
+    public static final String WITH_LEAGUE = "Team.withLeague";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
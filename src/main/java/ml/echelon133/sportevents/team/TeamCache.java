@@ -0,0 +1,22 @@
+package ml.echelon133.sportevents.team;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+Teams read by id (GET /api/teams/{teamId}). Teams are also invalidated when their league changes,
+because the league is a part of every team resource
+ */
+@Component
+public class TeamCache extends ReferenceDataCache<Team> {
+
+    @Autowired
+    public TeamCache(MeterRegistry meterRegistry,
+                     @Value("${reference.cache.max-entries:1000}") int maxEntries,
+                     @Value("${reference.cache.ttl-seconds:300}") long ttlSeconds) {
+        super("teams", meterRegistry, maxEntries, ttlSeconds);
+    }
+}
@@ -2,9 +2,13 @@ package ml.echelon133.sportevents.team;
 
 import ml.echelon133.sportevents.exception.FailedValidationException;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.links.KeysetPage;
+import ml.echelon133.sportevents.match.Match;
 import ml.echelon133.sportevents.match.MatchResource;
 import ml.echelon133.sportevents.match.MatchResourceAssembler;
+import ml.echelon133.sportevents.match.MatchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resources;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +16,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -25,46 +30,103 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 public class TeamController {
 
     private TeamService teamService;
+    private MatchService matchService;
     private TeamResourceAssembler teamResourceAssembler;
     private MatchResourceAssembler matchResourceAssembler;
 
     @Autowired
     public TeamController(TeamService teamService,
+                          MatchService matchService,
                           TeamResourceAssembler teamResourceAssembler,
                           MatchResourceAssembler matchResourceAssembler) {
         this.teamService = teamService;
+        this.matchService = matchService;
         this.teamResourceAssembler = teamResourceAssembler;
         this.matchResourceAssembler = matchResourceAssembler;
     }
 
     @GetMapping
     public ResponseEntity<Resources<TeamResource>> getTeams(
-            @RequestParam(value = "nameContains", required = false) String name) {
+            @RequestParam(value = "nameContains", required = false) String name,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
 
+        int pageSize = KeysetPage.toPageSize(limit);
+        long after = KeysetPage.toAfterId(afterId);
         List<Team> teams;
         if (name == null) {
-            teams = teamService.findAll();
+            teams = teamService.findAll(after, pageSize + 1);
         } else {
-            teams = teamService.findAllByNameContaining(name);
+            teams = teamService.findAllByNameContaining(name, after, pageSize + 1);
         }
 
-        Resources<TeamResource> resources = new Resources<>(teamResourceAssembler.toResources(teams));
+        Resources<TeamResource> resources = KeysetPage.toResources(teams, pageSize, teamResourceAssembler, Team::getId,
+                lastId -> linkTo(methodOn(TeamController.class).getTeams(name, lastId, pageSize))
+                        .withRel(Link.REL_NEXT));
+        resources.add(linkTo(TeamController.class).withRel("teams"));
+        return new ResponseEntity<>(resources, HttpStatus.OK);
+    }
+
+    // Same pages of teams as above, with only a few fields of every team (see TeamSummary)
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<Resources<TeamSummary>> getTeamSummaries(
+            @RequestParam(value = "view") String view,
+            @RequestParam(value = "nameContains", required = false) String name,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        int pageSize = KeysetPage.toPageSize(limit);
+        long after = KeysetPage.toAfterId(afterId);
+        List<TeamSummary> summaries;
+        if (name == null) {
+            summaries = teamService.findSummaries(after, pageSize + 1);
+        } else {
+            summaries = teamService.findSummariesByNameContaining(name, after, pageSize + 1);
+        }
+
+        Resources<TeamSummary> resources = KeysetPage.toResources(summaries, pageSize, TeamSummary::getId,
+                lastId -> linkTo(methodOn(TeamController.class).getTeamSummaries(view, name, lastId, pageSize))
+                        .withRel(Link.REL_NEXT));
         resources.add(linkTo(TeamController.class).withRel("teams"));
         return new ResponseEntity<>(resources, HttpStatus.OK);
     }
 
     @GetMapping("/{teamId}")
     public ResponseEntity<TeamResource> getTeam(@PathVariable Long teamId) throws ResourceDoesNotExistException {
-        TeamResource teamResource = teamResourceAssembler.toResource(teamService.findById(teamId));
+        TeamResource teamResource = teamResourceAssembler.toResource(teamService.findByIdForReading(teamId));
         return new ResponseEntity<>(teamResource, HttpStatus.OK);
     }
 
+    // Matches of the team from the newest one. Pages end with the match whose id is the afterId of the next page
     @GetMapping("/{teamId}/matches")
-    public ResponseEntity<Resources<MatchResource>> getTeamMatches(@PathVariable Long teamId) throws ResourceDoesNotExistException {
-        Team team = teamService.findById(teamId);
-        Resources<MatchResource> matchResources = new Resources<>(matchResourceAssembler.toResources(team.getMatches()));
-        matchResources.add(linkTo(methodOn(TeamController.class).getTeamMatches(teamId)).withRel("team-matches"));
-        return new ResponseEntity<>(matchResources, HttpStatus.OK);
+    public ResponseEntity<Resources<MatchResource>> getTeamMatches(
+            @PathVariable Long teamId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", required = false) Integer limit) throws ResourceDoesNotExistException,
+                                                                                   DateTimeParseException {
+
+        // Throws if the team does not exist
+        teamService.findByIdForReading(teamId);
+
+        int pageSize = KeysetPage.toPageSize(limit);
+        List<Match> matches = matchService.findAllOfTeam(teamId, status, from, to, afterId, pageSize + 1);
+        Resources<MatchResource> resources = KeysetPage.toResources(matches, pageSize, matchResourceAssembler, Match::getId,
+                lastId -> teamMatchesLink(teamId, status, from, to, lastId, pageSize).withRel(Link.REL_NEXT));
+        resources.add(teamMatchesLink(teamId, null, null, null, null, null).withRel("team-matches").expand());
+        return new ResponseEntity<>(resources, HttpStatus.OK);
+    }
+
+    private static Link teamMatchesLink(Long teamId, String status, String from, String to, Long afterId, Integer limit) {
+        try {
+            return linkTo(methodOn(TeamController.class).getTeamMatches(teamId, status, from, to, afterId, limit))
+                    .withSelfRel();
+        } catch (ResourceDoesNotExistException ex) {
+            // methodOn only records the invocation, the method itself is never executed
+            throw new IllegalStateException(ex);
+        }
     }
 
     @PostMapping
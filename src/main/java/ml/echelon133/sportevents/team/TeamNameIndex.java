@@ -0,0 +1,30 @@
+package ml.echelon133.sportevents.team;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.search.NameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+Names of all teams, searched by GET /api/search and GET /api/teams?nameContains=
+ */
+@Component
+public class TeamNameIndex extends NameIndex {
+
+    private TeamRepository teamRepository;
+
+    @Autowired
+    public TeamNameIndex(TeamRepository teamRepository, MeterRegistry meterRegistry) {
+        super("teams", meterRegistry);
+        this.teamRepository = teamRepository;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        load(teamRepository.findAllNames());
+    }
+}
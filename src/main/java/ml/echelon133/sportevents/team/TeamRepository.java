@@ -1,9 +1,43 @@
 package ml.echelon133.sportevents.team;
 
+import ml.echelon133.sportevents.search.IndexedName;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface TeamRepository extends JpaRepository<Team, Long> {
-    List<Team> findAllByNameContaining(String text);
+    // Lists of teams are read together with their leagues. Pages of teams are read with a limit
+    // and without counting all teams (see KeysetPage)
+    @EntityGraph(Team.WITH_LEAGUE)
+    List<Team> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Teams found by TeamNameIndex
+    @EntityGraph(Team.WITH_LEAGUE)
+    List<Team> findAllByIdInOrderByIdAsc(List<Long> ids);
+
+    @EntityGraph(Team.WITH_LEAGUE)
+    List<Team> findAllByNameContainingAndIdGreaterThanOrderByIdAsc(String text, Long id, Pageable pageable);
+
+    // Summaries select only the columns of TeamSummary, in pages same as lists of teams
+    String SELECT_SUMMARY = "SELECT new ml.echelon133.sportevents.team.TeamSummary(t.id, t.name, l.id, l.name) " +
+            "FROM Team t LEFT JOIN t.league l ";
+
+    @Query(SELECT_SUMMARY + "WHERE t.id > :afterId ORDER BY t.id")
+    List<TeamSummary> findSummaries(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "WHERE t.name LIKE CONCAT('%', :text, '%') AND t.id > :afterId ORDER BY t.id")
+    List<TeamSummary> findSummariesByNameContaining(@Param("text") String text,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "WHERE t.id IN :ids ORDER BY t.id")
+    List<TeamSummary> findSummariesByIdIn(@Param("ids") List<Long> ids);
+
+    // Loads the name index (see TeamNameIndex)
+    @Query("SELECT new ml.echelon133.sportevents.search.IndexedName(t.id, t.name) FROM Team t")
+    List<IndexedName> findAllNames();
 }
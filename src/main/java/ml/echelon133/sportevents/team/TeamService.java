@@ -8,8 +8,15 @@ public interface TeamService {
     Team convertDtoToEntity(TeamDto teamDto) throws ResourceDoesNotExistException;
     Team mergeChanges(Team team, Team replacementTeam);
     Team save(Team team);
-    List<Team> findAll();
-    List<Team> findAllByNameContaining(String name);
+    // Methods that read lists of teams return at most 'limit' teams that have an id greater than afterId,
+    // ordered by id (see KeysetPage)
+    List<Team> findAll(Long afterId, int limit);
+    List<Team> findAllByNameContaining(String name, Long afterId, int limit);
+    // Same as the methods above, but without loading the teams (see TeamSummary)
+    List<TeamSummary> findSummaries(Long afterId, int limit);
+    List<TeamSummary> findSummariesByNameContaining(String name, Long afterId, int limit);
     Team findById(Long id) throws ResourceDoesNotExistException;
+    // Returned team can be cached and shared between requests, so it must not be modified nor saved
+    Team findByIdForReading(Long id) throws ResourceDoesNotExistException;
     boolean deleteById(Long id);
 }
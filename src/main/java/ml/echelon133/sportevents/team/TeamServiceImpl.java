@@ -1,11 +1,14 @@
 package ml.echelon133.sportevents.team;
 
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import ml.echelon133.sportevents.league.League;
 import ml.echelon133.sportevents.league.LeagueService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,11 +17,21 @@ public class TeamServiceImpl implements TeamService {
 
     private TeamRepository teamRepository;
     private LeagueService leagueService;
+    private TeamCache teamCache;
+    private TeamNameIndex teamNameIndex;
+    private ReferenceDataVersion referenceDataVersion;
 
     @Autowired
-    public TeamServiceImpl(TeamRepository teamRepository, LeagueService leagueService) {
+    public TeamServiceImpl(TeamRepository teamRepository,
+                           LeagueService leagueService,
+                           TeamCache teamCache,
+                           TeamNameIndex teamNameIndex,
+                           ReferenceDataVersion referenceDataVersion) {
         this.teamRepository = teamRepository;
         this.leagueService = leagueService;
+        this.teamCache = teamCache;
+        this.teamNameIndex = teamNameIndex;
+        this.referenceDataVersion = referenceDataVersion;
     }
 
     @Override
@@ -62,17 +75,42 @@ public class TeamServiceImpl implements TeamService {
 
     @Override
     public Team save(Team team) {
-        return teamRepository.save(team);
+        Team savedTeam = teamRepository.save(team);
+        teamCache.invalidateAfterCommit(savedTeam.getId());
+        teamNameIndex.putAfterCommit(savedTeam.getId(), savedTeam.getName());
+        // Names of teams are a part of cached responses of matches
+        referenceDataVersion.incrementAfterCommit();
+        return savedTeam;
     }
 
     @Override
-    public List<Team> findAll() {
-        return teamRepository.findAll();
+    public List<Team> findAll(Long afterId, int limit) {
+        return teamRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
     }
 
     @Override
-    public List<Team> findAllByNameContaining(String name) {
-        return teamRepository.findAllByNameContaining(name);
+    public List<Team> findAllByNameContaining(String name, Long afterId, int limit) {
+        // Teams are found by the name index and read by their ids, the database is searched only until the index
+        // is loaded
+        Optional<List<Long>> ids = teamNameIndex.findIdsContaining(name, afterId, limit);
+        if (!ids.isPresent()) {
+            return teamRepository.findAllByNameContainingAndIdGreaterThanOrderByIdAsc(name, afterId, PageRequest.of(0, limit));
+        }
+        return ids.get().isEmpty() ? Collections.emptyList() : teamRepository.findAllByIdInOrderByIdAsc(ids.get());
+    }
+
+    @Override
+    public List<TeamSummary> findSummaries(Long afterId, int limit) {
+        return teamRepository.findSummaries(afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<TeamSummary> findSummariesByNameContaining(String name, Long afterId, int limit) {
+        Optional<List<Long>> ids = teamNameIndex.findIdsContaining(name, afterId, limit);
+        if (!ids.isPresent()) {
+            return teamRepository.findSummariesByNameContaining(name, afterId, PageRequest.of(0, limit));
+        }
+        return ids.get().isEmpty() ? Collections.emptyList() : teamRepository.findSummariesByIdIn(ids.get());
     }
 
     @Override
@@ -84,10 +122,18 @@ public class TeamServiceImpl implements TeamService {
         throw new ResourceDoesNotExistException("Team with this id does not exist");
     }
 
+    @Override
+    public Team findByIdForReading(Long id) throws ResourceDoesNotExistException {
+        return teamCache.get(id, this::findById);
+    }
+
     @Override
     public boolean deleteById(Long id) {
         boolean exists = teamRepository.existsById(id);
         if (exists) {
+            teamCache.invalidateAfterCommit(id);
+            teamNameIndex.removeAfterCommit(id);
+            referenceDataVersion.incrementAfterCommit();
             teamRepository.deleteById(id);
             exists = teamRepository.existsById(id);
         }
@@ -0,0 +1,38 @@
+package ml.echelon133.sportevents.team;
+
+/*
+A team as returned by GET /api/teams?view=summary.
+
+Summaries are read by a query that selects only these columns (see TeamRepository), so neither teams nor
+their leagues are loaded as entities, and no resources with links are assembled.
+ */
+public class TeamSummary {
+
+    private Long id;
+    private String name;
+    private Long leagueId;
+    private String leagueName;
+
+    public TeamSummary(Long id, String name, Long leagueId, String leagueName) {
+        this.id = id;
+        this.name = name;
+        this.leagueId = leagueId;
+        this.leagueName = leagueName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getLeagueId() {
+        return leagueId;
+    }
+
+    public String getLeagueName() {
+        return leagueName;
+    }
+}
@@ -0,0 +1,365 @@
+package ml.echelon133.sportevents.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+Keeps Server-Sent Events streams (GET /api/matches/{matchId}/stream) of every match.
+
+An open stream is only an SseEmitter kept in this registry - the request is processed asynchronously, so open streams
+do not occupy any threads. Events are handed to streams by the broadcast stripes of WebSocketEventServiceImpl,
+right after they are sent over the websocket, so streams receive the same events in the same order.
+
+Broadcast stripes never write to the connection of a client. Every stream has its own bounded queue of events
+to send, which is written by a small pool of writer threads. A stream whose queue is full (the client does not read
+fast enough) is closed. The browser reconnects it with the Last-Event-ID header and gets the missed events
+from the database.
+
+A write to the connection blocks until the client reads the data, and a client with a stalled connection can
+keep a writer thread until the servlet container gives up on the write. Every write has a deadline
+(events.stream.write-timeout-seconds) checked by a watchdog thread. The stream of a write that takes longer is closed
+and the pool gets an additional thread in place of the stuck one, which is given back when the write finally returns.
+Other streams wait for a stuck write at most until its deadline. SseEmitter holds its own lock during a write, so
+an emitter is completed only by the thread that writes it, or by the thread that closes the stream when nobody
+writes it.
+
+Every message has the id of the event as its SSE id. A client that reconnects with a Last-Event-ID header first gets
+all events saved after that id, and then the new ones. Events broadcast while the saved events are being read are
+held back in the queue until the replay is finished, and events that the client already got are never sent twice.
+A stream that cannot be written to is closed and removed.
+ */
+@Component
+public class MatchEventStreams {
+
+    private static class Stream {
+        private final SseEmitter emitter;
+        private final Queue<AbstractMatchEvent> queue = new ArrayDeque<>();
+        // written only by the thread that drains the queue (or replays saved events), one at a time
+        private long lastSentId;
+        // true while a thread writes events of this stream (or a write is scheduled), guarded by the stream itself
+        private boolean writing;
+        // set under the lock of the stream, read without it before every write
+        private volatile boolean closed;
+        // System.nanoTime() of the start of the write that is in progress on a writer thread
+        private volatile long writeStartedAt;
+        // true if the write in progress missed its deadline and its thread was replaced, guarded by the stream
+        private boolean abandoned;
+
+        Stream(SseEmitter emitter, long lastSentId, boolean replaying) {
+            this.emitter = emitter;
+            this.lastSentId = lastSentId;
+            // events broadcast during the replay stay in the queue until the replay is finished
+            this.writing = replaying;
+        }
+    }
+
+    private final ConcurrentMap<Long, Set<Stream>> streams = new ConcurrentHashMap<>();
+    // streams that are being written by a writer thread right now
+    private final Map<Stream, Long> activeWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private final int queueCapacity;
+    private final int writerThreads;
+    private final ThreadPoolExecutor writers;
+    private final ScheduledExecutorService watchdog;
+    // writer threads stuck in writes that missed their deadline, guarded by writers
+    private int abandonedWriters;
+    private final Counter failedStreams;
+    private final Counter slowStreams;
+
+    @Autowired
+    public MatchEventStreams(MeterRegistry meterRegistry,
+                             @Value("${events.stream.timeout-seconds:1800}") long timeoutSeconds,
+                             @Value("${events.stream.writer-threads:4}") int writerThreads,
+                             @Value("${events.stream.write-timeout-seconds:10}") long writeTimeoutSeconds,
+                             @Value("${events.stream.queue-capacity:256}") int queueCapacity) {
+        if (writerThreads < 1 || writeTimeoutSeconds < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Number of writer threads, write timeout and queue capacity must be positive numbers");
+        }
+        this.timeoutMillis = timeoutSeconds * 1000;
+        this.writeTimeoutNanos = TimeUnit.SECONDS.toNanos(writeTimeoutSeconds);
+        this.queueCapacity = queueCapacity;
+        this.writerThreads = writerThreads;
+        // Every stream has at most one task waiting here, so the queue of the pool is bounded by the number of streams
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                                              new LinkedBlockingQueue<>(),
+                                              new CustomizableThreadFactory("event-stream-writer-"));
+        CustomizableThreadFactory watchdogThreads = new CustomizableThreadFactory("event-stream-watchdog-");
+        watchdogThreads.setDaemon(true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(watchdogThreads);
+        // a stuck write is found at most one period after its deadline
+        long period = Math.min(1000, TimeUnit.SECONDS.toMillis(writeTimeoutSeconds));
+        this.watchdog.scheduleWithFixedDelay(this::abandonStuckWrites, period, period, TimeUnit.MILLISECONDS);
+        this.failedStreams = meterRegistry.counter("events.stream.failed");
+        this.slowStreams = meterRegistry.counter("events.stream.slow");
+        meterRegistry.gauge("events.stream.open", open);
+    }
+
+    protected SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    // history returns (in ascending order of ids) a page of saved events of the match that have an id greater
+    // than the given one, or an empty list when there are no more events
+    public SseEmitter subscribe(Long matchId, Long lastEventId, Function<Long, List<AbstractMatchEvent>> history) {
+        SseEmitter emitter = createEmitter(timeoutMillis);
+        boolean replaying = lastEventId != null;
+        Stream stream = new Stream(emitter, replaying ? lastEventId : 0L, replaying);
+
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> remove(matchId, stream));
+        // The stream is registered before saved events are read, so an event saved after the read is not missed
+        streams.compute(matchId, (id, matchStreams) -> {
+            Set<Stream> set = (matchStreams == null) ? ConcurrentHashMap.newKeySet() : matchStreams;
+            set.add(stream);
+            return set;
+        });
+        open.incrementAndGet();
+
+        if (replaying) {
+            replay(matchId, stream, history);
+        }
+        return emitter;
+    }
+
+    private void replay(Long matchId, Stream stream, Function<Long, List<AbstractMatchEvent>> history) {
+        try {
+            // Broadcast events only go to the queue until the replay is finished,
+            // so the replay is the only writer of the stream here
+            List<AbstractMatchEvent> events = history.apply(stream.lastSentId);
+            while (!events.isEmpty()) {
+                for (AbstractMatchEvent event : events) {
+                    write(stream, event);
+                }
+                events = history.apply(stream.lastSentId);
+            }
+        } catch (IOException | RuntimeException ex) {
+            fail(matchId, stream, ex);
+            return;
+        }
+        // events broadcast in the meantime
+        drain(matchId, stream);
+    }
+
+    public void send(Long matchId, AbstractMatchEvent event) {
+        Set<Stream> matchStreams = streams.get(matchId);
+        if (matchStreams == null) {
+            return;
+        }
+
+        for (Stream stream : matchStreams) {
+            boolean startWriting = false;
+            boolean tooSlow = false;
+            synchronized (stream) {
+                if (stream.closed) {
+                    continue;
+                }
+                if (stream.queue.size() >= queueCapacity) {
+                    tooSlow = true;
+                } else {
+                    stream.queue.add(event);
+                    if (!stream.writing) {
+                        stream.writing = true;
+                        startWriting = true;
+                    }
+                }
+            }
+
+            if (tooSlow) {
+                // a stream with a full queue is usually being written right now, so the emitter is completed
+                // by its writer thread and this stripe does not wait for the write
+                slowStreams.increment();
+                close(matchId, stream);
+            } else if (startWriting) {
+                try {
+                    writers.execute(() -> drain(matchId, stream));
+                } catch (RejectedExecutionException ex) {
+                    // writers are shut down together with the application
+                    synchronized (stream) {
+                        stream.writing = false;
+                    }
+                    close(matchId, stream);
+                }
+            }
+        }
+    }
+
+    // Writes events of the queue until it is empty. Only one thread drains a stream at a time
+    private void drain(Long matchId, Stream stream) {
+        while (true) {
+            List<AbstractMatchEvent> events = null;
+            boolean closed;
+            synchronized (stream) {
+                closed = stream.closed;
+                if (closed || stream.queue.isEmpty()) {
+                    stream.writing = false;
+                } else {
+                    events = new ArrayList<>(stream.queue);
+                    stream.queue.clear();
+                }
+            }
+            if (closed) {
+                // the stream was closed while this thread was writing it, so the emitter was left to this thread
+                stream.emitter.complete();
+                return;
+            }
+            if (events == null) {
+                return;
+            }
+            try {
+                for (AbstractMatchEvent event : events) {
+                    if (stream.closed) {
+                        break;
+                    }
+                    writeWithDeadline(matchId, stream, event);
+                }
+            } catch (IOException | RuntimeException ex) {
+                fail(matchId, stream, ex);
+                return;
+            }
+        }
+    }
+
+    private void writeWithDeadline(Long matchId, Stream stream, AbstractMatchEvent event) throws IOException {
+        stream.writeStartedAt = System.nanoTime();
+        activeWrites.put(stream, matchId);
+        try {
+            write(stream, event);
+        } finally {
+            activeWrites.remove(stream);
+            boolean replaced;
+            synchronized (stream) {
+                replaced = stream.abandoned;
+                stream.abandoned = false;
+            }
+            if (replaced) {
+                // the additional thread started in place of this one is no longer needed
+                resizeWriters(-1);
+            }
+        }
+    }
+
+    // Closes streams whose writes missed their deadline and starts a thread in place of every stuck one
+    private void abandonStuckWrites() {
+        long now = System.nanoTime();
+        for (Map.Entry<Stream, Long> write : activeWrites.entrySet()) {
+            Stream stream = write.getKey();
+            if (now - stream.writeStartedAt < writeTimeoutNanos) {
+                continue;
+            }
+            boolean abandon;
+            synchronized (stream) {
+                // the write may have returned in the meantime
+                abandon = !stream.abandoned && activeWrites.containsKey(stream);
+                if (abandon) {
+                    stream.abandoned = true;
+                    // done under the lock, so the writer gives the thread back only after it was added
+                    resizeWriters(1);
+                }
+            }
+            if (abandon) {
+                slowStreams.increment();
+                close(write.getValue(), stream);
+            }
+        }
+    }
+
+    private void resizeWriters(int change) {
+        synchronized (writers) {
+            abandonedWriters += change;
+            int size = writerThreads + abandonedWriters;
+            // the core size can never be greater than the maximum size
+            if (change > 0) {
+                writers.setMaximumPoolSize(size);
+                writers.setCorePoolSize(size);
+            } else {
+                writers.setCorePoolSize(size);
+                writers.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private static void write(Stream stream, AbstractMatchEvent event) throws IOException {
+        if (event.getId() > stream.lastSentId) {
+            stream.emitter.send(SseEmitter.event()
+                    .id(event.getId().toString())
+                    .data(event, MediaType.APPLICATION_JSON));
+            stream.lastSentId = event.getId();
+        }
+    }
+
+    // Called by the thread that writes the stream, which is the one that completes the emitter
+    private void fail(Long matchId, Stream stream, Exception ex) {
+        boolean wasOpen;
+        synchronized (stream) {
+            wasOpen = markClosed(stream);
+            stream.writing = false;
+        }
+        // a write fails also when the stream was closed for being too slow in the meantime
+        if (wasOpen) {
+            failedStreams.increment();
+            remove(matchId, stream);
+        }
+        stream.emitter.completeWithError(ex);
+    }
+
+    private void close(Long matchId, Stream stream) {
+        boolean completeNow;
+        synchronized (stream) {
+            if (!markClosed(stream)) {
+                return;
+            }
+            // a thread that writes the stream holds the lock of the emitter, so it completes the emitter itself
+            completeNow = !stream.writing;
+        }
+        remove(matchId, stream);
+        if (completeNow) {
+            stream.emitter.complete();
+        }
+    }
+
+    // Returns false if the stream was already closed
+    private static boolean markClosed(Stream stream) {
+        synchronized (stream) {
+            boolean wasOpen = !stream.closed;
+            stream.closed = true;
+            stream.queue.clear();
+            return wasOpen;
+        }
+    }
+
+    private void remove(Long matchId, Stream stream) {
+        streams.computeIfPresent(matchId, (id, matchStreams) -> {
+            if (matchStreams.remove(stream)) {
+                open.decrementAndGet();
+            }
+            return matchStreams.isEmpty() ? null : matchStreams;
+        });
+    }
+
+    public int getOpenCount() {
+        return open.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        writers.shutdown();
+    }
+}
@@ -1,22 +1,105 @@
 package ml.echelon133.sportevents.websocket;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+Events are never sent on the thread that processes them. If the event is processed inside of a transaction,
+it is handed over to a broadcast executor only after that transaction commits, so that clients never receive
+an event that was rolled back. Without a transaction, the event is handed over immediately.
+
+Broadcasting is done by a few single-threaded executors (stripes). All events of one match always go through
+the same stripe, so they are received by clients in the order in which they were processed.
+Every stripe has a bounded queue. When the queue is full, the event is not sent over the websocket and
+the 'events.broadcast.dropped' counter is incremented. Dropped events are still saved, so clients can always
+read them with GET /api/matches/{matchId}/events. Processing of events is never slowed down by the broadcast.
+
+After an event is sent over the websocket, the same stripe hands it to Server-Sent Events streams of its match.
+Streams are written by their own threads (see MatchEventStreams), so a slow stream does not hold up the stripe.
+ */
 @Service
 public class WebSocketEventServiceImpl implements WebSocketEventService {
 
     private SimpMessagingTemplate template;
+    private MatchEventStreams eventStreams;
+    private ThreadPoolExecutor[] stripes;
+    private Counter droppedEvents;
+    private Counter failedEvents;
 
     @Autowired
-    public WebSocketEventServiceImpl(SimpMessagingTemplate template) {
+    public WebSocketEventServiceImpl(SimpMessagingTemplate template,
+                                     MatchEventStreams eventStreams,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${events.broadcast.threads:2}") int threads,
+                                     @Value("${events.broadcast.queue-capacity:1024}") int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Number of broadcast threads and queue capacity must be positive numbers");
+        }
         this.template = template;
+        this.eventStreams = eventStreams;
+        this.droppedEvents = meterRegistry.counter("events.broadcast.dropped");
+        this.failedEvents = meterRegistry.counter("events.broadcast.failed");
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("websocket-broadcast-");
+        this.stripes = new ThreadPoolExecutor[threads];
+        for (int i = 0; i < threads; i++) {
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                new ArrayBlockingQueue<>(queueCapacity),
+                                                threadFactory,
+                                                (task, executor) -> droppedEvents.increment());
+        }
+        meterRegistry.gauge("events.broadcast.queued", stripes,
+                            s -> Arrays.stream(s).mapToInt(e -> e.getQueue().size()).sum());
     }
 
     @Override
     public void sendEventOverWebSocket(String websocketPath, AbstractMatchEvent event) {
-        this.template.convertAndSend(websocketPath, event);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dispatch(websocketPath, event);
+                }
+            });
+        } else {
+            dispatch(websocketPath, event);
+        }
+    }
+
+    private void dispatch(String websocketPath, AbstractMatchEvent event) {
+        ThreadPoolExecutor stripe = stripes[Math.floorMod(websocketPath.hashCode(), stripes.length)];
+        stripe.execute(() -> {
+            try {
+                template.convertAndSend(websocketPath, event);
+            } catch (RuntimeException ex) {
+                // the event is already saved, a failed broadcast must not kill the thread of the stripe
+                failedEvents.increment();
+            }
+            if (event.getMatch() != null) {
+                // only queues the event, streams that cannot keep up are closed by MatchEventStreams
+                eventStreams.send(event.getMatch().getId(), event);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
     }
 }
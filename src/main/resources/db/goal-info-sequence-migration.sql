@@ -0,0 +1,30 @@
+-- Moves ids of goals from AUTO_INCREMENT of 'goal_info' to the 'goal_info_sequence' table read by the id generator
+-- of GoalInfo (MySQL).
+--
+-- 1) stop the application
+-- 2) run this script
+-- 3) start the application
+--
+-- Without this script, the application creates 'goal_info_sequence' starting at 1 and the first goals saved on
+-- a database with existing goals fail with duplicate ids. The script can also be run after the application has
+-- already created the table, it replaces the value stored there. Running it more than once is safe.
+
+CREATE TABLE IF NOT EXISTS goal_info_sequence (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+START TRANSACTION;
+
+-- The generator reads a single row. Ids are reserved in blocks starting at next_val, so the first block starts
+-- right after the greatest existing id
+DELETE FROM goal_info_sequence;
+
+INSERT INTO goal_info_sequence (next_val)
+    SELECT COALESCE(MAX(id), 0) + 1 FROM goal_info;
+
+COMMIT;
+
+-- next_val has to be greater than the greatest id of a goal
+SELECT
+    (SELECT next_val FROM goal_info_sequence) AS next_val,
+    (SELECT MAX(id) FROM goal_info) AS max_id;
@@ -0,0 +1,46 @@
+-- Fills the 'event_count' column of 'football_match' with the number of saved events of every match (MySQL).
+--
+-- 1) stop the application
+-- 2) run this script
+-- 3) start the application
+--
+-- The column was added after events were already saved. Without this script, matches with older events have
+-- no count (read as 0) or a count of only the events saved after the upgrade. Snapshots of such matches are taken
+-- at wrong moments and the in-memory store of live matches reads their older events from the database.
+-- The script adds the column if the application has not done it yet. Running it more than once is safe.
+
+SET @add_event_count = (
+    SELECT IF(COUNT(*) = 0, 'ALTER TABLE football_match ADD COLUMN event_count BIGINT', 'DO 0')
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'football_match' AND column_name = 'event_count');
+PREPARE add_event_count FROM @add_event_count;
+EXECUTE add_event_count;
+DEALLOCATE PREPARE add_event_count;
+
+START TRANSACTION;
+
+-- Events stored in one table per type of event (the default layout)
+UPDATE football_match m SET m.event_count =
+    (SELECT COUNT(*) FROM abstract_match_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM managing_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM goal_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM penalty_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM card_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM substitution_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM standard_event e WHERE e.match_id = m.id);
+
+-- Events stored in a single table (META-INF/single-table-events.xml). Use this statement instead of the one above
+-- UPDATE football_match m SET m.event_count = (SELECT COUNT(*) FROM match_event e WHERE e.match_id = m.id);
+
+COMMIT;
+
+-- Matches whose count differs from the number of their saved events, should return no rows
+SELECT m.id, m.event_count FROM football_match m
+WHERE m.event_count IS NULL OR m.event_count <>
+    (SELECT COUNT(*) FROM abstract_match_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM managing_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM goal_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM penalty_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM card_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM substitution_event e WHERE e.match_id = m.id) +
+    (SELECT COUNT(*) FROM standard_event e WHERE e.match_id = m.id);
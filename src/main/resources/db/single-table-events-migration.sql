@@ -0,0 +1,65 @@
+-- Copies events from tables of the TABLE_PER_CLASS layout into the 'match_event' table used by
+-- META-INF/single-table-events.xml (MySQL).
+--
+-- 1) stop the application (or stop sending events) so that no event is written during the copy
+-- 2) run this script
+-- 3) start the application with spring.jpa.mapping-resources=META-INF/single-table-events.xml
+--
+-- Old tables are not dropped, so that the application can be started with the previous layout again.
+-- Once the new layout works, they can be removed with the statements at the end of this script.
+
+CREATE TABLE match_event (
+    kind CHAR(1) NOT NULL,
+    id BIGINT NOT NULL,
+    time BIGINT,
+    message VARCHAR(255),
+    type VARCHAR(255),
+    match_id BIGINT NOT NULL,
+    team_id BIGINT,
+    player_scoring VARCHAR(255),
+    team_scored_id BIGINT,
+    carded_player VARCHAR(255),
+    card_color VARCHAR(255),
+    player_in VARCHAR(255),
+    player_out VARCHAR(255),
+    PRIMARY KEY (id),
+    INDEX idx_match_event_match_id_id (match_id, id),
+    FOREIGN KEY (match_id) REFERENCES football_match (id),
+    FOREIGN KEY (team_id) REFERENCES team (id),
+    FOREIGN KEY (team_scored_id) REFERENCES team (id)
+) ENGINE = InnoDB;
+
+START TRANSACTION;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id)
+    SELECT 'A', id, time, message, type, match_id FROM abstract_match_event;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id)
+    SELECT 'M', id, time, message, type, match_id FROM managing_event;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id, team_id, player_scoring)
+    SELECT 'G', id, time, message, type, match_id, team_id, player_scoring FROM goal_event;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id, team_scored_id)
+    SELECT 'P', id, time, message, type, match_id, team_scored_id FROM penalty_event;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id, carded_player, card_color)
+    SELECT 'C', id, time, message, type, match_id, carded_player, card_color FROM card_event;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id, player_in, player_out)
+    SELECT 'S', id, time, message, type, match_id, player_in, player_out FROM substitution_event;
+
+INSERT INTO match_event (kind, id, time, message, type, match_id)
+    SELECT 'D', id, time, message, type, match_id FROM standard_event;
+
+COMMIT;
+
+-- Number of rows in match_event has to be equal to the number of rows in all old tables
+SELECT
+    (SELECT COUNT(*) FROM match_event) AS migrated,
+    (SELECT COUNT(*) FROM abstract_match_event) + (SELECT COUNT(*) FROM managing_event) +
+    (SELECT COUNT(*) FROM goal_event) + (SELECT COUNT(*) FROM penalty_event) +
+    (SELECT COUNT(*) FROM card_event) + (SELECT COUNT(*) FROM substitution_event) +
+    (SELECT COUNT(*) FROM standard_event) AS original;
+
+-- DROP TABLE abstract_match_event, managing_event, goal_event, penalty_event, card_event, substitution_event, standard_event;
@@ -0,0 +1,362 @@
+package ml.echelon133.sportevents;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
+import ml.echelon133.sportevents.league.*;
+import ml.echelon133.sportevents.match.*;
+import ml.echelon133.sportevents.search.SearchController;
+import ml.echelon133.sportevents.search.SearchServiceImpl;
+import ml.echelon133.sportevents.stadium.*;
+import ml.echelon133.sportevents.team.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/*
+Asserts the maximum number of SQL statements that are executed by the read endpoints, so that a change of a mapping or of a query that
+makes an endpoint load related entities one by one (N+1 selects) fails the build.
+
+Controllers and services are real and use repositories backed by an in-memory H2 database. Each request runs with
+an empty persistence context inside of the transaction of the test, same as a request of the application
+runs with its own session (spring.jpa.open-in-view).
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class EndpointQueryCountTest {
+
+    private static final int LEAGUES = 3;
+    private static final int TEAMS_PER_LEAGUE = 4;
+    private static final int MATCHES = 30;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private LeagueRepository leagueRepository;
+
+    @Autowired
+    private StadiumRepository stadiumRepository;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private Team team;
+    private League league;
+    private Match match;
+    private TeamNameIndex teamNameIndex;
+    private LeagueNameIndex leagueNameIndex;
+    private StadiumNameIndex stadiumNameIndex;
+
+    @Before
+    public void setup() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LeagueResourceAssembler leagueResourceAssembler = new LeagueResourceAssembler();
+        StadiumResourceAssembler stadiumResourceAssembler = new StadiumResourceAssembler();
+        TeamResourceAssembler teamResourceAssembler = new TeamResourceAssembler(leagueResourceAssembler);
+        MatchResourceAssembler matchResourceAssembler =
+                new MatchResourceAssembler(teamResourceAssembler, leagueResourceAssembler, stadiumResourceAssembler);
+
+        // Name indexes are loaded only by the tests that need them, until then teams are searched in the database
+        teamNameIndex = new TeamNameIndex(teamRepository, meterRegistry);
+        leagueNameIndex = new LeagueNameIndex(leagueRepository, meterRegistry);
+        stadiumNameIndex = new StadiumNameIndex(stadiumRepository, meterRegistry);
+        ReferenceDataVersion referenceDataVersion = new ReferenceDataVersion();
+        LeagueService leagueService = new LeagueServiceImpl(leagueRepository,
+                                                            new LeagueCache(meterRegistry, 10, 60),
+                                                            new TeamCache(meterRegistry, 10, 60),
+                                                            leagueNameIndex, referenceDataVersion);
+        TeamService teamService = new TeamServiceImpl(teamRepository, leagueService, new TeamCache(meterRegistry, 10, 60),
+                                                      teamNameIndex, referenceDataVersion);
+        StadiumService stadiumService = new StadiumServiceImpl(stadiumRepository, new StadiumCache(meterRegistry, 10, 60),
+                                                               stadiumNameIndex, referenceDataVersion);
+        MatchVersionCache versionCache = new MatchVersionCache(meterRegistry, referenceDataVersion);
+        // The store is not loaded, so all reads go to the database
+        MatchService matchService = new MatchServiceImpl(matchRepository, teamService, leagueService, stadiumService,
+                                                         versionCache,
+                                                         new LiveMatchStore(matchRepository, meterRegistry, 50));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new MatchController(matchResourceAssembler, matchService, meterRegistry, versionCache,
+                                    new FinishedMatchResponseCache(
+                                            Collections.singletonList(new MappingJackson2HttpMessageConverter()),
+                                            versionCache, meterRegistry, 1024 * 1024)),
+                new TeamController(teamService, matchService, teamResourceAssembler, matchResourceAssembler),
+                new LeagueController(leagueService, leagueResourceAssembler, teamResourceAssembler),
+                new StadiumController(stadiumService, stadiumResourceAssembler),
+                new SearchController(new SearchServiceImpl(teamNameIndex, leagueNameIndex, stadiumNameIndex))).build();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        saveTestData();
+    }
+
+    private void saveTestData() {
+        List<Team> teams = new ArrayList<>();
+        List<Stadium> stadiums = new ArrayList<>();
+        for (int l = 0; l < LEAGUES; l++) {
+            League league = new League("League " + l, "Country");
+            entityManager.persist(league);
+            Stadium stadium = new Stadium("Stadium " + l, "City", 1000);
+            entityManager.persist(stadium);
+            stadiums.add(stadium);
+            for (int t = 0; t < TEAMS_PER_LEAGUE; t++) {
+                Team team = new Team("Team " + l + "-" + t, league);
+                league.addTeam(team);
+                entityManager.persist(team);
+                teams.add(team);
+            }
+        }
+
+        // Matches start within the next day, so that all of them are returned by ?dateWithin=DAY
+        Date startDate = new Date(System.currentTimeMillis() + 60 * 60 * 1000);
+        for (int m = 0; m < MATCHES; m++) {
+            Team teamA = teams.get(m % teams.size());
+            Team teamB = teams.get((m + 5) % teams.size());
+            Match match = new Match(startDate, teamA, teamB, teamA.getLeague(), stadiums.get(m % stadiums.size()));
+            match.setStatus(Match.Status.FINISHED);
+            match.getResult().addGoalTeamA(10L, "Scorer A");
+            match.getResult().addGoalTeamB(20L, "Scorer B");
+            entityManager.persist(match);
+            teamA.addMatch(match);
+            teamB.addMatch(match);
+        }
+
+        team = teams.get(0);
+        league = team.getLeague();
+        match = team.getMatches().get(0);
+        entityManager.flush();
+    }
+
+    // Returns the number of statements that were sent to the database while the request was processed
+    private long countStatements(String url) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+
+        MockHttpServletResponse response = mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void getMatchesDoesNotLoadRelationsOneByOne() throws Exception {
+        // matches with teams, leagues and stadiums + goals of team A + goals of team B
+        assertThat(countStatements("/api/matches")).isLessThanOrEqualTo(3L);
+    }
+
+    @Test
+    public void getMatchesWithStatusDoesNotLoadRelationsOneByOne() throws Exception {
+        assertThat(countStatements("/api/matches?status=FINISHED")).isLessThanOrEqualTo(3L);
+    }
+
+    @Test
+    public void getMatchesWithDateWithinDoesNotLoadRelationsOneByOne() throws Exception {
+        assertThat(countStatements("/api/matches?dateWithin=DAY")).isLessThanOrEqualTo(3L);
+    }
+
+    @Test
+    public void everyPageOfMatchesIsReadWithSingleQuery() throws Exception {
+        // Given
+        Set<String> readMatches = new HashSet<>();
+        String url = "/api/matches?limit=7";
+        int pages = 0;
+
+        // When
+        while (url != null) {
+            entityManager.clear();
+            statistics.clear();
+            DocumentContext json = JsonPath.parse(mockMvc.perform(get(url)
+                    .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse().getContentAsString());
+
+            // Then
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3L);
+            List<Object> ids = json.read("$.content[*].id");
+            ids.forEach(id -> assertThat(readMatches.add(id.toString())).isTrue());
+            List<String> next = json.read("$.links[?(@.rel=='next')].href");
+            url = next.isEmpty() ? null : next.get(0);
+            pages++;
+        }
+        assertThat(readMatches.size()).isEqualTo(MATCHES);
+        assertThat(pages).isEqualTo(5);
+    }
+
+    @Test
+    public void pageOfMatchesLoadsOnlyGoalsOfItsMatches() throws Exception {
+        String[] urls = {"/api/matches?limit=7", "/api/matches?status=FINISHED&limit=7",
+                         "/api/matches?dateWithin=DAY&limit=7"};
+
+        for (String url : urls) {
+            // When
+            countStatements(url);
+
+            // Then
+            // every match has one goal of each team. One more match than the page size is read,
+            // to find out whether there is a next page
+            assertThat(statistics.getEntityStatistics(GoalInfo.class.getName()).getLoadCount()).isEqualTo(16L);
+        }
+    }
+
+    @Test
+    public void getMatchSummariesUsesSingleQueryWithoutLoadingEntities() throws Exception {
+        assertThat(countStatements("/api/matches?view=summary")).isEqualTo(1L);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0L);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void getTeamSummariesUsesSingleQueryWithoutLoadingEntities() throws Exception {
+        assertThat(countStatements("/api/teams?view=summary&nameContains=Team")).isEqualTo(1L);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void finishedMatchIsReadOnlyOnce() throws Exception {
+        // The first read serializes the match, the next ones are written from the cached response
+        assertThat(countStatements("/api/matches/" + match.getId())).isGreaterThan(0L);
+        assertThat(countStatements("/api/matches/" + match.getId())).isEqualTo(0L);
+    }
+
+    @Test
+    public void finishedMatchIsReadAgainAfterItsTeamIsRenamed() throws Exception {
+        String url = "/api/matches/" + match.getId();
+        String eTag = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When
+        mockMvc.perform(put("/api/teams/" + team.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed team\",\"leagueId\":" + league.getId() + "}"));
+        entityManager.flush();
+        // The transaction of the test is never committed, so the changes are published as if it was
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        entityManager.clear();
+        MockHttpServletResponse response = mockMvc.perform(get(url)
+                .header("If-None-Match", eTag)
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader("ETag")).isNotEqualTo(eTag);
+        assertThat(response.getContentAsString()).contains("Renamed team");
+    }
+
+    @Test
+    public void getTeamsUsesSingleQuery() throws Exception {
+        assertThat(countStatements("/api/teams")).isLessThanOrEqualTo(1L);
+    }
+
+    @Test
+    public void getTeamsWithNameContainingUsesSingleQuery() throws Exception {
+        assertThat(countStatements("/api/teams?nameContains=Team")).isLessThanOrEqualTo(1L);
+    }
+
+    @Test
+    public void getTeamsWithNameContainingReadsOnlyTeamsFoundByNameIndex() throws Exception {
+        // Given
+        teamNameIndex.load();
+
+        // When
+        long statements = countStatements("/api/teams?nameContains=TEAM 1-");
+
+        // Then
+        assertThat(statements).isLessThanOrEqualTo(1L);
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo((long) (TEAMS_PER_LEAGUE + 1));
+    }
+
+    @Test
+    public void searchDoesNotQueryDatabase() throws Exception {
+        // Given
+        teamNameIndex.load();
+        leagueNameIndex.load();
+        stadiumNameIndex.load();
+
+        // When
+        long statements = countStatements("/api/search?q=1");
+
+        // Then
+        assertThat(statements).isEqualTo(0L);
+    }
+
+    @Test
+    public void getTeamMatchesDoesNotLoadRelationsOneByOne() throws Exception {
+        // team + matches in which the team is team A + matches in which it is team B (both with their relations)
+        // + goals of team A + goals of team B
+        assertThat(countStatements("/api/teams/" + team.getId() + "/matches")).isLessThanOrEqualTo(5L);
+    }
+
+    @Test
+    public void everyPageOfTeamMatchesIsReadWithoutLoadingWholeHistory() throws Exception {
+        // Given
+        Set<String> readMatches = new HashSet<>();
+        String url = "/api/teams/" + team.getId() + "/matches?limit=2";
+
+        // When
+        while (url != null) {
+            entityManager.clear();
+            statistics.clear();
+            DocumentContext json = JsonPath.parse(mockMvc.perform(get(url)
+                    .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse().getContentAsString());
+
+            // Then
+            // start date of the last match of the previous page + the queries of the first page
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6L);
+            List<Object> ids = json.read("$.content[*].id");
+            ids.forEach(id -> assertThat(readMatches.add(id.toString())).isTrue());
+            List<String> next = json.read("$.links[?(@.rel=='next')].href");
+            url = next.isEmpty() ? null : next.get(0);
+        }
+        assertThat(readMatches.size()).isEqualTo(team.getMatches().size());
+    }
+
+    @Test
+    public void getLeagueTeamsDoesNotLoadTeamsOneByOne() throws Exception {
+        // league + teams of the league
+        assertThat(countStatements("/api/leagues/" + league.getId() + "/teams")).isLessThanOrEqualTo(2L);
+    }
+
+    @Test
+    public void getLeaguesUsesSingleQuery() throws Exception {
+        assertThat(countStatements("/api/leagues")).isLessThanOrEqualTo(1L);
+    }
+
+    @Test
+    public void getStadiumsUsesSingleQuery() throws Exception {
+        assertThat(countStatements("/api/stadiums")).isLessThanOrEqualTo(1L);
+    }
+}
@@ -57,6 +57,8 @@ public class TestUtils {
     public static Match buildMatch(Long id, Team teamA, Team teamB, League league, Stadium stadium) {
         Match testMatch = new Match(new Date(), teamA, teamB, league, stadium);
         testMatch.setId(id);
+        // Every saved match has a version
+        testMatch.setVersion(0L);
         testMatch.getTeamA().addMatch(testMatch);
         testMatch.getTeamB().addMatch(testMatch);
         return testMatch;
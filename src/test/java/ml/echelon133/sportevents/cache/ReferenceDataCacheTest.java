@@ -0,0 +1,149 @@
+package ml.echelon133.sportevents.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class ReferenceDataCacheTest {
+
+    private static final Instant NOW = Instant.parse("2018-10-20T12:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReferenceDataCache<String> cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ReferenceDataCache<>("test", meterRegistry, 3, 60);
+        cache.setClock(Clock.fixed(NOW, ZoneId.of("UTC")));
+        loads = new AtomicInteger();
+    }
+
+    @After
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private String load(Long id) {
+        loads.incrementAndGet();
+        return "Entity " + id;
+    }
+
+    private double counter(String name, String... tags) {
+        return meterRegistry.get(name).tags(tags).counter().count();
+    }
+
+    @Test
+    public void getLoadsEntityOnlyOnce() throws Exception {
+        // When
+        cache.get(1L, this::load);
+        String entity = cache.get(1L, this::load);
+
+        // Then
+        assertThat(entity).isEqualTo("Entity 1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(counter("reference.cache.hits", "cache", "test")).isEqualTo(1.0);
+        assertThat(counter("reference.cache.misses", "cache", "test")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("reference.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("reference.cache.load").timer().count()).isEqualTo(1L);
+    }
+
+    @Test(expected = ResourceDoesNotExistException.class)
+    public void getDoesNotCacheMissingEntities() throws Exception {
+        try {
+            cache.get(1L, id -> {
+                throw new ResourceDoesNotExistException("Entity with this id does not exist");
+            });
+        } finally {
+            assertThat(cache.size()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void oldestEntityIsEvictedWhenCacheIsFull() throws Exception {
+        // Given
+        for (long id = 1; id <= 4; id++) {
+            cache.get(id, this::load);
+        }
+
+        // When
+        cache.get(1L, this::load);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(5);
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(counter("reference.cache.evictions", "cache", "test", "cause", "size")).isEqualTo(2.0);
+    }
+
+    @Test
+    public void entityExpiresAfterTtl() throws Exception {
+        // Given
+        cache.get(1L, this::load);
+
+        // When
+        cache.setClock(Clock.fixed(NOW.plusSeconds(61), ZoneId.of("UTC")));
+        cache.get(1L, this::load);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(counter("reference.cache.evictions", "cache", "test", "cause", "expired")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void entityInvalidatedDuringLoadIsNotCached() throws Exception {
+        // When
+        cache.get(1L, id -> {
+            // ex. the entity was replaced by another request while this one was reading it
+            cache.invalidate(id);
+            return load(id);
+        });
+        cache.get(1L, this::load);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidateAfterCommitInvalidatesEntityOnceMoreAfterCommit() throws Exception {
+        // Given
+        cache.get(1L, this::load);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cache.invalidateAfterCommit(1L);
+        // another request reads the entity before the change is committed
+        cache.get(1L, this::load);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cache.get(1L, this::load);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidateAllRemovesAllEntities() throws Exception {
+        // Given
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+
+        // When
+        cache.invalidateAll();
+
+        // Then
+        assertThat(cache.size()).isEqualTo(0);
+    }
+}
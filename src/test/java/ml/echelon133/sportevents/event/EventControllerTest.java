@@ -3,17 +3,23 @@ package ml.echelon133.sportevents.event;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.event.types.*;
 import ml.echelon133.sportevents.event.types.dto.*;
 import ml.echelon133.sportevents.exception.APIExceptionHandler;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.FinishedMatchResponseCache;
 import ml.echelon133.sportevents.match.Match;
 import ml.echelon133.sportevents.match.MatchService;
+import ml.echelon133.sportevents.match.MatchVersionCache;
+import ml.echelon133.sportevents.websocket.MatchEventStreams;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.json.JsonContent;
@@ -21,22 +27,34 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EventControllerTest {
@@ -62,6 +80,27 @@ public class EventControllerTest {
     @Mock
     private EventService eventService;
 
+    // Real lanes, so that tasks submitted by the controller are actually executed
+    @Spy
+    private MatchEventLanes eventLanes = new MatchEventLanes(mock(PlatformTransactionManager.class),
+                                                             new SimpleMeterRegistry(), 16, 1, 3);
+
+    @Spy
+    private EventDeduplicationCache deduplicationCache = new EventDeduplicationCache(new SimpleMeterRegistry(), 100, 60);
+
+    @Spy
+    private MatchVersionCache versionCache = new MatchVersionCache(new SimpleMeterRegistry(),
+                                                                   new ReferenceDataVersion());
+
+    @Spy
+    private EventPollRegistry pollRegistry = new EventPollRegistry(new SimpleMeterRegistry(), 25);
+
+    @Spy
+    private MatchEventStreams eventStreams = new MatchEventStreams(new SimpleMeterRegistry(), 60, 1, 10, 16);
+
+    @Mock
+    private FinishedMatchResponseCache responseCache;
+
     @InjectMocks
     private EventController eventController;
 
@@ -83,7 +122,8 @@ public class EventControllerTest {
         mockMvc = MockMvcBuilders
                 .standaloneSetup(eventController)
                 .setControllerAdvice(exceptionHandler)
-                .setMessageConverters(converter)
+                // String converter writes the 'id:' and 'data:' lines of Server-Sent Events
+                .setMessageConverters(new StringHttpMessageConverter(), converter)
                 .build();
     }
 
@@ -172,6 +212,292 @@ public class EventControllerTest {
         assertThat(json.read("$[3].cardColor").toString()).isEqualTo(event4.getCardColor().toString());
     }
 
+    private static List<AbstractMatchEvent> buildStandardEvents(Match match, long firstId, int count) {
+        List<AbstractMatchEvent> events = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            StandardEvent event = new StandardEvent(id, "Test msg", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+            event.setId(id);
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Test
+    public void getEventsReturnsVersionOfMatchAsETag() throws Exception {
+        Match match = getRandomMatch(1L);
+        match.setVersion(7L);
+
+        // Given
+        given(matchService.findById(1L)).willReturn(match);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader("ETag")).isEqualTo("\"7-0\"");
+        assertThat(versionCache.getETag(1L).get()).isEqualTo("\"7-0\"");
+    }
+
+    @Test
+    public void getEventsReturnsNotModifiedWithoutLoadingMatch() throws Exception {
+        // Given
+        versionCache.putVersion(1L, 7L);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events")
+                .header("If-None-Match", "\"7-0\""))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getContentAsString()).isEmpty();
+        verify(matchService, times(0)).findById(anyLong());
+    }
+
+    @Test
+    public void getEventsReturnsEventsWhenVersionChanged() throws Exception {
+        Match match = getRandomMatch(1L);
+        match.setVersion(8L);
+
+        // Given
+        versionCache.putVersion(1L, 8L);
+        given(matchService.findById(1L)).willReturn(match);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events")
+                .header("If-None-Match", "\"7-0\""))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader("ETag")).isEqualTo("\"8-0\"");
+    }
+
+    @Test
+    public void getEventsAfterReturnsNotModifiedWithoutReadingEvents() throws Exception {
+        // Given
+        versionCache.putVersion(1L, 3L);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events?afterId=5")
+                .header("If-None-Match", "\"3-0\""))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(matchService, times(0)).findByIdForReading(anyLong());
+        verify(eventService, times(0)).findEventsAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void getEventsAfterReturnsPageWithNextCursor() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(match);
+        // controller asks for one event more than the limit
+        given(eventService.findEventsAfter(1L, 5L, 3)).willReturn(buildStandardEvents(match, 6L, 3));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events?afterId=5&limit=2"))
+                .andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.events.length()").toString()).isEqualTo("2");
+        assertThat(json.read("$.events[0].id").toString()).isEqualTo("6");
+        assertThat(json.read("$.events[1].id").toString()).isEqualTo("7");
+        assertThat(json.read("$.nextCursor").toString()).isEqualTo("7");
+        assertThat(json.read("$.hasMore").toString()).isEqualTo("true");
+    }
+
+    @Test
+    public void getEventsAfterReturnsSameCursorWhenThereAreNoNewEvents() throws Exception {
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(getRandomMatch(1L));
+        given(eventService.findEventsAfter(1L, 9L, 101)).willReturn(Collections.emptyList());
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events?afterId=9"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).isEqualTo("{\"events\":[],\"nextCursor\":9,\"hasMore\":false}");
+    }
+
+    @Test
+    public void getEventsAfterLimitsPageSize() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(match);
+        given(eventService.findEventsAfter(1L, 0L, 501)).willReturn(buildStandardEvents(match, 1L, 20));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events?afterId=0&limit=100000"))
+                .andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.nextCursor").toString()).isEqualTo("20");
+        assertThat(json.read("$.hasMore").toString()).isEqualTo("false");
+    }
+
+    @Test
+    public void getEventsAfterReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
+        // Given
+        given(matchService.findByIdForReading(anyLong())).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events?afterId=0"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(response.getContentAsString()).contains("Match with this id does not exist");
+    }
+
+    @Test
+    public void pollEventsReturnsExistingEventsWithoutWaiting() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(match);
+        given(eventService.findEventsAfter(1L, 5L, 101)).willReturn(buildStandardEvents(match, 6L, 2));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/matches/1/events/poll?afterId=5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.events.length()").toString()).isEqualTo("2");
+        assertThat(json.read("$.nextCursor").toString()).isEqualTo("7");
+        assertThat(pollRegistry.getWaitingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void pollEventsWaitsUntilNewEventsAreProcessed() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(match);
+        given(eventService.findEventsAfter(1L, 5L, 101)).willReturn(Collections.emptyList());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/matches/1/events/poll?afterId=5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        int waitingBeforeNotification = pollRegistry.getWaitingCount();
+        pollRegistry.notifyWaiters(1L, buildStandardEvents(match, 5L, 3));
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+        assertThat(waitingBeforeNotification).isEqualTo(1);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.events.length()").toString()).isEqualTo("2");
+        assertThat(json.read("$.events[0].id").toString()).isEqualTo("6");
+        assertThat(json.read("$.nextCursor").toString()).isEqualTo("7");
+    }
+
+    @Test
+    public void pollEventsReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
+        // Given
+        given(matchService.findByIdForReading(anyLong())).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/events/poll?afterId=0"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(pollRegistry.getWaitingCount()).isEqualTo(0);
+    }
+
+    // New events are written to streams by writer threads of MatchEventStreams
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 1000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    @Test
+    public void streamEventsSendsNewEventsWithTheirIds() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(match);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/matches/1/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        buildStandardEvents(match, 6L, 2).forEach(e -> eventStreams.send(1L, e));
+
+        // Then
+        String content = awaitContent(result, "id:7");
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(content).contains("id:6\ndata:{");
+        assertThat(content.indexOf("id:6")).isLessThan(content.indexOf("id:7"));
+        verify(eventService, times(0)).findEventsAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void streamEventsReplaysEventsAfterLastEventIdBeforeNewOnes() throws Exception {
+        Match match = getRandomMatch(1L);
+        List<AbstractMatchEvent> events = buildStandardEvents(match, 6L, 3);
+
+        // Given
+        given(matchService.findByIdForReading(1L)).willReturn(match);
+        given(eventService.findEventsAfter(1L, 5L, 500)).willAnswer(invocation -> {
+            // events broadcast while saved events are read, one of them is also read from the database
+            eventStreams.send(1L, events.get(1));
+            eventStreams.send(1L, events.get(2));
+            return events.subList(0, 2);
+        });
+        given(eventService.findEventsAfter(1L, 7L, 500)).willReturn(Collections.emptyList());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/matches/1/stream").header("Last-Event-ID", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String content = result.getResponse().getContentAsString();
+        assertThat(content.indexOf("id:6")).isLessThan(content.indexOf("id:7"));
+        assertThat(content.indexOf("id:7")).isLessThan(content.indexOf("id:8"));
+        assertThat(content.indexOf("id:7")).isEqualTo(content.lastIndexOf("id:7"));
+        assertThat(content).doesNotContain("id:5");
+    }
+
+    @Test
+    public void streamEventsReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
+        // Given
+        given(matchService.findByIdForReading(anyLong())).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1/stream"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(eventStreams.getOpenCount()).isEqualTo(0);
+    }
+
     @Test
     public void receiveEventManagingEventDtoNullFieldsAreValidated() throws Exception {
         MatchEventDto matchEventDto = new ManagingEventDto(null, null, "START_FIRST_HALF");
@@ -393,4 +719,254 @@ public class EventControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
         assertThat(response.getContentAsString()).isEqualTo("{\"eventProcessed\":false}");
     }
+
+    @Test
+    public void receiveEventWithRepeatedIdempotencyKeyIsProcessedOnlyOnce() throws Exception {
+        MatchEventDto matchEventDto = new GoalEventDto(10L, "Test", "GOAL", 1L, "Test player");
+        JsonContent<MatchEventDto> jsonContent = jsonMatchEventDto.write(matchEventDto);
+
+        Match match = getRandomMatch(10L);
+
+        AbstractMatchEvent matchEvent = new GoalEvent(10L, "Test", AbstractMatchEvent.EventType.GOAL, match,
+                                                      match.getTeamA(), "Test player");
+
+        // Given
+        given(matchService.findById(10L)).willReturn(match);
+        given(eventService.convertEventDtoToEntity(any(MatchEventDto.class), any(Match.class))).willReturn(matchEvent);
+        given(eventService.processEvent(matchEvent)).willReturn(true);
+
+        // When
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 3; i++) {
+            response = mockMvc.perform(
+                    post("/api/matches/10/events")
+                            .header("Idempotency-Key", "goal-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonContent.getJson())
+                            .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+        }
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).isEqualTo("{\"eventProcessed\":true}");
+        verify(eventService, times(1)).processEvent(matchEvent);
+    }
+
+    @Test
+    public void receiveEventUsesEventKeyFromBodyAndScopesItToMatch() throws Exception {
+        MatchEventDto matchEventDto = new ManagingEventDto(1L, "Test", "START_FIRST_HALF");
+        matchEventDto.setEventKey("start-1");
+        JsonContent<MatchEventDto> jsonContent = jsonMatchEventDto.write(matchEventDto);
+
+        Match match = getRandomMatch(10L);
+
+        AbstractMatchEvent matchEvent = new ManagingEvent(matchEventDto.getTime(), matchEventDto.getMessage(),
+                                                          AbstractMatchEvent.EventType.START_FIRST_HALF, match);
+
+        // Given
+        given(matchService.findById(anyLong())).willReturn(match);
+        given(eventService.convertEventDtoToEntity(any(MatchEventDto.class), any(Match.class))).willReturn(matchEvent);
+        given(eventService.processEvent(matchEvent)).willReturn(true);
+
+        // When
+        mockMvc.perform(post("/api/matches/10/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonContent.getJson())).andReturn();
+        mockMvc.perform(post("/api/matches/10/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonContent.getJson())).andReturn();
+        mockMvc.perform(post("/api/matches/11/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonContent.getJson())).andReturn();
+
+        // Then
+        verify(eventService, times(2)).processEvent(matchEvent);
+    }
+
+    @Test
+    public void receiveEventWithoutIdempotencyKeyIsAlwaysProcessed() throws Exception {
+        MatchEventDto matchEventDto = new StandardEventDto(5L, "Test", "STANDARD_DESCRIPTION");
+        JsonContent<MatchEventDto> jsonContent = jsonMatchEventDto.write(matchEventDto);
+
+        Match match = getRandomMatch(10L);
+
+        AbstractMatchEvent matchEvent = new StandardEvent(5L, "Test", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+
+        // Given
+        given(matchService.findById(10L)).willReturn(match);
+        given(eventService.convertEventDtoToEntity(any(MatchEventDto.class), any(Match.class))).willReturn(matchEvent);
+        given(eventService.processEvent(matchEvent)).willReturn(true);
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/matches/10/events")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonContent.getJson())).andReturn();
+        }
+
+        // Then
+        verify(eventService, times(2)).processEvent(matchEvent);
+    }
+
+    @Test
+    public void receiveEventBatchReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
+        // Given
+        given(matchService.findById(1L)).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                post("/api/matches/1/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(response.getContentAsString()).contains("Match with this id does not exist");
+    }
+
+    @Test
+    public void receiveEventBatchDeserializesEventsInOrderAndReturnsResultsByIndex() throws Exception {
+        String batchJson = "[" +
+                jsonMatchEventDto.write(new ManagingEventDto(1L, "Test", "START_FIRST_HALF")).getJson() + "," +
+                jsonMatchEventDto.write(new GoalEventDto(10L, "Goal", "GOAL", 5L, "Test player")).getJson() + "," +
+                jsonMatchEventDto.write(new CardEventDto(12L, "Card", "CARD", "Test player", "RED")).getJson() +
+                "]";
+
+        Match match = getRandomMatch(10L);
+
+        List<ProcessedEventResult> results = Arrays.asList(
+                ProcessedEventResult.accepted(0, true),
+                ProcessedEventResult.rejected(1, "None of the teams playing in this match have ID equal to 5"),
+                ProcessedEventResult.accepted(2, true));
+
+        // Given
+        given(matchService.findById(10L)).willReturn(match);
+        given(eventService.processEvents(any(Match.class), argThat(
+                arg -> arg.size() == 3 &&
+                       arg.get(0) instanceof ManagingEventDto &&
+                       arg.get(1) instanceof GoalEventDto &&
+                       arg.get(2) instanceof CardEventDto
+        ))).willReturn(results);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                post("/api/matches/10/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchJson)
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$[0].index").toString()).isEqualTo("0");
+        assertThat(json.read("$[0].eventProcessed").toString()).isEqualTo("true");
+        assertThat(json.read("$[1].index").toString()).isEqualTo("1");
+        assertThat(json.read("$[1].eventProcessed").toString()).isEqualTo("false");
+        assertThat(json.read("$[1].messages[0]").toString())
+                .isEqualTo("None of the teams playing in this match have ID equal to 5");
+        assertThat(json.read("$[2].index").toString()).isEqualTo("2");
+        assertThat(json.read("$[2].eventProcessed").toString()).isEqualTo("true");
+    }
+
+    @Test
+    public void receiveEventBatchAcceptsEmptyBatch() throws Exception {
+        Match match = getRandomMatch(10L);
+
+        // Given
+        given(matchService.findById(10L)).willReturn(match);
+        given(eventService.processEvents(any(Match.class), anyList())).willReturn(Collections.emptyList());
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                post("/api/matches/10/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    public void receiveEventRejectsTooLongIdempotencyKey() throws Exception {
+        MatchEventDto matchEventDto = new StandardEventDto(5L, "Test", "STANDARD_DESCRIPTION");
+        JsonContent<MatchEventDto> jsonContent = jsonMatchEventDto.write(matchEventDto);
+        char[] key = new char[129];
+        Arrays.fill(key, 'k');
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                post("/api/matches/10/events")
+                        .header("Idempotency-Key", new String(key))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonContent.getJson())
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(response.getContentAsString()).contains("Idempotency-Key validation error");
+        verify(eventService, times(0)).processEvent(any());
+    }
+
+    @Test
+    public void receiveEventBatchRejectsIdempotencyKeyHeader() throws Exception {
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                post("/api/matches/10/events/batch")
+                        .header("Idempotency-Key", "batch-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(response.getContentAsString()).contains("eventKey");
+        verify(eventService, times(0)).processEvents(any(), anyList());
+    }
+
+    @Test
+    public void receiveEventBatchProcessesEventsWithRepeatedEventKeyOnlyOnce() throws Exception {
+        MatchEventDto start = new ManagingEventDto(1L, "Test", "START_FIRST_HALF");
+        start.setEventKey("start-1");
+        MatchEventDto description = new StandardEventDto(5L, "Test", "STANDARD_DESCRIPTION");
+        description.setEventKey("description-1");
+        // the same event is sent twice in one batch
+        String batchJson = "[" +
+                jsonMatchEventDto.write(start).getJson() + "," +
+                jsonMatchEventDto.write(description).getJson() + "," +
+                jsonMatchEventDto.write(start).getJson() +
+                "]";
+
+        Match match = getRandomMatch(10L);
+
+        // Given
+        given(matchService.findById(10L)).willReturn(match);
+        given(eventService.processEvents(any(Match.class), argThat(arg -> arg.size() == 2)))
+                .willReturn(Arrays.asList(ProcessedEventResult.accepted(0, true), ProcessedEventResult.accepted(1, true)));
+        given(eventService.processEvents(any(Match.class), argThat(List::isEmpty))).willReturn(Collections.emptyList());
+
+        // When
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 2; i++) {
+            response = mockMvc.perform(
+                    post("/api/matches/10/events/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(batchJson)
+                            .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+        }
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        for (int i = 0; i < 3; i++) {
+            assertThat(json.read("$[" + i + "].index").toString()).isEqualTo(String.valueOf(i));
+            assertThat(json.read("$[" + i + "].eventProcessed").toString()).isEqualTo("true");
+        }
+        verify(eventService, times(1)).processEvents(any(Match.class), argThat(arg -> arg.size() == 2));
+        verify(eventService, times(1)).processEvents(any(Match.class), argThat(List::isEmpty));
+    }
 }
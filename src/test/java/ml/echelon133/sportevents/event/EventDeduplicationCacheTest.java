@@ -0,0 +1,116 @@
+package ml.echelon133.sportevents.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class EventDeduplicationCacheTest {
+
+    private static final Instant NOW = Instant.parse("2018-10-20T12:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventDeduplicationCache cache;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new EventDeduplicationCache(meterRegistry, 3, 60);
+        cache.setClock(Clock.fixed(NOW, ZoneId.of("UTC")));
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    public void getResultReturnsRememberedResult() {
+        // Given
+        cache.putResult(1L, "key", true);
+
+        // When
+        Optional<Boolean> result = cache.getResult(1L, "key");
+
+        // Then
+        assertThat(result.isPresent()).isTrue();
+        assertThat(result.get()).isTrue();
+        assertThat(counter("events.dedup.hits")).isEqualTo(1.0);
+        assertThat(counter("events.dedup.misses")).isEqualTo(0.0);
+    }
+
+    @Test
+    public void getResultScopesKeysToMatch() {
+        // Given
+        cache.putResult(1L, "key", true);
+
+        // When
+        Optional<Boolean> result = cache.getResult(2L, "key");
+
+        // Then
+        assertThat(result.isPresent()).isFalse();
+        assertThat(counter("events.dedup.misses")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void getResultDoesNotReturnExpiredResult() {
+        // Given
+        cache.putResult(1L, "key", true);
+        cache.setClock(Clock.fixed(NOW.plusSeconds(60), ZoneId.of("UTC")));
+
+        // When
+        Optional<Boolean> result = cache.getResult(1L, "key");
+
+        // Then
+        assertThat(result.isPresent()).isFalse();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void putResultEvictsOldestResultsWhenCacheIsFull() {
+        // When
+        for (long matchId = 1; matchId <= 5; matchId++) {
+            cache.putResult(matchId, "key", true);
+        }
+
+        // Then
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(counter("events.dedup.evictions")).isEqualTo(2.0);
+        assertThat(cache.getResult(1L, "key").isPresent()).isFalse();
+        assertThat(cache.getResult(2L, "key").isPresent()).isFalse();
+        assertThat(cache.getResult(3L, "key").isPresent()).isTrue();
+        assertThat(cache.getResult(5L, "key").isPresent()).isTrue();
+    }
+
+    @Test
+    public void putResultRemovesExpiredResults() {
+        // Given
+        cache.putResult(1L, "key", true);
+        cache.putResult(2L, "key", true);
+        cache.setClock(Clock.fixed(NOW.plusSeconds(61), ZoneId.of("UTC")));
+
+        // When
+        cache.putResult(3L, "key", false);
+
+        // Then
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(counter("events.dedup.evictions")).isEqualTo(0.0);
+        assertThat(cache.getResult(3L, "key").get()).isFalse();
+    }
+
+    @Test
+    public void putResultWithSameKeyReplacesResult() {
+        // When
+        cache.putResult(1L, "key", false);
+        cache.putResult(1L, "key", true);
+
+        // Then
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getResult(1L, "key").get()).isTrue();
+    }
+}
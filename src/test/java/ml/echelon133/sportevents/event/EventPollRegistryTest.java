@@ -0,0 +1,114 @@
+package ml.echelon133.sportevents.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.event.types.StandardEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class EventPollRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventPollRegistry pollRegistry;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        pollRegistry = new EventPollRegistry(meterRegistry, 25);
+    }
+
+    @After
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static List<AbstractMatchEvent> buildEvents(long firstId, int count) {
+        List<AbstractMatchEvent> events = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            StandardEvent event = new StandardEvent(id, "Test msg", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
+                                                    getRandomMatch(1L));
+            event.setId(id);
+            events.add(event);
+        }
+        return events;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventPage pageOf(DeferredResult<ResponseEntity<EventPage>> result) {
+        return ((ResponseEntity<EventPage>) result.getResult()).getBody();
+    }
+
+    @Test
+    public void notifyWaitersCompletesOnlyWaitersOfThatMatch() {
+        // Given
+        DeferredResult<ResponseEntity<EventPage>> match1 = pollRegistry.register(1L, 0L, 10);
+        DeferredResult<ResponseEntity<EventPage>> match2 = pollRegistry.register(2L, 0L, 10);
+
+        // When
+        pollRegistry.notifyWaiters(1L, buildEvents(1L, 2));
+
+        // Then
+        assertThat(match1.hasResult()).isTrue();
+        assertThat(match2.hasResult()).isFalse();
+        assertThat(pageOf(match1).getEvents().size()).isEqualTo(2);
+        assertThat(pageOf(match1).getNextCursor()).isEqualTo(2L);
+        assertThat(meterRegistry.get("events.poll.woken").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void notifyWaitersSkipsEventsClientAlreadyHas() {
+        // Given
+        DeferredResult<ResponseEntity<EventPage>> upToDate = pollRegistry.register(1L, 5L, 10);
+        DeferredResult<ResponseEntity<EventPage>> behind = pollRegistry.register(1L, 3L, 1);
+
+        // When
+        pollRegistry.notifyWaiters(1L, buildEvents(4L, 2));
+
+        // Then
+        assertThat(upToDate.hasResult()).isFalse();
+        assertThat(behind.hasResult()).isTrue();
+        assertThat(pageOf(behind).getEvents().get(0).getId()).isEqualTo(4L);
+        assertThat(pageOf(behind).getNextCursor()).isEqualTo(4L);
+        assertThat(pageOf(behind).isHasMore()).isTrue();
+    }
+
+    @Test
+    public void notifyAfterCommitWaitsForCommit() {
+        // Given
+        DeferredResult<ResponseEntity<EventPage>> result = pollRegistry.register(1L, 0L, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        pollRegistry.notifyAfterCommit(1L, buildEvents(1L, 1));
+        boolean completedBeforeCommit = result.hasResult();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(completedBeforeCommit).isFalse();
+        assertThat(result.hasResult()).isTrue();
+    }
+
+    @Test
+    public void registerCountsWaitingRequests() {
+        // When
+        pollRegistry.register(1L, 0L, 10);
+        pollRegistry.register(1L, 0L, 10);
+
+        // Then
+        assertThat(pollRegistry.getWaitingCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("events.poll.waiting").gauge().value()).isEqualTo(2.0);
+    }
+}
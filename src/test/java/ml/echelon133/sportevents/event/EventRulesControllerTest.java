@@ -0,0 +1,65 @@
+package ml.echelon133.sportevents.event;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class EventRulesControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new EventRulesController()).build();
+    }
+
+    @Test
+    public void getEventRulesReturnsAllowedEventTypesOfEveryStatus() throws Exception {
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/event-rules")).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        List<String> notStarted = json.read("$.allowedEventTypes.NOT_STARTED");
+        assertThat(notStarted.size()).isEqualTo(2);
+        assertThat(notStarted.contains("START_FIRST_HALF")).isTrue();
+        assertThat(notStarted.contains("STANDARD_DESCRIPTION")).isTrue();
+
+        List<String> penalties = json.read("$.allowedEventTypes.PENALTIES");
+        assertThat(penalties.size()).isEqualTo(2);
+        assertThat(penalties.contains("PENALTY")).isTrue();
+        assertThat(penalties.contains("FINISH_MATCH")).isTrue();
+
+        List<String> finished = json.read("$.allowedEventTypes.FINISHED");
+        assertThat(finished.size()).isEqualTo(1);
+        assertThat(finished.contains("STANDARD_DESCRIPTION")).isTrue();
+    }
+
+    @Test
+    public void getEventRulesReturnsStatusTransitions() throws Exception {
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/event-rules")).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(json.read("$.statusTransitions.START_FIRST_HALF").toString()).isEqualTo("FIRST_HALF");
+        assertThat(json.read("$.statusTransitions.FINISH_FIRST_HALF").toString()).isEqualTo("BREAK_TIME");
+        assertThat(json.read("$.statusTransitions.FINISH_OT_SECOND_HALF").toString()).isEqualTo("PENALTIES");
+        assertThat(json.read("$.statusTransitions.FINISH_MATCH").toString()).isEqualTo("FINISHED");
+        assertThat(response.getContentAsString()).doesNotContain("GOAL\":");
+    }
+}
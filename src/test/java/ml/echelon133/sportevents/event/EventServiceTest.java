@@ -3,20 +3,34 @@ package ml.echelon133.sportevents.event;
 import ml.echelon133.sportevents.event.types.*;
 import ml.echelon133.sportevents.event.types.dto.*;
 import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.match.LiveMatchStore;
 import ml.echelon133.sportevents.match.Match;
 import ml.echelon133.sportevents.match.MatchService;
+import ml.echelon133.sportevents.rebuild.MatchRebuildService;
 import ml.echelon133.sportevents.team.Team;
 import ml.echelon133.sportevents.websocket.WebSocketEventService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import javax.validation.Validation;
+import javax.validation.Validator;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EventServiceTest {
@@ -27,6 +41,21 @@ public class EventServiceTest {
     @Mock
     private WebSocketEventService webSocketEventService;
 
+    @Mock
+    private MatchEventRepository eventRepository;
+
+    @Mock
+    private MatchRebuildService rebuildService;
+
+    @Mock
+    private EventPollRegistry pollRegistry;
+
+    @Mock
+    private LiveMatchStore liveMatchStore;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private EventServiceImpl eventService;
 
@@ -623,4 +652,167 @@ public class EventServiceTest {
         // Then
         assertThat(testMatch.getStatus()).isEqualTo(Match.Status.FINISHED);
     }
+
+    @Test
+    public void processEventsAppliesEventsInOrderAndSavesMatchOnce() throws Exception {
+        Match testMatch = getTestMatch();
+
+        List<MatchEventDto> eventDtos = Arrays.asList(
+                new ManagingEventDto(1L, "Test", "START_FIRST_HALF"),
+                new GoalEventDto(10L, "Test", "GOAL", testMatch.getTeamA().getId(), "Test player"),
+                new GoalEventDto(20L, "Test", "GOAL", testMatch.getTeamB().getId(), "Test player2"),
+                new ManagingEventDto(45L, "Test", "FINISH_FIRST_HALF"));
+
+        // Given
+        given(matchService.save(testMatch)).willReturn(testMatch);
+
+        // When
+        List<ProcessedEventResult> results = eventService.processEvents(testMatch, eventDtos);
+
+        // Then
+        assertThat(results.size()).isEqualTo(4);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).getIndex()).isEqualTo(i);
+            assertThat(results.get(i).isEventProcessed()).isTrue();
+            assertThat(results.get(i).getMessages()).isNull();
+        }
+        assertThat(testMatch.getStatus()).isEqualTo(Match.Status.BREAK_TIME);
+        assertThat(testMatch.getResult().getTeamAGoals()).isEqualTo(1L);
+        assertThat(testMatch.getResult().getTeamBGoals()).isEqualTo(1L);
+        verify(matchService, times(1)).save(testMatch);
+        verify(eventRepository, times(1)).saveAll(anyList());
+        verify(rebuildService, times(1)).takeSnapshotIfDue(testMatch, 0L);
+        verify(webSocketEventService, times(4)).sendEventOverWebSocket(any(), any(AbstractMatchEvent.class));
+    }
+
+    @Test
+    public void processEventsReportsRejectedEventsByIndex() throws Exception {
+        Match testMatch = getTestMatch();
+
+        List<MatchEventDto> eventDtos = Arrays.asList(
+                // GOAL cannot be sent before the match is started
+                new GoalEventDto(10L, "Test", "GOAL", testMatch.getTeamA().getId(), "Test player"),
+                new ManagingEventDto(1L, "Test", "START_FIRST_HALF"),
+                // invalid time and missing message
+                new StandardEventDto(200L, null, "STANDARD_DESCRIPTION"),
+                // team with this id does not play in this match
+                new PenaltyEventDto(10L, "Test", "PENALTY", 1000L),
+                null,
+                new GoalEventDto(11L, "Test", "GOAL", testMatch.getTeamB().getId(), "Test player"));
+
+        // Given
+        given(matchService.save(testMatch)).willReturn(testMatch);
+
+        // When
+        List<ProcessedEventResult> results = eventService.processEvents(testMatch, eventDtos);
+
+        // Then
+        assertThat(results.size()).isEqualTo(6);
+        assertThat(results.get(0).isEventProcessed()).isFalse();
+        assertThat(results.get(0).getMessages().get(0)).contains("Cannot send events of type GOAL");
+        assertThat(results.get(1).isEventProcessed()).isTrue();
+        assertThat(results.get(2).isEventProcessed()).isFalse();
+        assertThat(results.get(2).getMessages().contains("message validation error: must not be null")).isTrue();
+        assertThat(results.get(2).getMessages().contains("time validation error: must be between 1 and 120")).isTrue();
+        assertThat(results.get(3).isEventProcessed()).isFalse();
+        assertThat(results.get(3).getMessages().get(0)).contains("None of the teams playing in this match have ID equal to 1000");
+        assertThat(results.get(4).isEventProcessed()).isFalse();
+        assertThat(results.get(4).getMessages().contains("Event cannot be null")).isTrue();
+        assertThat(results.get(5).isEventProcessed()).isTrue();
+
+        assertThat(testMatch.getStatus()).isEqualTo(Match.Status.FIRST_HALF);
+        assertThat(testMatch.getResult().getTeamAGoals()).isEqualTo(0L);
+        assertThat(testMatch.getResult().getTeamBGoals()).isEqualTo(1L);
+        verify(matchService, times(1)).save(testMatch);
+        verify(webSocketEventService, times(2)).sendEventOverWebSocket(any(), any(AbstractMatchEvent.class));
+    }
+
+    @Test
+    public void importEventsSavesEventsWithoutNotifyingClients() throws Exception {
+        Match testMatch = getTestMatch();
+
+        List<MatchEventDto> eventDtos = Arrays.asList(
+                new ManagingEventDto(1L, "Test", "START_FIRST_HALF"),
+                new StandardEventDto(5L, "Test", "STANDARD_DESCRIPTION"));
+
+        // Given
+        given(matchService.save(testMatch)).willReturn(testMatch);
+
+        // When
+        List<ProcessedEventResult> results = eventService.importEvents(testMatch, eventDtos);
+
+        // Then
+        assertThat(results.get(0).isEventProcessed()).isTrue();
+        assertThat(results.get(1).isEventProcessed()).isTrue();
+        assertThat(testMatch.getStatus()).isEqualTo(Match.Status.FIRST_HALF);
+        verify(eventRepository, times(1)).saveAll(anyList());
+        verify(matchService, times(1)).save(testMatch);
+        verify(webSocketEventService, times(0)).sendEventOverWebSocket(any(), any(AbstractMatchEvent.class));
+        verify(pollRegistry, times(0)).notifyAfterCommit(any(), anyList());
+    }
+
+    @Test
+    public void processEventsDoesNotSaveMatchWhenAllEventsAreRejected() throws Exception {
+        Match testMatch = getTestMatch();
+
+        List<MatchEventDto> eventDtos = Collections.singletonList(
+                new ManagingEventDto(45L, "Test", "FINISH_FIRST_HALF"));
+
+        // When
+        List<ProcessedEventResult> results = eventService.processEvents(testMatch, eventDtos);
+
+        // Then
+        assertThat(results.size()).isEqualTo(1);
+        assertThat(results.get(0).isEventProcessed()).isFalse();
+        verify(matchService, times(0)).save(any());
+        verify(webSocketEventService, times(0)).sendEventOverWebSocket(anyString(), any(AbstractMatchEvent.class));
+    }
+
+    @Test
+    public void findEventsAfterReadsFirstPageOfEventsAfterCursor() {
+        // When
+        eventService.findEventsAfter(1L, 40L, 25);
+
+        // Then
+        verify(eventRepository, times(1)).findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(
+                eq(1L), eq(40L), argThat(p -> p.getPageNumber() == 0 && p.getPageSize() == 25));
+    }
+
+    @Test
+    public void processEventSavesEventSeparatelyFromMatch() throws Exception {
+        Match testMatch = getTestMatch();
+        testMatch.setEventCount(999L);
+
+        AbstractMatchEvent matchEvent = new ManagingEvent(1L, "Test",
+                                                          AbstractMatchEvent.EventType.START_FIRST_HALF, testMatch);
+
+        // Given
+        given(matchService.save(testMatch)).willReturn(testMatch);
+
+        // When
+        eventService.processEvent(matchEvent);
+
+        // Then
+        assertThat(matchEvent.getMatch()).isEqualTo(testMatch);
+        assertThat(testMatch.getEventCount()).isEqualTo(1000L);
+        verify(eventRepository, times(1)).save(matchEvent);
+        verify(matchService, times(1)).save(testMatch);
+    }
+
+    @Test
+    public void processEventNotifiesWaitingPollRequests() throws Exception {
+        Match testMatch = getTestMatch();
+
+        AbstractMatchEvent matchEvent = new ManagingEvent(1L, "Test",
+                                                          AbstractMatchEvent.EventType.START_FIRST_HALF, testMatch);
+
+        // Given
+        given(matchService.save(testMatch)).willReturn(testMatch);
+
+        // When
+        eventService.processEvent(matchEvent);
+
+        // Then
+        verify(pollRegistry, times(1)).notifyAfterCommit(testMatch.getId(), Collections.singletonList(matchEvent));
+    }
 }
@@ -0,0 +1,223 @@
+package ml.echelon133.sportevents.event;
+
+import ml.echelon133.sportevents.event.types.*;
+import ml.echelon133.sportevents.league.League;
+import ml.echelon133.sportevents.match.GoalInfo;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.stadium.Stadium;
+import ml.echelon133.sportevents.team.Team;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.spi.CascadingActions;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.SingleTableSubclass;
+import org.hibernate.mapping.Table;
+import org.hibernate.mapping.UnionSubclass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class EventStorageMappingTest {
+
+    private StandardServiceRegistry registry;
+
+    @Before
+    public void setup() {
+        // Metadata is built without connecting to a database
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect")
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .build();
+    }
+
+    @After
+    public void teardown() {
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    private Metadata buildMetadata(String... mappingResources) {
+        MetadataSources sources = new MetadataSources(registry)
+                .addAnnotatedClass(League.class)
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Stadium.class)
+                .addAnnotatedClass(Match.class)
+                .addAnnotatedClass(GoalInfo.class)
+                .addAnnotatedClass(AbstractMatchEvent.class)
+                .addAnnotatedClass(StandardEvent.class)
+                .addAnnotatedClass(ManagingEvent.class)
+                .addAnnotatedClass(GoalEvent.class)
+                .addAnnotatedClass(PenaltyEvent.class)
+                .addAnnotatedClass(CardEvent.class)
+                .addAnnotatedClass(SubstitutionEvent.class);
+        for (String resource : mappingResources) {
+            sources.addResource(resource);
+        }
+        return sources.buildMetadata();
+    }
+
+    // Session factory of a single application instance, which uses a shared in-memory database
+    private SessionFactory buildInstance(StandardServiceRegistry instanceRegistry) {
+        return new MetadataSources(instanceRegistry)
+                .addAnnotatedClass(League.class)
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Stadium.class)
+                .addAnnotatedClass(Match.class)
+                .addAnnotatedClass(GoalInfo.class)
+                .addAnnotatedClass(AbstractMatchEvent.class)
+                .addAnnotatedClass(StandardEvent.class)
+                .addAnnotatedClass(ManagingEvent.class)
+                .addAnnotatedClass(GoalEvent.class)
+                .addAnnotatedClass(PenaltyEvent.class)
+                .addAnnotatedClass(CardEvent.class)
+                .addAnnotatedClass(SubstitutionEvent.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    private StandardServiceRegistry buildInstanceRegistry(String schemaAction) {
+        return new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:event_ids;DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.driver_class", "org.h2.Driver")
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.hbm2ddl.auto", schemaAction)
+                .applySetting("hibernate.id.new_generator_mappings", "true")
+                .build();
+    }
+
+    private Long saveEvent(SessionFactory instance, Long matchId) {
+        try (Session session = instance.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            Match match = session.get(Match.class, matchId);
+            AbstractMatchEvent event = new StandardEvent(10L, "Test",
+                                                         AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+            session.persist(event);
+            transaction.commit();
+            return event.getId();
+        }
+    }
+
+    @Test
+    public void eventsUseTablePerClassByDefault() {
+        // When
+        Metadata metadata = buildMetadata();
+
+        // Then
+        PersistentClass goalEvent = metadata.getEntityBinding(GoalEvent.class.getName());
+        assertThat(goalEvent).isInstanceOf(UnionSubclass.class);
+        assertThat(goalEvent.getTable().getName()).isEqualTo("GoalEvent");
+    }
+
+    @Test
+    public void singleTableMappingStoresAllEventsInOneTable() {
+        // When
+        Metadata metadata = buildMetadata("META-INF/single-table-events.xml");
+
+        // Then
+        PersistentClass root = metadata.getEntityBinding(AbstractMatchEvent.class.getName());
+        assertThat(root.getTable().getName()).isEqualTo("match_event");
+        assertThat(root.getDiscriminator().getColumnIterator().next().getText()).isEqualTo("kind");
+
+        String[][] expectedDiscriminators = {
+                {ManagingEvent.class.getName(), "M"},
+                {GoalEvent.class.getName(), "G"},
+                {PenaltyEvent.class.getName(), "P"},
+                {CardEvent.class.getName(), "C"},
+                {SubstitutionEvent.class.getName(), "S"},
+                {StandardEvent.class.getName(), "D"}
+        };
+        for (String[] expected : expectedDiscriminators) {
+            PersistentClass subclass = metadata.getEntityBinding(expected[0]);
+            assertThat(subclass).isInstanceOf(SingleTableSubclass.class);
+            assertThat(subclass.getTable().getName()).isEqualTo("match_event");
+            assertThat(subclass.getDiscriminatorValue()).isEqualTo(expected[1]);
+        }
+    }
+
+    @Test
+    public void singleTableMappingAllowsEmptyColumnsOfOtherEventTypes() {
+        // When
+        Metadata metadata = buildMetadata("META-INF/single-table-events.xml");
+
+        // Then
+        Table table = metadata.getEntityBinding(AbstractMatchEvent.class.getName()).getTable();
+        assertThat(table.getColumn(new Column("team_id")).isNullable()).isTrue();
+        assertThat(table.getColumn(new Column("teamScored_id")).isNullable()).isTrue();
+        assertThat(table.getColumn(new Column("match_id")).isNullable()).isFalse();
+
+        PersistentClass goalEvent = metadata.getEntityBinding(GoalEvent.class.getName());
+        assertThat(goalEvent.getProperty("teamScoring").getCascadeStyle().doCascade(
+                CascadingActions.MERGE)).isTrue();
+    }
+
+    @Test
+    public void singleTableMappingIndexesEventsByMatchAndId() {
+        // When
+        Metadata metadata = buildMetadata("META-INF/single-table-events.xml");
+
+        // Then
+        Index index = metadata.getEntityBinding(AbstractMatchEvent.class.getName())
+                .getTable().getIndex("idx_match_event_match_id_id");
+        assertThat(index).isNotNull();
+        Iterator<Column> columns = index.getColumnIterator();
+        assertThat(columns.next().getName()).isEqualTo("match_id");
+        assertThat(columns.next().getName()).isEqualTo("id");
+        assertThat(columns.hasNext()).isFalse();
+    }
+
+    @Test
+    public void eventIdsGrowInOrderOfSavingWhenInstancesTakeTurns() {
+        StandardServiceRegistry firstRegistry = buildInstanceRegistry("create-drop");
+        StandardServiceRegistry secondRegistry = buildInstanceRegistry("none");
+        SessionFactory firstInstance = buildInstance(firstRegistry);
+        SessionFactory secondInstance = buildInstance(secondRegistry);
+        List<Long> ids = new ArrayList<>();
+
+        try {
+            // Given
+            Long matchId;
+            try (Session session = firstInstance.openSession()) {
+                Transaction transaction = session.beginTransaction();
+                League league = new League("test name", "test country");
+                Team teamA = new Team("testA", league);
+                Team teamB = new Team("testB", league);
+                Match match = new Match(new Date(), teamA, teamB, league);
+                session.persist(league);
+                session.persist(teamA);
+                session.persist(teamB);
+                session.persist(match);
+                transaction.commit();
+                matchId = match.getId();
+            }
+
+            // When
+            for (int i = 0; i < 3; i++) {
+                ids.add(saveEvent(firstInstance, matchId));
+                ids.add(saveEvent(secondInstance, matchId));
+            }
+        } finally {
+            secondInstance.close();
+            firstInstance.close();
+            StandardServiceRegistryBuilder.destroy(secondRegistry);
+            StandardServiceRegistryBuilder.destroy(firstRegistry);
+        }
+
+        // Then
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+    }
+}
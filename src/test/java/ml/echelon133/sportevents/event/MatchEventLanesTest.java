@@ -0,0 +1,250 @@
+package ml.echelon133.sportevents.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.Match;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MatchEventLanesTest {
+
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private MatchEventLanes eventLanes;
+
+    @Before
+    public void setup() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        eventLanes = new MatchEventLanes(transactionManager, meterRegistry, 100, 4, 3);
+    }
+
+    @After
+    public void cleanup() {
+        eventLanes.shutdown();
+    }
+
+    @Test
+    public void executeReturnsResultOfTask() throws Exception {
+        // When
+        Integer result = eventLanes.execute(1L, () -> 10);
+
+        // Then
+        assertThat(result).isEqualTo(10);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test(expected = ProcessedEventRejectedException.class)
+    public void executeRethrowsProcessedEventRejectedException() throws Exception {
+        eventLanes.execute(1L, () -> {
+            throw new ProcessedEventRejectedException("test");
+        });
+    }
+
+    @Test(expected = ResourceDoesNotExistException.class)
+    public void executeRethrowsResourceDoesNotExistException() throws Exception {
+        eventLanes.execute(1L, () -> {
+            throw new ResourceDoesNotExistException("test");
+        });
+    }
+
+    @Test
+    public void executeRollsBackTransactionOfFailedTask() throws Exception {
+        // When
+        try {
+            eventLanes.execute(1L, () -> {
+                throw new ProcessedEventRejectedException("test");
+            });
+        } catch (ProcessedEventRejectedException ex) {
+            // expected
+        }
+
+        // Then
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(0)).commit(any());
+    }
+
+    @Test
+    public void executeRetriesTaskAfterConcurrentModification() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        Integer result = eventLanes.execute(1L, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Match.class, 1L);
+            }
+            return 10;
+        });
+
+        // Then
+        assertThat(result).isEqualTo(10);
+        assertThat(attempts.get()).isEqualTo(2);
+        // every attempt runs in its own transaction
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertThat(meterRegistry.get("events.lanes.retries").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("match.conflicts").tag("source", "events").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void executeGivesUpAfterMaxAttempts() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        boolean conflictReported = false;
+
+        // When
+        try {
+            eventLanes.execute(1L, () -> {
+                attempts.incrementAndGet();
+                throw new ObjectOptimisticLockingFailureException(Match.class, 1L);
+            });
+        } catch (OptimisticLockingFailureException ex) {
+            conflictReported = true;
+        }
+
+        // Then
+        assertThat(conflictReported).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("events.lanes.retries").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("match.conflicts").tag("source", "events").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    public void tasksOfOneMatchAreExecutedOneAtATimeInSubmissionOrder() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            int taskNumber = i;
+            futures.add(eventLanes.submit(1L, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                executionOrder.add(taskNumber);
+                sleep(1);
+                running.decrementAndGet();
+                return taskNumber;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(maxRunning.get()).isEqualTo(1);
+        for (int i = 0; i < 50; i++) {
+            assertThat(executionOrder.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void tasksOfDifferentMatchesAreExecutedInParallel() throws Exception {
+        // Both tasks can finish only if they run at the same time
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // When
+        CompletableFuture<Boolean> first = eventLanes.submit(1L, () -> {
+            bothStarted.countDown();
+            return await(bothStarted);
+        });
+        CompletableFuture<Boolean> second = eventLanes.submit(2L, () -> {
+            bothStarted.countDown();
+            return await(bothStarted);
+        });
+
+        // Then
+        assertThat(first.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void submitRejectsTasksWhenLaneIsFull() throws Exception {
+        MatchEventLanes smallLanes = new MatchEventLanes(transactionManager, meterRegistry, 2, 1, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        try {
+            // first task blocks the lane, so that the next tasks have to wait in the queue
+            CompletableFuture<Boolean> blocking = smallLanes.submit(1L, () -> {
+                started.countDown();
+                return await(release);
+            });
+            started.await(10, TimeUnit.SECONDS);
+            smallLanes.submit(1L, () -> true);
+            smallLanes.submit(1L, () -> true);
+
+            // When
+            boolean rejected = false;
+            try {
+                smallLanes.submit(1L, () -> true);
+            } catch (EventLaneFullException ex) {
+                rejected = true;
+            }
+
+            // Then
+            assertThat(rejected).isTrue();
+            assertThat(smallLanes.getQueuedTaskCount()).isEqualTo(2);
+            assertThat(meterRegistry.get("events.lanes.rejected").counter().count()).isEqualTo(1.0);
+
+            // tasks of other matches are still accepted
+            assertThat(smallLanes.submit(2L, () -> true)).isNotNull();
+
+            release.countDown();
+            blocking.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            smallLanes.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyLanesAreRemoved() throws Exception {
+        // When
+        for (long matchId = 0; matchId < 20; matchId++) {
+            eventLanes.execute(matchId, () -> true);
+        }
+
+        // Then
+        // a lane is removed right after the drainer finds it empty, which can happen just after the result is returned
+        long deadline = System.currentTimeMillis() + 10000;
+        while (eventLanes.getActiveLaneCount() != 0 && System.currentTimeMillis() < deadline) {
+            sleep(5);
+        }
+        assertThat(eventLanes.getActiveLaneCount()).isEqualTo(0);
+        assertThat(eventLanes.getQueuedTaskCount()).isEqualTo(0);
+        assertThat(meterRegistry.get("events.lanes.depth").summary().count()).isEqualTo(20L);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
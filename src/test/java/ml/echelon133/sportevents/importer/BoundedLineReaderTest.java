@@ -0,0 +1,65 @@
+package ml.echelon133.sportevents.importer;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class BoundedLineReaderTest {
+
+    @Test
+    public void readLineSplitsLinesLikeBufferedReader() throws Exception {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("first\r\nsecond\n\nlast"), 10);
+
+        // When
+        String first = reader.readLine();
+        String second = reader.readLine();
+        String empty = reader.readLine();
+        String last = reader.readLine();
+        String end = reader.readLine();
+
+        // Then
+        assertThat(first).isEqualTo("first");
+        assertThat(second).isEqualTo("second");
+        assertThat(empty).isEqualTo("");
+        assertThat(last).isEqualTo("last");
+        assertThat(end).isNull();
+    }
+
+    @Test
+    public void readLineSkipsTooLongLineAndContinuesWithNextOne() throws Exception {
+        StringBuilder text = new StringBuilder();
+        // longer than the internal buffer of the reader
+        for (int i = 0; i < 20000; i++) {
+            text.append('x');
+        }
+        text.append("\nnext\n");
+        BoundedLineReader reader = new BoundedLineReader(new StringReader(text.toString()), 10);
+
+        // When
+        boolean thrown = false;
+        try {
+            reader.readLine();
+        } catch (BoundedLineReader.LineTooLongException ex) {
+            thrown = true;
+        }
+        String next = reader.readLine();
+
+        // Then
+        assertThat(thrown).isTrue();
+        assertThat(next).isEqualTo("next");
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    public void readLineAcceptsLineOfMaximumLengthWithCarriageReturn() throws Exception {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("0123456789\r\n"), 10);
+
+        // When
+        String line = reader.readLine();
+
+        // Then
+        assertThat(line).isEqualTo("0123456789");
+    }
+}
@@ -0,0 +1,95 @@
+package ml.echelon133.sportevents.importer;
+
+import ml.echelon133.sportevents.exception.APIExceptionHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Scanner;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventImportControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private EventImportService importService;
+
+    @InjectMocks
+    private EventImportController importController;
+
+    @InjectMocks
+    private APIExceptionHandler exceptionHandler;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(importController)
+                .setControllerAdvice(exceptionHandler)
+                .build();
+    }
+
+    @Test
+    public void importEventsPassesBodyToService() throws Exception {
+        String body = "{\"matchId\":1,\"event\":{}}\n{\"matchId\":2,\"event\":{}}\n";
+        StringBuilder receivedBody = new StringBuilder();
+
+        // Given
+        given(importService.importEvents(any())).willAnswer(invocation -> {
+            InputStream input = invocation.getArgument(0);
+            receivedBody.append(new Scanner(input, "UTF-8").useDelimiter("\\A").next());
+            ImportReport report = new ImportReport("test-import", 0L, 10);
+            report.lineRead();
+            report.eventProcessed();
+            report.lineRead();
+            report.eventRejected(new ImportLineError(2L, 2L, Collections.singletonList("Invalid event")));
+            return report;
+        });
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(post("/api/events/import")
+                .contentType(MediaType.valueOf("application/x-ndjson"))
+                .content(body)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(receivedBody.toString()).isEqualTo(body);
+        assertThat(response.getContentAsString()).contains("\"importId\":\"test-import\"");
+        assertThat(response.getContentAsString()).contains("\"linesRead\":2");
+        assertThat(response.getContentAsString()).contains("\"eventsProcessed\":1");
+        assertThat(response.getContentAsString()).contains("{\"line\":2,\"matchId\":2,\"messages\":[\"Invalid event\"]}");
+    }
+
+    @Test
+    public void getRunningImportsReturnsProgressOfImports() throws Exception {
+        ImportReport report = new ImportReport("running-import", 0L, 10);
+        report.lineRead();
+
+        // Given
+        given(importService.findRunningImports()).willReturn(Collections.singletonList(report));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/events/import")).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).contains("\"importId\":\"running-import\"");
+        assertThat(response.getContentAsString()).contains("\"finished\":false");
+    }
+}
@@ -0,0 +1,264 @@
+package ml.echelon133.sportevents.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.EventMixIn;
+import ml.echelon133.sportevents.event.EventService;
+import ml.echelon133.sportevents.event.MatchEventLanes;
+import ml.echelon133.sportevents.event.ProcessedEventResult;
+import ml.echelon133.sportevents.event.types.dto.GoalEventDto;
+import ml.echelon133.sportevents.event.types.dto.MatchEventDto;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.match.MatchService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventImportServiceTest {
+
+    @Mock
+    private EventService eventService;
+
+    @Mock
+    private MatchService matchService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MatchEventLanes eventLanes;
+    private EventImportServiceImpl importService;
+
+    // sizes of batches passed to eventService.importEvents, recorded before the service reuses the list
+    private List<Integer> batchSizes;
+
+    @Before
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.addMixIn(MatchEventDto.class, EventMixIn.class);
+        meterRegistry = new SimpleMeterRegistry();
+        eventLanes = new MatchEventLanes(mock(PlatformTransactionManager.class), meterRegistry, 16, 2, 3);
+        importService = new EventImportServiceImpl(objectMapper, eventService, matchService, eventLanes,
+                                                   meterRegistry, 2, 2, 200);
+        batchSizes = new ArrayList<>();
+    }
+
+    @After
+    public void teardown() {
+        eventLanes.shutdown();
+    }
+
+    private static String line(Long matchId, String type) {
+        return "{\"matchId\":" + matchId + ",\"event\":{\"time\":10,\"message\":\"Test\",\"type\":\"" + type + "\"}}\n";
+    }
+
+    private static InputStream stream(String... lines) {
+        return new ByteArrayInputStream(String.join("", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void acceptAllEvents() {
+        given(eventService.importEvents(any(), any())).willAnswer(invocation -> {
+            List<MatchEventDto> events = invocation.getArgument(1);
+            batchSizes.add(events.size());
+            List<ProcessedEventResult> results = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                results.add(ProcessedEventResult.accepted(i, true));
+            }
+            return results;
+        });
+    }
+
+    @Test
+    public void consecutiveEventsOfMatchAreProcessedInBatches() throws Exception {
+        Match firstMatch = getRandomMatch();
+        Match secondMatch = getRandomMatch();
+
+        // Given
+        given(matchService.findById(1L)).willReturn(firstMatch);
+        given(matchService.findById(2L)).willReturn(secondMatch);
+        acceptAllEvents();
+
+        // When
+        ImportReport report = importService.importEvents(stream(
+                line(1L, "START_FIRST_HALF"),
+                line(1L, "STANDARD_DESCRIPTION"),
+                line(1L, "STANDARD_DESCRIPTION"),
+                "\n",
+                line(2L, "START_FIRST_HALF")));
+
+        // Then
+        // batch size is 2, so three events of the first match make two batches
+        assertThat(batchSizes.toString()).isEqualTo("[2, 1, 1]");
+        verify(eventService, times(2)).importEvents(eq(firstMatch), any());
+        verify(eventService, times(1)).importEvents(eq(secondMatch), any());
+        assertThat(report.getLinesRead()).isEqualTo(4L);
+        assertThat(report.getEventsProcessed()).isEqualTo(4L);
+        assertThat(report.getEventsRejected()).isEqualTo(0L);
+        assertThat(report.isFinished()).isTrue();
+        assertThat(importService.findRunningImports().isEmpty()).isTrue();
+        assertThat(meterRegistry.get("events.import.lines").counter().count()).isEqualTo(4.0);
+    }
+
+    @Test
+    public void eventsAreDeserializedWithEventMixIn() throws Exception {
+        List<MatchEventDto> received = new ArrayList<>();
+
+        // Given
+        given(matchService.findById(1L)).willReturn(getRandomMatch());
+        given(eventService.importEvents(any(), any())).willAnswer(invocation -> {
+            received.addAll(invocation.getArgument(1));
+            return Collections.singletonList(ProcessedEventResult.accepted(0, true));
+        });
+
+        // When
+        importService.importEvents(stream(
+                "{\"matchId\":1,\"event\":{\"time\":10,\"message\":\"Test\",\"type\":\"GOAL\",\"teamId\":3,\"scorerName\":\"Player\"}}"));
+
+        // Then
+        assertThat(received.size()).isEqualTo(1);
+        assertThat(received.get(0)).isInstanceOf(GoalEventDto.class);
+        assertThat(((GoalEventDto) received.get(0)).getScorerName()).isEqualTo("Player");
+    }
+
+    @Test
+    public void malformedLinesAreReportedAndSkipped() throws Exception {
+        // Given
+        given(matchService.findById(1L)).willReturn(getRandomMatch());
+        acceptAllEvents();
+
+        // When
+        ImportReport report = importService.importEvents(stream(
+                line(1L, "START_FIRST_HALF"),
+                "{\"matchId\":1,\"event\":\n",
+                "{\"event\":{\"time\":10,\"message\":\"Test\",\"type\":\"STANDARD_DESCRIPTION\"}}\n",
+                line(1L, "STANDARD_DESCRIPTION")));
+
+        // Then
+        assertThat(report.getEventsProcessed()).isEqualTo(2L);
+        assertThat(report.getEventsRejected()).isEqualTo(2L);
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(2L);
+        assertThat(report.getErrors().get(0).getMessages().get(0)).startsWith("Line could not be parsed");
+        assertThat(report.getErrors().get(1).getLine()).isEqualTo(3L);
+        assertThat(report.getErrors().get(1).getMessages().get(0)).isEqualTo("Line has to contain matchId and event");
+    }
+
+    @Test
+    public void rejectedEventsAreReportedWithTheirLineNumbers() throws Exception {
+        // Given
+        given(matchService.findById(1L)).willReturn(getRandomMatch());
+        given(eventService.importEvents(any(), any())).willReturn(
+                Arrays.asList(
+                        ProcessedEventResult.accepted(0, true),
+                        ProcessedEventResult.rejected(1, "Event cannot be processed")));
+
+        // When
+        ImportReport report = importService.importEvents(stream(
+                line(1L, "START_FIRST_HALF"),
+                line(1L, "STANDARD_DESCRIPTION")));
+
+        // Then
+        assertThat(report.getEventsProcessed()).isEqualTo(1L);
+        assertThat(report.getErrors().size()).isEqualTo(1);
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(2L);
+        assertThat(report.getErrors().get(0).getMatchId()).isEqualTo(1L);
+        assertThat(report.getErrors().get(0).getMessages().get(0)).isEqualTo("Event cannot be processed");
+    }
+
+    @Test
+    public void everyLineOfBatchIsRejectedWhenMatchDoesNotExist() throws Exception {
+        // Given
+        given(matchService.findById(1L)).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        ImportReport report = importService.importEvents(stream(
+                line(1L, "START_FIRST_HALF"),
+                line(1L, "STANDARD_DESCRIPTION")));
+
+        // Then
+        verify(eventService, never()).importEvents(any(), any());
+        assertThat(report.getEventsRejected()).isEqualTo(2L);
+        assertThat(report.getErrors().get(1).getLine()).isEqualTo(2L);
+        assertThat(report.getErrors().get(1).getMessages().get(0)).isEqualTo("Match with this id does not exist");
+    }
+
+    @Test
+    public void errorsAboveLimitAreOnlyCounted() throws Exception {
+        // When
+        ImportReport report = importService.importEvents(stream("a\n", "b\n", "c\n", "d\n"));
+
+        // Then
+        assertThat(report.getEventsRejected()).isEqualTo(4L);
+        assertThat(report.getErrors().size()).isEqualTo(2);
+        assertThat(report.getUnreportedErrors()).isEqualTo(2L);
+        assertThat(meterRegistry.get("events.import.rejected").counter().count()).isEqualTo(4.0);
+    }
+
+    @Test
+    public void importContinuesAfterBatchFailsWithRuntimeException() throws Exception {
+        Match secondMatch = getRandomMatch();
+
+        // Given
+        given(matchService.findById(1L)).willReturn(getRandomMatch());
+        given(matchService.findById(2L)).willReturn(secondMatch);
+        acceptAllEvents();
+        willThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .given(eventService).importEvents(argThat(match -> match != secondMatch), any());
+
+        // When
+        ImportReport report = importService.importEvents(stream(
+                line(1L, "START_FIRST_HALF"),
+                line(2L, "START_FIRST_HALF")));
+
+        // Then
+        assertThat(report.getEventsRejected()).isEqualTo(1L);
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(1L);
+        assertThat(report.getErrors().get(0).getMessages().get(0)).isEqualTo("Duplicate entry");
+        assertThat(report.getEventsProcessed()).isEqualTo(1L);
+        assertThat(report.isFinished()).isTrue();
+    }
+
+    @Test
+    public void tooLongLineIsRejectedAndNextLinesAreImported() throws Exception {
+        char[] longLine = new char[1000];
+        Arrays.fill(longLine, 'x');
+
+        // Given
+        given(matchService.findById(1L)).willReturn(getRandomMatch());
+        acceptAllEvents();
+
+        // When
+        ImportReport report = importService.importEvents(stream(
+                new String(longLine) + "\n",
+                line(1L, "START_FIRST_HALF")));
+
+        // Then
+        assertThat(report.getLinesRead()).isEqualTo(2L);
+        assertThat(report.getEventsProcessed()).isEqualTo(1L);
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(1L);
+        assertThat(report.getErrors().get(0).getMessages().get(0)).isEqualTo("Line is longer than 200 characters");
+    }
+}
@@ -69,7 +69,7 @@ public class LeagueControllerTest {
     @Test
     public void getLeaguesReturnsEmptyResourcesCorrectly() throws Exception {
         // Given
-        given(leagueService.findAll()).willReturn(Collections.emptyList());
+        given(leagueService.findAll(0L, 101)).willReturn(Collections.emptyList());
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/leagues")
@@ -88,7 +88,7 @@ public class LeagueControllerTest {
         League league = buildLeague(1L, "Test league", "Test country");
 
         // Given
-        given(leagueService.findAll()).willReturn(Arrays.asList(league));
+        given(leagueService.findAll(0L, 101)).willReturn(Arrays.asList(league));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/leagues")
@@ -112,7 +112,7 @@ public class LeagueControllerTest {
     @Test
     public void getLeagueReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
         // Given
-        given(leagueService.findById(1L)).willThrow(new ResourceDoesNotExistException("League with this id does not exist"));
+        given(leagueService.findByIdForReading(1L)).willThrow(new ResourceDoesNotExistException("League with this id does not exist"));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/leagues/1")
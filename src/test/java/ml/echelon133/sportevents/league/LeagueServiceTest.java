@@ -1,6 +1,8 @@
 package ml.echelon133.sportevents.league;
 
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.team.TeamCache;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -13,6 +15,8 @@ import static ml.echelon133.sportevents.TestUtils.buildLeague;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class LeagueServiceTest {
@@ -20,6 +24,18 @@ public class LeagueServiceTest {
     @Mock
     private LeagueRepository leagueRepository;
 
+    @Mock
+    private LeagueCache leagueCache;
+
+    @Mock
+    private TeamCache teamCache;
+
+    @Mock
+    private LeagueNameIndex leagueNameIndex;
+
+    @Mock
+    private ReferenceDataVersion referenceDataVersion;
+
     @InjectMocks
     private LeagueServiceImpl leagueService;
 
@@ -70,5 +86,9 @@ public class LeagueServiceTest {
 
         // Then
         assertThat(response).isTrue();
+        verify(leagueCache, times(1)).invalidateAfterCommit(1L);
+        verify(teamCache, times(1)).invalidateAllAfterCommit();
+        verify(leagueNameIndex, times(1)).removeAfterCommit(1L);
+        verify(referenceDataVersion, times(1)).incrementAfterCommit();
     }
 }
@@ -0,0 +1,118 @@
+package ml.echelon133.sportevents.links;
+
+import ml.echelon133.sportevents.league.LeagueController;
+import ml.echelon133.sportevents.match.MatchController;
+import ml.echelon133.sportevents.team.TeamController;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+public class LinkTemplateTest {
+
+    private MockHttpServletRequest request;
+
+    @Before
+    public void setup() {
+        request = new MockHttpServletRequest("GET", "/api/matches");
+        request.setServerName("sportevents.example.com");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void templateOfControllerBuildsSameLinkAsLinkTo() {
+        // When
+        Link link = LinkTemplate.of(MatchController.class).withRel("matches");
+
+        // Then
+        assertThat(link).isEqualTo(linkTo(MatchController.class).withRel("matches"));
+        assertThat(link.getHref()).isEqualTo("http://sportevents.example.com:8080/api/matches");
+    }
+
+    @Test
+    public void templateOfMethodBuildsSameLinkAsMethodOn() throws Exception {
+        // When
+        Link match = LinkTemplate.of(MatchController.class, "getMatch").withSelfRel(15L);
+        Link teamMatches = LinkTemplate.of(TeamController.class, "getTeamMatches").withRel("team-matches", 3L);
+        Link leagueTeams = LinkTemplate.of(LeagueController.class, "getLeagueTeams").withRel("league-teams", 7L);
+
+        // Then
+        assertThat(match).isEqualTo(linkTo(methodOn(MatchController.class).getMatch(15L, null)).withSelfRel());
+        assertThat(teamMatches)
+                .isEqualTo(linkTo(methodOn(TeamController.class).getTeamMatches(3L, null, null, null, null, null))
+                        .withRel("team-matches").expand());
+        assertThat(leagueTeams)
+                .isEqualTo(linkTo(methodOn(LeagueController.class).getLeagueTeams(7L)).withRel("league-teams"));
+    }
+
+    @Test
+    public void linksRespectForwardedHeaders() {
+        // Given
+        request.addHeader("X-Forwarded-Proto", "https");
+        request.addHeader("X-Forwarded-Host", "api.example.com");
+
+        // When
+        Link link = LinkTemplate.of(MatchController.class, "getMatch").withSelfRel(1L);
+
+        // Then
+        assertThat(link.getHref()).isEqualTo("https://api.example.com/api/matches/1");
+    }
+
+    @Test
+    public void baseUriIsComputedOncePerRequest() {
+        // Given
+        LinkTemplate template = LinkTemplate.of(MatchController.class, "getMatch");
+        template.expand(1L);
+
+        // When
+        request.setServerName("other.example.com");
+        String href = template.expand(2L);
+
+        // Then
+        assertThat(href).isEqualTo("http://sportevents.example.com:8080/api/matches/2");
+    }
+
+    @Test
+    public void linksWithoutRequestAreRelative() {
+        // Given
+        RequestContextHolder.resetRequestAttributes();
+
+        // When
+        String href = LinkTemplate.of(TeamController.class, "getTeam").expand(4L);
+
+        // Then
+        assertThat(href).isEqualTo("/api/teams/4");
+    }
+
+    @Test
+    public void parametersThatAreNotIdsAreEncoded() {
+        // When
+        String href = LinkTemplate.of(TeamController.class, "getTeam").expand("a b/c");
+
+        // Then
+        assertThat(href).isEqualTo("http://sportevents.example.com:8080/api/teams/a%20b%2Fc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void expandRejectsWrongNumberOfParameters() {
+        LinkTemplate.of(TeamController.class, "getTeam").expand();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofRejectsMissingMethod() {
+        LinkTemplate.of(TeamController.class, "getPlayers");
+    }
+}
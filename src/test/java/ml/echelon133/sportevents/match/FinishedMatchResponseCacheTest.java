@@ -0,0 +1,207 @@
+package ml.echelon133.sportevents.match;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class FinishedMatchResponseCacheTest {
+
+    private ReferenceDataVersion referenceDataVersion;
+    private MatchVersionCache versionCache;
+    private FinishedMatchResponseCache responseCache;
+
+    @Before
+    public void setup() {
+        startRequest("sportevents.example.com");
+        referenceDataVersion = new ReferenceDataVersion();
+        versionCache = new MatchVersionCache(new SimpleMeterRegistry(), referenceDataVersion);
+        responseCache = buildCache(1024 * 1024);
+    }
+
+    @After
+    public void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private FinishedMatchResponseCache buildCache(long maxBytes) {
+        return new FinishedMatchResponseCache(Collections.singletonList(new MappingJackson2HttpMessageConverter()),
+                                              versionCache, new SimpleMeterRegistry(), maxBytes);
+    }
+
+    private static void startRequest(String serverName) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/matches/1");
+        request.setServerName(serverName);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private Match finishedMatch(Long id, Long version) {
+        Match match = getRandomMatch(id);
+        match.setStatus(Match.Status.FINISHED);
+        match.setVersion(version);
+        versionCache.putVersion(id, version);
+        return match;
+    }
+
+    private static Map<String, Object> body(Long id, int length) {
+        return Collections.singletonMap("text", String.format("%0" + length + "d", id));
+    }
+
+    @Test
+    public void serializeCachesResponseOfFinishedMatch() throws Exception {
+        Match match = finishedMatch(1L, 3L);
+
+        // When
+        FinishedMatchResponseCache.CachedResponse serialized =
+                responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, 0L, body(1L, 10), Map.class);
+        Optional<FinishedMatchResponseCache.CachedResponse> cached =
+                responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L);
+
+        // Then
+        assertThat(cached.isPresent()).isTrue();
+        assertThat(cached.get()).isEqualTo(serialized);
+        assertThat(cached.get().getVersion()).isEqualTo(3L);
+        assertThat(cached.get().getContentType().includes(MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(new String(cached.get().getBody(), "UTF-8"))
+                .isEqualTo(new ObjectMapper().writeValueAsString(body(1L, 10)));
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.EVENTS, 1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void serializeDoesNotCacheMatchThatIsNotFinished() {
+        Match match = finishedMatch(1L, 3L);
+        match.setStatus(Match.Status.SECOND_HALF);
+
+        // When
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, 0L, body(1L, 10), Map.class);
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L).isPresent()).isFalse();
+        assertThat(responseCache.size()).isEqualTo(0L);
+    }
+
+    @Test
+    public void responseIsNotServedAfterMatchChanges() {
+        Match match = finishedMatch(1L, 3L);
+        responseCache.serialize(FinishedMatchResponseCache.View.EVENTS, match, 0L, body(1L, 10), Map.class);
+
+        // When
+        versionCache.putVersion(1L, 4L);
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.EVENTS, 1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void responseIsNotServedAfterReferenceDataChanges() {
+        Match match = finishedMatch(1L, 3L);
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, 0L, body(1L, 10), Map.class);
+
+        // When
+        // ex. a team of the match was renamed, which does not change the version of the match
+        referenceDataVersion.increment();
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void responseSerializedWithOlderReferenceDataIsNotServed() {
+        Match match = finishedMatch(1L, 3L);
+        // the version was read before the match was loaded, and reference data changed while it was being loaded
+        long versionBeforeLoad = versionCache.getReferenceDataVersion();
+        referenceDataVersion.increment();
+
+        // When
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, versionBeforeLoad, body(1L, 10),
+                                Map.class);
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void responseIsNotServedToRequestsWithOtherBaseUri() {
+        Match match = finishedMatch(1L, 3L);
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, 0L, body(1L, 10), Map.class);
+
+        // When
+        startRequest("other.example.com");
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void oldestResponsesAreEvictedWhenMaxBytesIsExceeded() {
+        // Every body has 13 bytes ({"text":"01"} with 2 digits replaced by 4)
+        responseCache = buildCache(30);
+
+        // When
+        for (long id = 1; id <= 3; id++) {
+            responseCache.serialize(FinishedMatchResponseCache.View.MATCH, finishedMatch(id, 0L), 0L, body(id, 4),
+                                    Map.class);
+        }
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L).isPresent()).isFalse();
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 2L).isPresent()).isTrue();
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 3L).isPresent()).isTrue();
+        assertThat(responseCache.size()).isEqualTo(30L);
+    }
+
+    @Test
+    public void replacedResponseIsNotCountedTwice() {
+        // When
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, finishedMatch(1L, 0L), 0L, body(1L, 4),
+                                Map.class);
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, finishedMatch(1L, 1L), 0L, body(1L, 4),
+                                Map.class);
+
+        // Then
+        assertThat(responseCache.size()).isEqualTo(15L);
+    }
+
+    @Test
+    public void removeRemovesAllViewsOfMatch() {
+        Match match = finishedMatch(1L, 3L);
+        responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, 0L, body(1L, 10), Map.class);
+        responseCache.serialize(FinishedMatchResponseCache.View.EVENTS, match, 0L, body(1L, 10), Map.class);
+
+        // When
+        responseCache.remove(1L);
+
+        // Then
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.MATCH, 1L).isPresent()).isFalse();
+        assertThat(responseCache.get(FinishedMatchResponseCache.View.EVENTS, 1L).isPresent()).isFalse();
+        assertThat(responseCache.size()).isEqualTo(0L);
+    }
+
+    @Test
+    public void acceptsJsonChecksAcceptHeader() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        assertThat(FinishedMatchResponseCache.acceptsJson(new ServletWebRequest(request))).isTrue();
+
+        request.addHeader("Accept", "application/xml, */*;q=0.8");
+        assertThat(FinishedMatchResponseCache.acceptsJson(new ServletWebRequest(request))).isTrue();
+
+        request = new MockHttpServletRequest();
+        request.addHeader("Accept", "application/hal+json");
+        assertThat(FinishedMatchResponseCache.acceptsJson(new ServletWebRequest(request))).isFalse();
+    }
+}
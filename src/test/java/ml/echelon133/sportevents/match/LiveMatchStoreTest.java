@@ -0,0 +1,214 @@
+package ml.echelon133.sportevents.match;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.event.types.StandardEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class LiveMatchStoreTest {
+
+    private MatchRepository matchRepository;
+    private LiveMatchStore liveMatchStore;
+
+    @Before
+    public void setup() {
+        matchRepository = mock(MatchRepository.class);
+        liveMatchStore = new LiveMatchStore(matchRepository, new SimpleMeterRegistry(), 3);
+        liveMatchStore.load();
+    }
+
+    @After
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Match getLiveMatch(Long matchId, Long version) {
+        Match match = getRandomMatch(matchId);
+        match.setStatus(Match.Status.FIRST_HALF);
+        match.setVersion(version);
+        return match;
+    }
+
+    private static List<AbstractMatchEvent> buildEvents(Match match, long firstId, int count) {
+        List<AbstractMatchEvent> events = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            StandardEvent event = new StandardEvent(id, "Test msg", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match);
+            event.setId(id);
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Test
+    public void storeKeepsCopyOfLiveMatch() {
+        Match match = getLiveMatch(1L, 2L);
+
+        // When
+        liveMatchStore.put(match);
+        match.getResult().addGoalTeamA(10L, "Scorer");
+        match.setStatus(Match.Status.SECOND_HALF);
+
+        // Then
+        Match storedMatch = liveMatchStore.findById(1L).get();
+        assertThat(storedMatch).isNotSameAs(match);
+        assertThat(storedMatch.getStatus()).isEqualTo(Match.Status.FIRST_HALF);
+        assertThat(storedMatch.getResult().getTeamAGoals()).isEqualTo(0L);
+        assertThat(storedMatch.getResult().getTeamAGoalInfo().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void storeDoesNotKeepMatchesThatAreNotLive() {
+        Match match = getLiveMatch(1L, 2L);
+        liveMatchStore.put(match);
+
+        // When
+        match.setStatus(Match.Status.FINISHED);
+        liveMatchStore.put(match);
+        liveMatchStore.put(getRandomMatch(2L));
+
+        // Then
+        assertThat(liveMatchStore.findById(1L).isPresent()).isFalse();
+        assertThat(liveMatchStore.findById(2L).isPresent()).isFalse();
+        assertThat(liveMatchStore.findAllWithStatus(Match.Status.FINISHED, 0L, 100).isPresent()).isFalse();
+        assertThat(liveMatchStore.findAllWithStatus(Match.Status.FIRST_HALF, 0L, 100).get().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void olderVersionDoesNotReplaceNewerVersion() {
+        // Given
+        liveMatchStore.put(getLiveMatch(1L, 5L));
+        Match olderMatch = getLiveMatch(1L, 4L);
+        olderMatch.setStatus(Match.Status.SECOND_HALF);
+
+        // When
+        liveMatchStore.put(olderMatch);
+
+        // Then
+        assertThat(liveMatchStore.findById(1L).get().getVersion()).isEqualTo(5L);
+        assertThat(liveMatchStore.findById(1L).get().getStatus()).isEqualTo(Match.Status.FIRST_HALF);
+    }
+
+    @Test
+    public void putAfterCommitUpdatesStoreAfterCommit() {
+        Match match = getLiveMatch(1L, 2L);
+
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        liveMatchStore.putAfterCommit(match);
+        boolean storedBeforeCommit = liveMatchStore.findById(1L).isPresent();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(storedBeforeCommit).isFalse();
+        assertThat(liveMatchStore.findById(1L).isPresent()).isTrue();
+    }
+
+    @Test
+    public void removeAfterCommitRemovesMatchAfterCommit() {
+        Match match = getLiveMatch(1L, 2L);
+        liveMatchStore.put(match);
+
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        liveMatchStore.removeAfterCommit(1L);
+        boolean storedBeforeCommit = liveMatchStore.findById(1L).isPresent();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(storedBeforeCommit).isTrue();
+        assertThat(liveMatchStore.findById(1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void findEventsAfterReadsRecentEventsOnlyWhenTheyContainAllRequestedEvents() {
+        Match match = getLiveMatch(1L, 2L);
+        match.setEventCount(5L);
+        liveMatchStore.put(match);
+
+        // When
+        // only three most recent events (3, 4, 5) are kept
+        liveMatchStore.addEvents(1L, buildEvents(match, 1L, 5));
+
+        // Then
+        assertThat(liveMatchStore.findEventsAfter(1L, 3L, 10).get().size()).isEqualTo(2);
+        assertThat(liveMatchStore.findEventsAfter(1L, 3L, 1).get().get(0).getId()).isEqualTo(4L);
+        assertThat(liveMatchStore.findEventsAfter(1L, 1L, 10).isPresent()).isFalse();
+        assertThat(liveMatchStore.findEventsAfter(2L, 3L, 10).isPresent()).isFalse();
+    }
+
+    @Test
+    public void findEventsAfterReadsRecentEventsWhenAllEventsOfMatchAreKept() {
+        Match match = getLiveMatch(1L, 2L);
+        match.setEventCount(2L);
+
+        // Given
+        given(matchRepository.countEvents(1L)).willReturn(2L);
+        liveMatchStore.put(match);
+
+        // When
+        liveMatchStore.addEvents(1L, buildEvents(match, 7L, 2));
+
+        // Then
+        assertThat(liveMatchStore.findEventsAfter(1L, 0L, 10).get().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void findEventsAfterDoesNotTrustEventCountThatDiffersFromSavedEvents() {
+        // match that was live during the upgrade, its events were saved before eventCount existed
+        Match match = getLiveMatch(1L, 2L);
+        match.setEventCount(null);
+
+        // Given
+        given(matchRepository.countEvents(1L)).willReturn(4L);
+        liveMatchStore.put(match);
+
+        // When
+        match.setEventCount(1L);
+        liveMatchStore.put(match);
+        liveMatchStore.addEvents(1L, buildEvents(match, 7L, 1));
+
+        // Then
+        assertThat(liveMatchStore.findEventsAfter(1L, 0L, 10).isPresent()).isFalse();
+        assertThat(liveMatchStore.findEventsAfter(1L, 7L, 10).get().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void storeIsUsedOnlyAfterLiveMatchesAreLoaded() {
+        LiveMatchStore notLoadedStore = new LiveMatchStore(matchRepository, new SimpleMeterRegistry(), 3);
+        Match match = getLiveMatch(1L, 2L);
+
+        // Given
+        given(matchRepository.findAllByStatusIn(any())).willReturn(Arrays.asList(match));
+        notLoadedStore.put(getLiveMatch(2L, 1L));
+
+        // When
+        boolean readBeforeLoad = notLoadedStore.findById(2L).isPresent();
+        notLoadedStore.load();
+
+        // Then
+        assertThat(readBeforeLoad).isFalse();
+        assertThat(notLoadedStore.findById(1L).isPresent()).isTrue();
+        assertThat(notLoadedStore.findById(2L).isPresent()).isTrue();
+        assertThat(notLoadedStore.findAllWithStatus(Match.Status.FIRST_HALF, 0L, 100).get().size()).isEqualTo(2);
+    }
+}
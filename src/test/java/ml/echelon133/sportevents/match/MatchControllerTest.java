@@ -3,6 +3,8 @@ package ml.echelon133.sportevents.match;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.APIExceptionHandler;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import ml.echelon133.sportevents.league.League;
@@ -14,18 +16,24 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.json.JsonContent;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static ml.echelon133.sportevents.TestUtils.*;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -34,6 +42,8 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class MatchControllerTest {
@@ -46,6 +56,16 @@ public class MatchControllerTest {
     @Mock
     private MatchResourceAssembler matchResourceAssembler;
 
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MatchVersionCache versionCache = new MatchVersionCache(new SimpleMeterRegistry(),
+                                                                   new ReferenceDataVersion());
+
+    @Mock
+    private FinishedMatchResponseCache responseCache;
+
     @InjectMocks
     private APIExceptionHandler exceptionHandler;
 
@@ -64,7 +84,7 @@ public class MatchControllerTest {
     @Test
     public void getMatchesReturnsEmptyResourcesCorrectly() throws Exception {
         // Given
-        given(matchService.findAll()).willReturn(Collections.emptyList());
+        given(matchService.findAll(0L, 101)).willReturn(Collections.emptyList());
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/matches")
@@ -94,7 +114,7 @@ public class MatchControllerTest {
         List<MatchResource> matchResources = Collections.singletonList(matchResource);
 
         // Given
-        given(matchService.findAllWithStatus("NOT_STARTED")).willReturn(filteredMatches);
+        given(matchService.findAllWithStatus("NOT_STARTED", 0L, 101)).willReturn(filteredMatches);
         given(matchResourceAssembler.toResources(filteredMatches)).willReturn(matchResources);
 
         // When
@@ -118,6 +138,112 @@ public class MatchControllerTest {
                 .contains("/api\\/matches\\/" + match.getId());
     }
 
+    @Test
+    public void getMatchesAddsNextLinkWhenThereAreMoreMatches() throws Exception {
+        Match match1 = getRandomMatch(1L);
+        Match match2 = getRandomMatch(2L);
+        Match match3 = getRandomMatch(3L);
+        List<Match> firstPage = Arrays.asList(match1, match2);
+
+        // Given
+        given(matchService.findAllWithStatus("FINISHED", 0L, 3)).willReturn(Arrays.asList(match1, match2, match3));
+        given(matchResourceAssembler.toResources(firstPage))
+                .willReturn(Arrays.asList(buildMatchResource(match1), buildMatchResource(match2)));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches?status=FINISHED&limit=2")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.content.length()").toString()).isEqualTo("2");
+        assertThat(json.read("$.links[?(@.rel=='next')].href").toString())
+                .contains("status=FINISHED").contains("afterId=2").contains("limit=2");
+    }
+
+    @Test
+    public void getMatchesDoesNotAddNextLinkToLastPage() throws Exception {
+        List<Match> matches = Collections.singletonList(getRandomMatch(5L));
+
+        // Given
+        given(matchService.findAll(4L, 3)).willReturn(matches);
+        given(matchResourceAssembler.toResources(matches))
+                .willReturn(Collections.singletonList(buildMatchResource(matches.get(0))));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches?afterId=4&limit=2")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.links[?(@.rel=='next')]").toString()).isEqualTo("[]");
+    }
+
+    @Test
+    public void getMatchesWithSummaryViewReturnsSummaries() throws Exception {
+        Match match = getRandomMatch(7L);
+        match.getResult().addGoalTeamB(10L, "Test scorer");
+
+        // Given
+        given(matchService.findSummariesWithStatus("FINISHED", 0L, 101))
+                .willReturn(Collections.singletonList(new MatchSummary(match)));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches?view=summary&status=FINISHED")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.content[0].id").toString()).isEqualTo("7");
+        assertThat(json.read("$.content[0].teamAId").toString()).isEqualTo(match.getTeamA().getId().toString());
+        assertThat(json.read("$.content[0].teamBGoals").toString()).isEqualTo("1");
+        // Neither nested resources nor links
+        Map<String, Object> summary = json.read("$.content[0]");
+        assertThat(summary.containsKey("teamA")).isFalse();
+        assertThat(summary.containsKey("links")).isFalse();
+        verify(matchResourceAssembler, times(0)).toResources(any());
+    }
+
+    @Test
+    public void getMatchesWithSummaryViewKeepsViewInNextLink() throws Exception {
+        List<MatchSummary> summaries = Arrays.asList(new MatchSummary(getRandomMatch(1L)),
+                                                     new MatchSummary(getRandomMatch(2L)));
+
+        // Given
+        given(matchService.findSummaries(0L, 2)).willReturn(summaries);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches?view=summary&limit=1")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(json.read("$.content.length()").toString()).isEqualTo("1");
+        assertThat(json.read("$.links[?(@.rel=='next')].href").toString())
+                .contains("view=summary").contains("afterId=1").contains("limit=1");
+    }
+
+    @Test
+    public void getMatchesLimitsPageSize() throws Exception {
+        // Given
+        given(matchService.findAll(0L, 501)).willReturn(Collections.emptyList());
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches?limit=100000")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        verify(matchService, times(1)).findAll(0L, 501);
+    }
+
     @Test
     public void getMatchesReturnsResourcesFilteredByDateCorrectly() throws Exception {
         League league = buildLeague(1L, "Test league", "Test country");
@@ -130,7 +256,7 @@ public class MatchControllerTest {
         List<MatchResource> matchResources = Collections.singletonList(matchResource);
 
         // Given
-        given(matchService.findAllWithDateWithin("THREE_DAYS")).willReturn(filteredMatches);
+        given(matchService.findAllWithDateWithin("THREE_DAYS", 0L, 101)).willReturn(filteredMatches);
         given(matchResourceAssembler.toResources(filteredMatches)).willReturn(matchResources);
 
         // When
@@ -165,7 +291,7 @@ public class MatchControllerTest {
         List<MatchResource> allResources = Collections.singletonList(matchResource);
 
         // Given
-        given(matchService.findAll()).willReturn(allMatches);
+        given(matchService.findAll(0L, 101)).willReturn(allMatches);
         given(matchResourceAssembler.toResources(allMatches)).willReturn(allResources);
 
         // When
@@ -190,7 +316,7 @@ public class MatchControllerTest {
     @Test
     public void getMatchReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
         // Given
-        given(matchService.findById(anyLong())).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+        given(matchService.findByIdForReading(anyLong())).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/matches/1")
@@ -210,7 +336,7 @@ public class MatchControllerTest {
         MatchResource matchResource = buildMatchResource(match);
 
         // Given
-        given(matchService.findById(7L)).willReturn(match);
+        given(matchService.findByIdForReading(7L)).willReturn(match);
         given(matchResourceAssembler.toResource(match)).willReturn(matchResource);
 
         // When
@@ -472,4 +598,167 @@ public class MatchControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
         assertThat(response.getContentAsString()).isEqualTo("{\"deleted\":true}");
     }
+
+    @Test
+    public void replaceMatchReturnsConflictIfVersionIsOutdated() throws Exception {
+        League league = buildLeague(1L, "League", "Country");
+        Match match = buildMatch(7L, buildTeam(1L, "First team", league), buildTeam(3L, "Second team", league),
+                                 null, null);
+        match.setVersion(4L);
+
+        MatchDto matchDto = new MatchDto("2018-12-01 16:00", 1L, 5L);
+        matchDto.setVersion(3L);
+        JsonContent<MatchDto> matchDtoJsonContent = jsonMatchDto.write(matchDto);
+
+        // Given
+        given(matchService.findById(7L)).willReturn(match);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                put("/api/matches/7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(matchDtoJsonContent.getJson())
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+        assertThat(response.getContentAsString()).contains("Resource was modified concurrently");
+        assertThat(meterRegistry.get("match.conflicts").tag("source", "admin").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void replaceMatchReturnsConflictIfMatchIsModifiedBeforeSave() throws Exception {
+        League league = buildLeague(1L, "League", "Country");
+        Team teamA = buildTeam(1L, "First team", league);
+        Match match = buildMatch(7L, teamA, buildTeam(3L, "Second team", league), null, null);
+        Match changedMatch = buildMatch(7L, teamA, buildTeam(5L, "Third team", league), null, null);
+
+        MatchDto matchDto = new MatchDto("2018-12-01 16:00", 1L, 5L);
+        JsonContent<MatchDto> matchDtoJsonContent = jsonMatchDto.write(matchDto);
+
+        // Given
+        given(matchService.findById(7L)).willReturn(match);
+        given(matchService.convertDtoToEntity(any())).willReturn(changedMatch);
+        given(matchService.mergeChanges(match, changedMatch)).willReturn(changedMatch);
+        given(matchService.save(changedMatch)).willThrow(new ObjectOptimisticLockingFailureException(Match.class, 7L));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                put("/api/matches/7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(matchDtoJsonContent.getJson())
+                        .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+        assertThat(meterRegistry.get("match.conflicts").tag("source", "admin").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void getMatchReturnsVersionOfMatchAsETag() throws Exception {
+        Match match = getRandomMatch(7L);
+        match.setVersion(3L);
+
+        // Given
+        given(matchService.findByIdForReading(7L)).willReturn(match);
+        given(matchResourceAssembler.toResource(match)).willReturn(buildMatchResource(match));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/7")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader("ETag")).isEqualTo("\"3-0\"");
+    }
+
+    @Test
+    public void getMatchReturnsNotModifiedWithoutLoadingMatch() throws Exception {
+        // Given
+        versionCache.putVersion(7L, 3L);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/7")
+                .header("If-None-Match", "\"3-0\"")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getHeader("ETag")).isEqualTo("\"3-0\"");
+        verify(matchService, times(0)).findByIdForReading(anyLong());
+        verify(matchResourceAssembler, times(0)).toResource(any());
+    }
+
+    @Test
+    public void getMatchWritesCachedResponseOfFinishedMatch() throws Exception {
+        byte[] body = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+        FinishedMatchResponseCache.CachedResponse cached = new FinishedMatchResponseCache.CachedResponse(
+                FinishedMatchResponseCache.View.MATCH, 7L, 4L, 0L, "", MediaType.APPLICATION_JSON_UTF8, body);
+
+        // Given
+        given(responseCache.get(FinishedMatchResponseCache.View.MATCH, 7L)).willReturn(Optional.of(cached));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/7")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        assertThat(response.getHeader("ETag")).isEqualTo("\"4-0\"");
+        verify(matchService, times(0)).findByIdForReading(anyLong());
+    }
+
+    @Test
+    public void getMatchSerializesFinishedMatchOnce() throws Exception {
+        Match match = getRandomMatch(7L);
+        match.setStatus(Match.Status.FINISHED);
+        MatchResource resource = buildMatchResource(match);
+        byte[] body = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+
+        // Given
+        given(matchService.findByIdForReading(7L)).willReturn(match);
+        given(matchResourceAssembler.toResource(match)).willReturn(resource);
+        given(responseCache.serialize(FinishedMatchResponseCache.View.MATCH, match, 0L, resource, MatchResource.class))
+                .willReturn(new FinishedMatchResponseCache.CachedResponse(FinishedMatchResponseCache.View.MATCH,
+                        7L, 0L, 0L, "", MediaType.APPLICATION_JSON_UTF8, body));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/matches/7")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+    }
+
+    @Test
+    public void getMatchDoesNotUseCacheForOtherMediaTypes() throws Exception {
+        Match match = getRandomMatch(7L);
+        match.setStatus(Match.Status.FINISHED);
+
+        // Given
+        given(matchService.findByIdForReading(7L)).willReturn(match);
+        given(matchResourceAssembler.toResource(match)).willReturn(buildMatchResource(match));
+
+        // When
+        mockMvc.perform(get("/api/matches/7").accept(MediaType.APPLICATION_XML)).andReturn().getResponse();
+
+        // Then
+        verify(responseCache, times(0)).get(any(), anyLong());
+        verify(responseCache, times(0)).serialize(any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    public void deleteMatchRemovesCachedResponses() throws Exception {
+        // Given
+        given(matchService.deleteById(7L)).willReturn(true);
+
+        // When
+        mockMvc.perform(delete("/api/matches/7")).andReturn().getResponse();
+
+        // Then
+        verify(responseCache, times(1)).remove(7L);
+    }
 }
@@ -13,6 +13,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.*;
 import java.time.format.DateTimeParseException;
@@ -20,7 +21,10 @@ import java.util.*;
 
 import static ml.echelon133.sportevents.TestUtils.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -40,6 +44,12 @@ public class MatchServiceTest {
     @Mock
     private StadiumService stadiumService;
 
+    @Mock
+    private MatchVersionCache versionCache;
+
+    @Mock
+    private LiveMatchStore liveMatchStore;
+
     @InjectMocks
     private MatchServiceImpl matchService;
 
@@ -57,10 +67,11 @@ public class MatchServiceTest {
         List<Match> matches = Collections.singletonList(match);
 
         // Given
-        given(matchRepository.findAllByStatusEquals(Match.Status.valueOf("NOT_STARTED"))).willReturn(matches);
+        given(matchRepository.findAllByStatusEqualsAndIdGreaterThanOrderByIdAsc(
+                Match.Status.NOT_STARTED, 0L, PageRequest.of(0, 10))).willReturn(matches);
 
         // When
-        List<Match> results = matchService.findAllWithStatus("NOT_STARTED");
+        List<Match> results = matchService.findAllWithStatus("NOT_STARTED", 0L, 10);
 
         // Then
         Match receivedMatch = results.get(0);
@@ -68,15 +79,179 @@ public class MatchServiceTest {
         assertThat(receivedMatch.getStatus()).isEqualTo(Match.Status.NOT_STARTED);
     }
 
+    private Match getRandomMatchOf(long id, long startDate) {
+        Match match = getRandomMatch();
+        match.setId(id);
+        match.setStartDate(new Date(startDate));
+        return match;
+    }
+
+    @Test
+    public void findAllOfTeamMergesMatchesOfBothSidesFromNewest() throws Exception {
+        Match first = getRandomMatchOf(1L, 1000L);
+        Match second = getRandomMatchOf(2L, 2000L);
+        Match third = getRandomMatchOf(3L, 3000L);
+        Match sameTimeAsThird = getRandomMatchOf(4L, 3000L);
+
+        // Given
+        given(matchRepository.findHistoryAsTeamA(eq(1L), eq(null), any(), any(), any(), eq(Long.MAX_VALUE),
+                                                  eq(PageRequest.of(0, 3)))).willReturn(Arrays.asList(third, first));
+        given(matchRepository.findHistoryAsTeamB(eq(1L), eq(null), any(), any(), any(), eq(Long.MAX_VALUE),
+                                                  eq(PageRequest.of(0, 3)))).willReturn(Arrays.asList(sameTimeAsThird, second));
+
+        // When
+        List<Match> results = matchService.findAllOfTeam(1L, null, null, null, null, 3);
+
+        // Then
+        assertThat(results).isEqualTo(Arrays.asList(sameTimeAsThird, third, second));
+    }
+
+    @Test
+    public void findAllOfTeamReadsMatchesOlderThanCursorWithinDates() throws Exception {
+        Date cursorDate = new Date(5000L);
+        ZoneId zone = ZoneId.systemDefault();
+        Date from = Date.from(LocalDate.of(2018, 1, 1).atStartOfDay(zone).toInstant());
+        Date to = Date.from(LocalDate.of(2019, 1, 1).atStartOfDay(zone).toInstant());
+
+        // Given
+        given(matchRepository.findStartDateById(20L)).willReturn(Optional.of(cursorDate));
+
+        // When
+        matchService.findAllOfTeam(1L, "FINISHED", "2018-01-01", "2018-12-31", 20L, 10);
+
+        // Then
+        verify(matchRepository, times(1)).findHistoryAsTeamA(1L, Match.Status.FINISHED, from, to, cursorDate, 20L,
+                                                             PageRequest.of(0, 10));
+        verify(matchRepository, times(1)).findHistoryAsTeamB(1L, Match.Status.FINISHED, from, to, cursorDate, 20L,
+                                                             PageRequest.of(0, 10));
+    }
+
+    @Test(expected = ResourceDoesNotExistException.class)
+    public void findAllOfTeamThrowsExceptionWhenCursorMatchDoesNotExist() throws Exception {
+        // Given
+        given(matchRepository.findStartDateById(20L)).willReturn(Optional.empty());
+
+        // When
+        matchService.findAllOfTeam(1L, null, null, null, 20L, 10);
+    }
+
+    @Test
+    public void findAllOfTeamReturnsEmptyListWhenStatusIncorrect() throws Exception {
+        // When
+        List<Match> results = matchService.findAllOfTeam(1L, "NOT_EXISTING_STATUS", null, null, null, 10);
+
+        // Then
+        assertThat(results).isEqualTo(Collections.emptyList());
+    }
+
     @Test
     public void findAllWithStatusReturnsEmptyListWhenStatusIncorrect() {
         // When
-        List<Match> results = matchService.findAllWithStatus("NOT_EXISTING_STATUS");
+        List<Match> results = matchService.findAllWithStatus("NOT_EXISTING_STATUS", 0L, 10);
 
         // Then
         assertThat(results).isEqualTo(Collections.emptyList());
     }
 
+    @Test
+    public void findAllWithStatusReadsLiveMatchesFromStore() {
+        Match match = getRandomMatch();
+        match.setStatus(Match.Status.FIRST_HALF);
+
+        // Given
+        given(liveMatchStore.findAllWithStatus(Match.Status.FIRST_HALF, 0L, 10))
+                .willReturn(Optional.of(Collections.singletonList(match)));
+
+        // When
+        List<Match> results = matchService.findAllWithStatus("FIRST_HALF", 0L, 10);
+
+        // Then
+        assertThat(results.get(0)).isEqualTo(match);
+        verify(matchRepository, times(0)).findAllByStatusEqualsAndIdGreaterThanOrderByIdAsc(any(), any(), any());
+    }
+
+    @Test
+    public void findSummariesWithStatusMakesSummariesOfLiveMatchesFromStore() {
+        Match match = getRandomMatch();
+        match.setStatus(Match.Status.SECOND_HALF);
+        match.getResult().addGoalTeamA(50L, "Test scorer");
+
+        // Given
+        given(liveMatchStore.findAllWithStatus(Match.Status.SECOND_HALF, 0L, 10))
+                .willReturn(Optional.of(Collections.singletonList(match)));
+
+        // When
+        List<MatchSummary> results = matchService.findSummariesWithStatus("SECOND_HALF", 0L, 10);
+
+        // Then
+        MatchSummary summary = results.get(0);
+        assertThat(summary.getId()).isEqualTo(match.getId());
+        assertThat(summary.getStatus()).isEqualTo(Match.Status.SECOND_HALF);
+        assertThat(summary.getTeamAName()).isEqualTo(match.getTeamA().getName());
+        assertThat(summary.getTeamBName()).isEqualTo(match.getTeamB().getName());
+        assertThat(summary.getTeamAGoals()).isEqualTo(1L);
+        assertThat(summary.getTeamBGoals()).isEqualTo(0L);
+        verify(matchRepository, times(0)).findSummariesWithStatus(any(), any(), any());
+    }
+
+    @Test
+    public void findSummariesWithStatusReturnsEmptyListWhenStatusIncorrect() {
+        // When
+        List<MatchSummary> results = matchService.findSummariesWithStatus("NOT_EXISTING_STATUS", 0L, 10);
+
+        // Then
+        assertThat(results).isEqualTo(Collections.emptyList());
+    }
+
+    @Test
+    public void findSummariesWithDateWithinUsesSamePeriodAsFindAllWithDateWithin() {
+        List<MatchSummary> summaries = Collections.singletonList(new MatchSummary(getRandomMatch()));
+
+        LocalDateTime weekFromNow = LocalDateTime.now(fixedClock).plusDays(7);
+        Date currentDate = Date.from(fixedClock.instant());
+        Date futureDate = Date.from(weekFromNow.atZone(ZoneId.systemDefault()).toInstant());
+
+        // Given
+        given(matchRepository.findSummariesWithStartDateBetween(
+                currentDate, futureDate, 0L, PageRequest.of(0, 10))).willReturn(summaries);
+
+        // When
+        List<MatchSummary> results = matchService.findSummariesWithDateWithin("WEEK", 0L, 10);
+
+        // Then
+        assertThat(results).isEqualTo(summaries);
+    }
+
+    @Test
+    public void findByIdForReadingReadsLiveMatchFromStore() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(liveMatchStore.findById(1L)).willReturn(Optional.of(match));
+
+        // When
+        Match result = matchService.findByIdForReading(1L);
+
+        // Then
+        assertThat(result).isEqualTo(match);
+        verify(matchRepository, times(0)).findById(any());
+    }
+
+    @Test
+    public void findByIdForReadingReadsOtherMatchesFromDatabase() throws Exception {
+        Match match = getRandomMatch(1L);
+
+        // Given
+        given(liveMatchStore.findById(1L)).willReturn(Optional.empty());
+        given(matchRepository.findById(1L)).willReturn(Optional.of(match));
+
+        // When
+        Match result = matchService.findByIdForReading(1L);
+
+        // Then
+        assertThat(result).isEqualTo(match);
+    }
+
     @Test(expected = ResourceDoesNotExistException.class)
     public void findByIdThrowsExceptionIfStadiumDoesNotExist() throws Exception {
         // Given
@@ -224,12 +399,30 @@ public class MatchServiceTest {
 
         // Then
         assertThat(response).isTrue();
+        verify(versionCache, times(1)).removeAfterCommit(1L);
+        verify(liveMatchStore, times(1)).removeAfterCommit(1L);
+    }
+
+    @Test
+    public void saveStoresVersionOfSavedMatch() {
+        Match match = getRandomMatch();
+        match.setWebsocketPath("/matches/" + match.getId());
+
+        // Given
+        given(matchRepository.save(match)).willReturn(match);
+
+        // When
+        matchService.save(match);
+
+        // Then
+        verify(versionCache, times(1)).putVersionAfterCommit(match);
+        verify(liveMatchStore, times(1)).putAfterCommit(match);
     }
 
     @Test
     public void findAllWithDateWithinReturnsEmptyListWhenArgumentIsInvalid() {
         // When
-        List<Match> receivedMatches = matchService.findAllWithDateWithin("ASDF");
+        List<Match> receivedMatches = matchService.findAllWithDateWithin("ASDF", 0L, 10);
 
         // Then
         assertThat(receivedMatches).isEqualTo(Collections.emptyList());
@@ -247,10 +440,11 @@ public class MatchServiceTest {
         Date futureDate = Date.from(dayFromNow.atZone(ZoneId.systemDefault()).toInstant());
 
         // Given
-        given(matchRepository.findAllByStartDateBetween(currentDate, futureDate)).willReturn(matches);
+        given(matchRepository.findAllByStartDateBetweenAndIdGreaterThanOrderByIdAsc(
+                currentDate, futureDate, 0L, PageRequest.of(0, 10))).willReturn(matches);
 
         // When
-        List<Match> receivedMatches = matchService.findAllWithDateWithin("DAY");
+        List<Match> receivedMatches = matchService.findAllWithDateWithin("DAY", 0L, 10);
 
         // Then
         Match receivedMatch = receivedMatches.get(0);
@@ -270,10 +464,11 @@ public class MatchServiceTest {
         Date futureDate = Date.from(threeDaysFromNow.atZone(ZoneId.systemDefault()).toInstant());
 
         // Given
-        given(matchRepository.findAllByStartDateBetween(currentDate, futureDate)).willReturn(matches);
+        given(matchRepository.findAllByStartDateBetweenAndIdGreaterThanOrderByIdAsc(
+                currentDate, futureDate, 0L, PageRequest.of(0, 10))).willReturn(matches);
 
         // When
-        List<Match> receivedMatches = matchService.findAllWithDateWithin("THREE_DAYS");
+        List<Match> receivedMatches = matchService.findAllWithDateWithin("THREE_DAYS", 0L, 10);
 
         // Then
         Match receivedMatch = receivedMatches.get(0);
@@ -292,10 +487,11 @@ public class MatchServiceTest {
         Date futureDate = Date.from(weekFromNow.atZone(ZoneId.systemDefault()).toInstant());
 
         // Given
-        given(matchRepository.findAllByStartDateBetween(currentDate, futureDate)).willReturn(matches);
+        given(matchRepository.findAllByStartDateBetweenAndIdGreaterThanOrderByIdAsc(
+                currentDate, futureDate, 0L, PageRequest.of(0, 10))).willReturn(matches);
 
         // When
-        List<Match> receivedMatches = matchService.findAllWithDateWithin("WEEK");
+        List<Match> receivedMatches = matchService.findAllWithDateWithin("WEEK", 0L, 10);
 
         // Then
         Match receivedMatch = receivedMatches.get(0);
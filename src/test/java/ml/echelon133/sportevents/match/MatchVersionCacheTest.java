@@ -0,0 +1,104 @@
+package ml.echelon133.sportevents.match;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class MatchVersionCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReferenceDataVersion referenceDataVersion;
+    private MatchVersionCache versionCache;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        referenceDataVersion = new ReferenceDataVersion();
+        versionCache = new MatchVersionCache(meterRegistry, referenceDataVersion);
+    }
+
+    @After
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void getETagReturnsQuotedVersion() {
+        // Given
+        versionCache.putVersion(1L, 5L);
+
+        // When
+        String etag = versionCache.getETag(1L).get();
+
+        // Then
+        assertThat(etag).isEqualTo("\"5-0\"");
+        assertThat(versionCache.getETag(2L).isPresent()).isFalse();
+        assertThat(meterRegistry.get("match.versions.hits").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("match.versions.misses").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void eTagChangesWhenReferenceDataChanges() {
+        // Given
+        versionCache.putVersion(1L, 5L);
+
+        // When
+        // ex. a team of the match was renamed, which does not change the version of the match
+        referenceDataVersion.increment();
+
+        // Then
+        assertThat(versionCache.getETag(1L).get()).isEqualTo("\"5-1\"");
+    }
+
+    @Test
+    public void olderVersionDoesNotReplaceNewerVersion() {
+        // Given
+        versionCache.putVersion(1L, 5L);
+
+        // When
+        versionCache.putVersion(1L, 4L);
+
+        // Then
+        assertThat(versionCache.getETag(1L).get()).isEqualTo("\"5-0\"");
+    }
+
+    @Test
+    public void putVersionAfterCommitReadsVersionAfterCommit() {
+        Match match = getRandomMatch(1L);
+        match.setVersion(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        versionCache.putVersionAfterCommit(match);
+        // version is incremented when the transaction is flushed
+        match.setVersion(2L);
+
+        // Then
+        assertThat(versionCache.getETag(1L).isPresent()).isFalse();
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(versionCache.getETag(1L).get()).isEqualTo("\"2-0\"");
+    }
+
+    @Test
+    public void removedVersionIsNotReturned() {
+        // Given
+        versionCache.putVersion(1L, 5L);
+
+        // When
+        versionCache.remove(1L);
+
+        // Then
+        assertThat(versionCache.getETag(1L).isPresent()).isFalse();
+    }
+}
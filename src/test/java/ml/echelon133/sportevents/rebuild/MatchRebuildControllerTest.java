@@ -0,0 +1,99 @@
+package ml.echelon133.sportevents.rebuild;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.MatchEventLanes;
+import ml.echelon133.sportevents.exception.APIExceptionHandler;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MatchRebuildControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private MatchRebuildService rebuildService;
+
+    // Real lanes, so that tasks submitted by the controller are actually executed
+    @Spy
+    private MatchEventLanes eventLanes = new MatchEventLanes(mock(PlatformTransactionManager.class),
+                                                             new SimpleMeterRegistry(), 16, 1, 3);
+
+    @InjectMocks
+    private MatchRebuildController rebuildController;
+
+    @InjectMocks
+    private APIExceptionHandler exceptionHandler;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(rebuildController)
+                .setControllerAdvice(exceptionHandler)
+                .build();
+    }
+
+    @Test
+    public void rebuildMatchUsesSnapshotByDefault() throws Exception {
+        // Given
+        given(rebuildService.rebuild(10L, true)).willReturn(new RebuildResult(10L, 3, true));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(post("/api/matches/10/rebuild"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).isEqualTo("{\"matchId\":10,\"replayedEvents\":3,\"snapshotUsed\":true}");
+    }
+
+    @Test
+    public void rebuildMatchReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
+        // Given
+        given(rebuildService.rebuild(10L, false))
+                .willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(post("/api/matches/10/rebuild?useSnapshot=false"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(response.getContentAsString()).contains("Match with this id does not exist");
+    }
+
+    @Test
+    public void rebuildAllMatchesIgnoresSnapshotsByDefault() throws Exception {
+        // Given
+        given(rebuildService.rebuildAll(false))
+                .willReturn(new RebuildSummary(2, 1, Collections.singletonList(5L), 40L, 15L));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(post("/api/matches/rebuild"))
+                .andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsString()).contains("\"matches\":2");
+        assertThat(response.getContentAsString()).contains("\"failedMatchIds\":[5]");
+        assertThat(response.getContentAsString()).contains("\"replayedEvents\":40");
+    }
+}
@@ -0,0 +1,257 @@
+package ml.echelon133.sportevents.rebuild;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.MatchEventLanes;
+import ml.echelon133.sportevents.event.MatchEventRepository;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.event.types.GoalEvent;
+import ml.echelon133.sportevents.event.types.ManagingEvent;
+import ml.echelon133.sportevents.event.types.PenaltyEvent;
+import ml.echelon133.sportevents.event.types.StandardEvent;
+import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
+import ml.echelon133.sportevents.match.Match;
+import ml.echelon133.sportevents.match.MatchService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MatchRebuildServiceTest {
+
+    @Mock
+    private MatchService matchService;
+
+    @Mock
+    private MatchEventRepository eventRepository;
+
+    @Mock
+    private MatchSnapshotRepository snapshotRepository;
+
+    private MatchEventLanes eventLanes;
+
+    private MatchRebuildServiceImpl rebuildService;
+
+    @Before
+    public void setup() {
+        eventLanes = new MatchEventLanes(mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 16, 4, 3);
+        rebuildService = new MatchRebuildServiceImpl(matchService, eventRepository, snapshotRepository,
+                                                     eventLanes, 10, 2);
+    }
+
+    @After
+    public void teardown() {
+        eventLanes.shutdown();
+    }
+
+    private List<AbstractMatchEvent> getTestHistory(Match match) {
+        List<AbstractMatchEvent> events = new ArrayList<>(Arrays.asList(
+                new ManagingEvent(1L, "Test", AbstractMatchEvent.EventType.START_FIRST_HALF, match),
+                new GoalEvent(10L, "Test", AbstractMatchEvent.EventType.GOAL, match, match.getTeamA(), "Player A"),
+                new ManagingEvent(45L, "Test", AbstractMatchEvent.EventType.FINISH_FIRST_HALF, match),
+                new ManagingEvent(46L, "Test", AbstractMatchEvent.EventType.START_SECOND_HALF, match),
+                new GoalEvent(80L, "Test", AbstractMatchEvent.EventType.GOAL, match, match.getTeamB(), "Player B"),
+                new ManagingEvent(90L, "Test", AbstractMatchEvent.EventType.FINISH_SECOND_HALF, match),
+                new ManagingEvent(91L, "Test", AbstractMatchEvent.EventType.START_OT_FIRST_HALF, match),
+                new ManagingEvent(105L, "Test", AbstractMatchEvent.EventType.FINISH_OT_FIRST_HALF, match),
+                new ManagingEvent(106L, "Test", AbstractMatchEvent.EventType.START_OT_SECOND_HALF, match),
+                new ManagingEvent(120L, "Test", AbstractMatchEvent.EventType.FINISH_OT_SECOND_HALF, match),
+                new PenaltyEvent(120L, "Test", AbstractMatchEvent.EventType.PENALTY, match, match.getTeamA()),
+                new PenaltyEvent(120L, "Test", AbstractMatchEvent.EventType.PENALTY, match, match.getTeamB()),
+                new PenaltyEvent(120L, "Test", AbstractMatchEvent.EventType.PENALTY, match, match.getTeamA()),
+                new ManagingEvent(120L, "Test", AbstractMatchEvent.EventType.FINISH_MATCH, match)));
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setId(i + 1L);
+        }
+        return events;
+    }
+
+    @Test
+    public void rebuildReplaysWholeHistoryWhenThereIsNoSnapshot() throws Exception {
+        Match match = getRandomMatch(1L);
+        // state that does not match the history, ex. after a bug
+        match.setStatus(Match.Status.SECOND_HALF);
+        match.getResult().addGoalTeamA(5L, "Wrong");
+        match.getResult().addGoalTeamA(6L, "Wrong");
+
+        List<AbstractMatchEvent> history = getTestHistory(match);
+
+        // Given
+        given(matchService.findById(1L)).willReturn(match);
+        given(snapshotRepository.findByMatchId(1L)).willReturn(Optional.empty());
+        given(eventRepository.findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(1L, 0L)).willReturn(history);
+
+        // When
+        RebuildResult result = rebuildService.rebuild(1L, true);
+
+        // Then
+        assertThat(result.getReplayedEvents()).isEqualTo(14);
+        assertThat(result.isSnapshotUsed()).isFalse();
+        assertThat(match.getStatus()).isEqualTo(Match.Status.FINISHED);
+        assertThat(match.getEventCount()).isEqualTo(14L);
+        assertThat(match.getResult().getTeamAGoals()).isEqualTo(1L);
+        assertThat(match.getResult().getTeamBGoals()).isEqualTo(1L);
+        assertThat(match.getResult().getTeamAGoalInfo().get(0).getScorerName()).isEqualTo("Player A");
+        assertThat(match.getResult().getTeamBGoalInfo().get(0).getScorerName()).isEqualTo("Player B");
+        assertThat(match.getResult().getTeamAPenalties()).isEqualTo(2L);
+        assertThat(match.getResult().getTeamBPenalties()).isEqualTo(1L);
+        verify(matchService, times(1)).save(match);
+    }
+
+    @Test
+    public void rebuildReplaysOnlyEventsAfterSnapshot() throws Exception {
+        Match match = getRandomMatch(1L);
+        List<AbstractMatchEvent> history = getTestHistory(match);
+
+        // snapshot taken after the first 4 events of the history (second half has just started)
+        MatchSnapshot snapshot = new MatchSnapshot(1L);
+        snapshot.setLastEventId(4L);
+        snapshot.setEventCount(4L);
+        snapshot.setStatus(Match.Status.SECOND_HALF);
+        snapshot.setTeamAGoals(1L);
+        snapshot.setTeamBGoals(0L);
+        snapshot.setTeamAPenalties(0L);
+        snapshot.setTeamBPenalties(0L);
+        snapshot.getGoals().add(new SnapshotGoal(true, 10L, "Player A"));
+
+        // Given
+        given(matchService.findById(1L)).willReturn(match);
+        given(snapshotRepository.findByMatchId(1L)).willReturn(Optional.of(snapshot));
+        given(eventRepository.findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(1L, 4L))
+                .willReturn(history.subList(4, history.size()));
+
+        // When
+        RebuildResult result = rebuildService.rebuild(1L, true);
+
+        // Then
+        assertThat(result.getReplayedEvents()).isEqualTo(10);
+        assertThat(result.isSnapshotUsed()).isTrue();
+        assertThat(match.getStatus()).isEqualTo(Match.Status.FINISHED);
+        assertThat(match.getEventCount()).isEqualTo(14L);
+        assertThat(match.getResult().getTeamAGoals()).isEqualTo(1L);
+        assertThat(match.getResult().getTeamAGoalInfo().get(0).getScorerName()).isEqualTo("Player A");
+        assertThat(match.getResult().getTeamBGoals()).isEqualTo(1L);
+        assertThat(match.getResult().getTeamAPenalties()).isEqualTo(2L);
+
+        // snapshot now points at the last replayed event
+        assertThat(snapshot.getLastEventId()).isEqualTo(14L);
+        assertThat(snapshot.getStatus()).isEqualTo(Match.Status.FINISHED);
+        assertThat(snapshot.getGoals().size()).isEqualTo(2);
+        verify(snapshotRepository, times(1)).save(snapshot);
+    }
+
+    @Test
+    public void rebuildIgnoresSnapshotWhenAskedTo() throws Exception {
+        Match match = getRandomMatch(1L);
+        MatchSnapshot snapshot = new MatchSnapshot(1L);
+        snapshot.setLastEventId(4L);
+
+        // Given
+        given(matchService.findById(1L)).willReturn(match);
+        given(snapshotRepository.findByMatchId(1L)).willReturn(Optional.of(snapshot));
+        given(eventRepository.findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(1L, 0L)).willReturn(getTestHistory(match));
+
+        // When
+        RebuildResult result = rebuildService.rebuild(1L, false);
+
+        // Then
+        assertThat(result.getReplayedEvents()).isEqualTo(14);
+        assertThat(result.isSnapshotUsed()).isFalse();
+        assertThat(match.getStatus()).isEqualTo(Match.Status.FINISHED);
+        assertThat(snapshot.getLastEventId()).isEqualTo(14L);
+    }
+
+    @Test(expected = ResourceDoesNotExistException.class)
+    public void rebuildThrowsWhenMatchDoesNotExist() throws Exception {
+        // Given
+        given(matchService.findById(1L)).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+
+        // When
+        rebuildService.rebuild(1L, true);
+    }
+
+    @Test
+    public void takeSnapshotIfDueTakesSnapshotWhenIntervalIsCrossed() {
+        Match match = getRandomMatch(1L);
+        match.setStatus(Match.Status.FIRST_HALF);
+        match.getResult().addGoalTeamB(10L, "Player B");
+        match.setEventCount(11L);
+
+        // Given
+        given(eventRepository.findLastEventId(1L)).willReturn(120L);
+        given(snapshotRepository.findByMatchId(1L)).willReturn(Optional.empty());
+
+        // When
+        rebuildService.takeSnapshotIfDue(match, 9L);
+
+        // Then
+        ArgumentCaptor<MatchSnapshot> captor = ArgumentCaptor.forClass(MatchSnapshot.class);
+        verify(snapshotRepository, times(1)).save(captor.capture());
+        MatchSnapshot snapshot = captor.getValue();
+        assertThat(snapshot.getMatchId()).isEqualTo(1L);
+        assertThat(snapshot.getLastEventId()).isEqualTo(120L);
+        assertThat(snapshot.getEventCount()).isEqualTo(11L);
+        assertThat(snapshot.getStatus()).isEqualTo(Match.Status.FIRST_HALF);
+        assertThat(snapshot.getTeamBGoals()).isEqualTo(1L);
+        assertThat(snapshot.getGoals().get(0).isTeamA()).isFalse();
+    }
+
+    @Test
+    public void takeSnapshotIfDueDoesNothingWithinInterval() {
+        Match match = getRandomMatch(1L);
+        match.setEventCount(9L);
+
+        // When
+        rebuildService.takeSnapshotIfDue(match, 8L);
+
+        // Then
+        verify(snapshotRepository, times(0)).save(any());
+    }
+
+    @Test
+    public void rebuildAllRebuildsEveryMatchAndReportsFailures() throws Exception {
+        List<Long> matchIds = Arrays.asList(1L, 2L, 3L, 4L, 5L);
+
+        // Given
+        given(matchService.findAllIds()).willReturn(matchIds);
+        for (Long id : Arrays.asList(1L, 2L, 4L, 5L)) {
+            Match match = getRandomMatch(id);
+            given(matchService.findById(id)).willReturn(match);
+            given(eventRepository.findAllByMatch_IdAndIdGreaterThanOrderByIdAsc(eq(id), anyLong()))
+                    .willReturn(Collections.singletonList(
+                            new StandardEvent(1L, "Test", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, match)));
+        }
+        given(matchService.findById(3L)).willThrow(new ResourceDoesNotExistException("Match with this id does not exist"));
+        given(snapshotRepository.findByMatchId(anyLong())).willReturn(Optional.empty());
+
+        // When
+        RebuildSummary summary = rebuildService.rebuildAll(false);
+
+        // Then
+        assertThat(summary.getMatches()).isEqualTo(5);
+        assertThat(summary.getRebuiltMatches()).isEqualTo(4);
+        assertThat(summary.getReplayedEvents()).isEqualTo(4L);
+        assertThat(summary.getFailedMatchIds().size()).isEqualTo(1);
+        assertThat(summary.getFailedMatchIds().get(0)).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,139 @@
+package ml.echelon133.sportevents.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class NameIndexTest {
+
+    private NameIndex nameIndex;
+
+    @Before
+    public void setup() {
+        nameIndex = new NameIndex("test", new SimpleMeterRegistry());
+        nameIndex.load(Arrays.asList(new IndexedName(1L, "Real Madrid"),
+                                     new IndexedName(2L, "Real Betis"),
+                                     new IndexedName(3L, "\u0141KS \u0141\u00f3d\u017a"),
+                                     new IndexedName(4L, "Madrid"),
+                                     new IndexedName(5L, "Atl\u00e9tico Madrid"),
+                                     new IndexedName(6L, "Widzew \u0141\u00f3d\u017a")));
+    }
+
+    @After
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<Long> searchIds(String text) {
+        return nameIndex.search(text, 10).stream().map(NameIndex.Hit::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void foldIgnoresCaseDiacriticsAndRepeatedWhitespace() {
+        assertThat(NameIndex.fold("  \u015al\u0105sk  WROC\u0141AW ")).isEqualTo("slask wroclaw");
+        assertThat(NameIndex.fold("Atl\u00e9tico")).isEqualTo("atletico");
+        assertThat(NameIndex.fold("Fu\u00dfball")).isEqualTo("fussball");
+    }
+
+    @Test
+    public void searchFindsNamesWithoutDiacritics() {
+        assertThat(searchIds("lodz")).isEqualTo(Arrays.asList(3L, 6L));
+        assertThat(searchIds("ATLETICO")).isEqualTo(Collections.singletonList(5L));
+    }
+
+    @Test
+    public void searchRanksPrefixesThenWordsThenSubstrings() {
+        // "Madrid" starts with it, "Real Madrid" and "Atletico Madrid" have a word that starts with it
+        assertThat(searchIds("madrid")).isEqualTo(Arrays.asList(4L, 1L, 5L));
+        // Both names start with it, so they are ordered alphabetically
+        assertThat(searchIds("rea")).isEqualTo(Arrays.asList(2L, 1L));
+        // All names contain it only inside of a word
+        assertThat(searchIds("ad")).isEqualTo(Arrays.asList(5L, 4L, 1L));
+    }
+
+    @Test
+    public void searchFindsSubstringsLongerThanTrigrams() {
+        assertThat(searchIds("al madr")).isEqualTo(Collections.singletonList(1L));
+        assertThat(searchIds("drid x")).isEqualTo(Collections.emptyList());
+    }
+
+    @Test
+    public void searchReturnsAtMostLimitNames() {
+        // "LKS Lodz" starts with it, "Widzew Lodz" has a word that starts with it
+        assertThat(nameIndex.search("l", 2).stream().map(NameIndex.Hit::getId).collect(Collectors.toList()))
+                .isEqualTo(Arrays.asList(3L, 6L));
+        assertThat(nameIndex.search("", 3).size()).isEqualTo(3);
+    }
+
+    @Test
+    public void putReplacesNameOfEntity() {
+        // When
+        nameIndex.put(2L, "Real Sociedad");
+
+        // Then
+        assertThat(searchIds("betis")).isEqualTo(Collections.emptyList());
+        assertThat(searchIds("sociedad")).isEqualTo(Collections.singletonList(2L));
+    }
+
+    @Test
+    public void removeRemovesEntity() {
+        // When
+        nameIndex.remove(4L);
+
+        // Then
+        assertThat(searchIds("madrid")).isEqualTo(Arrays.asList(1L, 5L));
+        assertThat(nameIndex.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void findIdsContainingReturnsPageOrderedById() {
+        // When
+        Optional<List<Long>> ids = nameIndex.findIdsContaining("MADRID", 1L, 1);
+
+        // Then
+        assertThat(ids).isEqualTo(Optional.of(Collections.singletonList(4L)));
+    }
+
+    @Test
+    public void findIdsContainingReturnsNothingUntilIndexIsLoaded() {
+        // Given
+        NameIndex notLoaded = new NameIndex("test", new SimpleMeterRegistry());
+
+        // When
+        Optional<List<Long>> ids = notLoaded.findIdsContaining("madrid", 0L, 10);
+
+        // Then
+        assertThat(ids).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void changesAreAppliedOnlyAfterCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        nameIndex.putAfterCommit(7L, "Barcelona");
+        nameIndex.removeAfterCommit(1L);
+
+        // Then
+        assertThat(searchIds("barcelona")).isEqualTo(Collections.emptyList());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(searchIds("barcelona")).isEqualTo(Collections.singletonList(7L));
+        assertThat(searchIds("real madrid")).isEqualTo(Collections.emptyList());
+    }
+}
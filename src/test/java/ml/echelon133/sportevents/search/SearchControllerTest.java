@@ -0,0 +1,75 @@
+package ml.echelon133.sportevents.search;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private SearchService searchService;
+
+    @InjectMocks
+    private SearchController searchController;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(searchController).build();
+    }
+
+    @Test
+    public void searchReturnsHitsOfEveryKind() throws Exception {
+        SearchResults results = new SearchResults(Collections.singletonList(new NameIndex.Hit(1L, "Test team")),
+                                                  Collections.singletonList(new NameIndex.Hit(2L, "Test league")),
+                                                  Collections.emptyList());
+
+        // Given
+        given(searchService.search("test", SearchController.DEFAULT_LIMIT)).willReturn(results);
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/search?q=test")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.teams[0].id").toString()).isEqualTo("1");
+        assertThat(json.read("$.teams[0].name").toString()).isEqualTo("Test team");
+        assertThat(json.read("$.leagues[0].name").toString()).isEqualTo("Test league");
+        assertThat(json.read("$.stadiums.length()").toString()).isEqualTo("0");
+    }
+
+    @Test
+    public void searchLimitsNumberOfHits() throws Exception {
+        // Given
+        given(searchService.search("test", SearchController.MAX_LIMIT))
+                .willReturn(new SearchResults(Collections.emptyList(), Collections.emptyList(), Collections.emptyList()));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/search?q=test&limit=1000")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+}
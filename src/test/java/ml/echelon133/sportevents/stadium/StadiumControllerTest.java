@@ -62,7 +62,7 @@ public class StadiumControllerTest {
     @Test
     public void getStadiumsReturnsEmptyResourcesCorrectly() throws Exception {
         // Given
-        given(stadiumService.findAll()).willReturn(Collections.emptyList());
+        given(stadiumService.findAll(0L, 101)).willReturn(Collections.emptyList());
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/stadiums")
@@ -81,7 +81,7 @@ public class StadiumControllerTest {
         Stadium stadium = buildStadium(1L, "Test stadium", "Test city", 40000);
 
         // Given
-        given(stadiumService.findAll()).willReturn(Collections.singletonList(stadium));
+        given(stadiumService.findAll(0L, 101)).willReturn(Collections.singletonList(stadium));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/stadiums")
@@ -104,7 +104,7 @@ public class StadiumControllerTest {
     @Test
     public void getStadiumReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
         // Given
-        given(stadiumService.findById(1L)).willThrow(new ResourceDoesNotExistException("Stadium with this id does not exist"));
+        given(stadiumService.findByIdForReading(1L)).willThrow(new ResourceDoesNotExistException("Stadium with this id does not exist"));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/stadiums/1")
@@ -120,7 +120,7 @@ public class StadiumControllerTest {
         Stadium stadium = buildStadium(1L, "Test stadium", "Test city", 40000);
 
         // Given
-        given(stadiumService.findById(1L)).willReturn(stadium);
+        given(stadiumService.findByIdForReading(1L)).willReturn(stadium);
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/stadiums/1")
@@ -1,5 +1,6 @@
 package ml.echelon133.sportevents.stadium;
 
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,6 +14,8 @@ import static ml.echelon133.sportevents.TestUtils.buildStadium;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class StadiumServiceTest {
@@ -20,6 +23,15 @@ public class StadiumServiceTest {
     @Mock
     private StadiumRepository stadiumRepository;
 
+    @Mock
+    private StadiumCache stadiumCache;
+
+    @Mock
+    private StadiumNameIndex stadiumNameIndex;
+
+    @Mock
+    private ReferenceDataVersion referenceDataVersion;
+
     @InjectMocks
     private StadiumServiceImpl stadiumService;
 
@@ -71,5 +83,8 @@ public class StadiumServiceTest {
 
         // Then
         assertThat(response).isTrue();
+        verify(stadiumCache, times(1)).invalidateAfterCommit(1L);
+        verify(stadiumNameIndex, times(1)).removeAfterCommit(1L);
+        verify(referenceDataVersion, times(1)).incrementAfterCommit();
     }
 }
@@ -9,6 +9,7 @@ import ml.echelon133.sportevents.league.*;
 import ml.echelon133.sportevents.match.Match;
 import ml.echelon133.sportevents.match.MatchResource;
 import ml.echelon133.sportevents.match.MatchResourceAssembler;
+import ml.echelon133.sportevents.match.MatchService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -23,6 +24,7 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -40,6 +42,9 @@ public class TeamControllerTest {
     @Mock
     private TeamService teamService;
 
+    @Mock
+    private MatchService matchService;
+
     @Mock
     private TeamResourceAssembler teamResourceAssembler;
 
@@ -65,7 +70,7 @@ public class TeamControllerTest {
     @Test
     public void getTeamsReturnsEmptyResourcesCorrectly() throws Exception {
         // Given
-        given(teamService.findAll()).willReturn(Collections.emptyList());
+        given(teamService.findAll(0L, 101)).willReturn(Collections.emptyList());
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/teams")
@@ -79,6 +84,30 @@ public class TeamControllerTest {
         assertThat(responseJson.read("$.content").toString()).isEqualTo("[]");
     }
 
+    @Test
+    public void getTeamsWithSummaryViewReturnsSummaries() throws Exception {
+        TeamSummary summary = new TeamSummary(3L, "test team", 1L, "test league");
+
+        // Given
+        given(teamService.findSummariesByNameContaining("test", 0L, 101))
+                .willReturn(Collections.singletonList(summary));
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/teams")
+                .param("view", "summary")
+                .param("nameContains", "test")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.content[0].id").toString()).isEqualTo("3");
+        assertThat(json.read("$.content[0].name").toString()).isEqualTo("test team");
+        assertThat(json.read("$.content[0].leagueName").toString()).isEqualTo("test league");
+        assertThat(json.read("$.links[?(@.rel=='next')]").toString()).isEqualTo("[]");
+    }
+
     @Test
     public void getTeamsReturnsFilteredResourcesCorrectly() throws Exception {
         League testLeague = buildLeague(1L, "test league", "test country");
@@ -89,7 +118,7 @@ public class TeamControllerTest {
         List<TeamResource> teamResources = Collections.singletonList(teamResource);
 
         // Given
-        given(teamService.findAllByNameContaining("test")).willReturn(teams);
+        given(teamService.findAllByNameContaining("test", 0L, 101)).willReturn(teams);
         given(teamResourceAssembler.toResources(teams)).willReturn(teamResources);
 
         // When
@@ -126,7 +155,7 @@ public class TeamControllerTest {
         List<TeamResource> teamResources = Collections.singletonList(teamResource);
 
         // Given
-        given(teamService.findAll()).willReturn(teams);
+        given(teamService.findAll(0L, 101)).willReturn(teams);
         given(teamResourceAssembler.toResources(teams)).willReturn(teamResources);
 
         // When
@@ -159,7 +188,7 @@ public class TeamControllerTest {
     @Test
     public void getTeamReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
         // Given
-        given(teamService.findById(anyLong())).willThrow(new ResourceDoesNotExistException("Team with this id does not exist"));
+        given(teamService.findByIdForReading(anyLong())).willThrow(new ResourceDoesNotExistException("Team with this id does not exist"));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/teams/1")
@@ -177,7 +206,7 @@ public class TeamControllerTest {
         TeamResource teamResource = buildTeamResource(testTeam);
 
         // Given
-        given(teamService.findById(3L)).willReturn(testTeam);
+        given(teamService.findByIdForReading(3L)).willReturn(testTeam);
         given(teamResourceAssembler.toResource(testTeam)).willReturn(teamResource);
 
         // When
@@ -209,7 +238,7 @@ public class TeamControllerTest {
     @Test
     public void getTeamMatchesReturnsCorrectResponseWhenResourceDoesNotExist() throws Exception {
         // Given
-        given(teamService.findById(anyLong())).willThrow(new ResourceDoesNotExistException("Team with this id does not exist"));
+        given(teamService.findByIdForReading(anyLong())).willThrow(new ResourceDoesNotExistException("Team with this id does not exist"));
 
         // When
         MockHttpServletResponse response = mockMvc.perform(get("/api/teams/1/matches")
@@ -227,11 +256,12 @@ public class TeamControllerTest {
         Team teamB = buildTeam(2L, "TeamB", league);
         Match match = buildMatch(20L, teamA, teamB, league, null);
 
-        List<Match> matches = teamA.getMatches();
+        List<Match> matches = Collections.singletonList(match);
         MatchResource matchResource = buildMatchResource(match);
 
         // Given
-        given(teamService.findById(1L)).willReturn(teamA);
+        given(teamService.findByIdForReading(1L)).willReturn(teamA);
+        given(matchService.findAllOfTeam(1L, null, null, null, null, 101)).willReturn(matches);
         given(matchResourceAssembler.toResources(matches)).willReturn(Collections.singletonList(matchResource));
 
         // When
@@ -260,6 +290,49 @@ public class TeamControllerTest {
                 .contains("/api\\/matches\\/" + match.getId());
     }
 
+    @Test
+    public void getTeamMatchesPassesFiltersAndAddsNextLinkWhenThereAreMoreMatches() throws Exception {
+        League league = buildLeague(5L, "Test league", "Test country");
+        Team teamA = buildTeam(1L, "TeamA", league);
+        Team teamB = buildTeam(2L, "TeamB", league);
+        List<Match> matches = Arrays.asList(buildMatch(30L, teamA, teamB, league, null),
+                                            buildMatch(20L, teamA, teamB, league, null),
+                                            buildMatch(10L, teamA, teamB, league, null));
+
+        // Given
+        given(teamService.findByIdForReading(1L)).willReturn(teamA);
+        given(matchService.findAllOfTeam(1L, "FINISHED", "2018-01-01", "2018-12-31", 40L, 3)).willReturn(matches);
+        given(matchResourceAssembler.toResources(matches.subList(0, 2))).willReturn(Collections.emptyList());
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(
+                get("/api/teams/1/matches?status=FINISHED&from=2018-01-01&to=2018-12-31&afterId=40&limit=2")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        DocumentContext json = JsonPath.parse(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(json.read("$.links[?(@.rel=='next')].href").toString())
+                .contains("/api\\/teams\\/1\\/matches?status=FINISHED&from=2018-01-01&to=2018-12-31&afterId=20&limit=2");
+    }
+
+    @Test
+    public void getTeamMatchesLimitsPageSize() throws Exception {
+        Team team = buildTeam(1L, "TeamA", buildLeague(5L, "Test league", "Test country"));
+
+        // Given
+        given(teamService.findByIdForReading(1L)).willReturn(team);
+        given(matchService.findAllOfTeam(1L, null, null, null, null, 501)).willReturn(Collections.emptyList());
+
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/teams/1/matches?limit=100000")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
     @Test
     public void createTeamTeamDtoNullFieldsAreValidated() throws Exception {
         TeamDto teamDto = new TeamDto(null, null);
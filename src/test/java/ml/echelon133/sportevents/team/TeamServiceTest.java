@@ -1,5 +1,7 @@
 package ml.echelon133.sportevents.team;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.cache.ReferenceDataVersion;
 import ml.echelon133.sportevents.exception.ResourceDoesNotExistException;
 import ml.echelon133.sportevents.league.League;
 import ml.echelon133.sportevents.league.LeagueService;
@@ -8,7 +10,11 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -17,6 +23,8 @@ import static ml.echelon133.sportevents.TestUtils.buildTeam;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TeamServiceTest {
@@ -27,6 +35,15 @@ public class TeamServiceTest {
     @Mock
     private LeagueService leagueService;
 
+    @Mock
+    private TeamCache teamCache;
+
+    @Mock
+    private TeamNameIndex teamNameIndex;
+
+    @Mock
+    private ReferenceDataVersion referenceDataVersion;
+
     @InjectMocks
     private TeamServiceImpl teamService;
 
@@ -162,5 +179,101 @@ public class TeamServiceTest {
 
         // Then
         assertThat(response).isTrue();
+        verify(teamCache, times(1)).invalidateAfterCommit(1L);
+        verify(teamNameIndex, times(1)).removeAfterCommit(1L);
+        verify(referenceDataVersion, times(1)).incrementAfterCommit();
+    }
+
+    @Test
+    public void findByIdForReadingLoadsTeamOnlyOnce() throws Exception {
+        Team team = buildTeam(1L, "Test team", buildLeague(1L, "Test league", "Test country"));
+        TeamServiceImpl cachingService = new TeamServiceImpl(teamRepository, leagueService,
+                                                             new TeamCache(new SimpleMeterRegistry(), 10, 60),
+                                                             teamNameIndex, referenceDataVersion);
+
+        // Given
+        given(teamRepository.findById(1L)).willReturn(Optional.of(team));
+
+        // When
+        cachingService.findByIdForReading(1L);
+        Team result = cachingService.findByIdForReading(1L);
+
+        // Then
+        assertThat(result).isEqualTo(team);
+        verify(teamRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void saveInvalidatesCachedTeam() {
+        Team team = buildTeam(1L, "Test team", buildLeague(1L, "Test league", "Test country"));
+
+        // Given
+        given(teamRepository.save(team)).willReturn(team);
+
+        // When
+        teamService.save(team);
+
+        // Then
+        verify(teamCache, times(1)).invalidateAfterCommit(1L);
+        verify(referenceDataVersion, times(1)).incrementAfterCommit();
+    }
+
+    @Test
+    public void saveUpdatesNameIndex() {
+        Team team = buildTeam(1L, "Test team", buildLeague(1L, "Test league", "Test country"));
+
+        // Given
+        given(teamRepository.save(team)).willReturn(team);
+
+        // When
+        teamService.save(team);
+
+        // Then
+        verify(teamNameIndex, times(1)).putAfterCommit(1L, "Test team");
+    }
+
+    @Test
+    public void findAllByNameContainingReadsTeamsFoundByNameIndex() {
+        List<Team> teams = Collections.singletonList(buildTeam(5L, "Test team", buildLeague(1L, "Test league", "Test country")));
+
+        // Given
+        given(teamNameIndex.findIdsContaining("test", 0L, 10)).willReturn(Optional.of(Arrays.asList(5L)));
+        given(teamRepository.findAllByIdInOrderByIdAsc(Arrays.asList(5L))).willReturn(teams);
+
+        // When
+        List<Team> result = teamService.findAllByNameContaining("test", 0L, 10);
+
+        // Then
+        assertThat(result).isEqualTo(teams);
+        verify(teamRepository, times(0)).findAllByNameContainingAndIdGreaterThanOrderByIdAsc(any(), any(), any());
+    }
+
+    @Test
+    public void findAllByNameContainingDoesNotQueryDatabaseWhenNoNameMatches() {
+        // Given
+        given(teamNameIndex.findIdsContaining("test", 0L, 10)).willReturn(Optional.of(Collections.emptyList()));
+
+        // When
+        List<Team> result = teamService.findAllByNameContaining("test", 0L, 10);
+
+        // Then
+        assertThat(result).isEqualTo(Collections.emptyList());
+        verify(teamRepository, times(0)).findAllByIdInOrderByIdAsc(any());
+    }
+
+    @Test
+    public void findAllByNameContainingSearchesDatabaseUntilNameIndexIsLoaded() {
+        List<Team> teams = Collections.singletonList(buildTeam(5L, "Test team", buildLeague(1L, "Test league", "Test country")));
+
+        // Given
+        given(teamNameIndex.findIdsContaining("test", 0L, 10)).willReturn(Optional.empty());
+        given(teamRepository.findAllByNameContainingAndIdGreaterThanOrderByIdAsc("test", 0L, PageRequest.of(0, 10)))
+                .willReturn(teams);
+
+        // When
+        List<Team> result = teamService.findAllByNameContaining("test", 0L, 10);
+
+        // Then
+        assertThat(result).isEqualTo(teams);
     }
 }
@@ -0,0 +1,139 @@
+package ml.echelon133.sportevents.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.event.types.StandardEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class MatchEventStreamsTest {
+
+    // Emitter of a client that does not read its stream, every write waits until the test ends.
+    // Like a real write, it holds the lock of the emitter while it waits
+    private static class BlockedEmitter extends SseEmitter {
+        private final CountDownLatch released;
+
+        BlockedEmitter(CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            synchronized (this) {
+                try {
+                    released.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(builder);
+            }
+        }
+    }
+
+    private static class CountingEmitter extends SseEmitter {
+        private final Semaphore sent;
+
+        CountingEmitter(Semaphore sent) {
+            this.sent = sent;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            super.send(builder);
+            sent.release();
+        }
+    }
+
+    private SimpleMeterRegistry meterRegistry;
+    private Queue<SseEmitter> emitters;
+    private MatchEventStreams eventStreams;
+    private CountDownLatch released;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        emitters = new ArrayDeque<>();
+        released = new CountDownLatch(1);
+        eventStreams = createEventStreams(2, 60, 2);
+    }
+
+    private MatchEventStreams createEventStreams(int writerThreads, long writeTimeoutSeconds, int queueCapacity) {
+        return new MatchEventStreams(meterRegistry, 60, writerThreads, writeTimeoutSeconds, queueCapacity) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMillis) {
+                return emitters.poll();
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        released.countDown();
+        eventStreams.shutdown();
+    }
+
+    private static AbstractMatchEvent getTestEvent(long id) {
+        StandardEvent event = new StandardEvent(id, "Test", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, null);
+        event.setId(id);
+        return event;
+    }
+
+    @Test
+    public void slowStreamIsClosedWithoutDelayingOtherStreams() throws Exception {
+        Semaphore sent = new Semaphore(0);
+        boolean allSent = true;
+
+        // Given
+        emitters.add(new BlockedEmitter(released));
+        emitters.add(new CountingEmitter(sent));
+        eventStreams.subscribe(1L, null, afterId -> null);
+        eventStreams.subscribe(1L, null, afterId -> null);
+
+        // When
+        // the other stream gets every event before the next one is sent, while events of the blocked one pile up
+        for (long id = 1; id <= 5; id++) {
+            eventStreams.send(1L, getTestEvent(id));
+            allSent &= sent.tryAcquire(1, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertThat(allSent).isTrue();
+        assertThat(eventStreams.getOpenCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("events.stream.slow").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void streamWithStuckWriteIsClosedAndOtherStreamsStillReceiveEvents() throws Exception {
+        Semaphore sent = new Semaphore(0);
+
+        // Given
+        eventStreams.shutdown();
+        // a single writer thread, which gets stuck in the first write to the blocked stream
+        eventStreams = createEventStreams(1, 1, 16);
+        emitters.add(new BlockedEmitter(released));
+        emitters.add(new CountingEmitter(sent));
+        eventStreams.subscribe(1L, null, afterId -> null);
+        eventStreams.subscribe(2L, null, afterId -> null);
+
+        // When
+        eventStreams.send(1L, getTestEvent(1L));
+        eventStreams.send(2L, getTestEvent(2L));
+
+        // Then
+        // the event of the other match is written once the stuck write misses its deadline
+        assertThat(sent.tryAcquire(1, 10, TimeUnit.SECONDS)).isTrue();
+        assertThat(eventStreams.getOpenCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("events.stream.slow").counter().count()).isEqualTo(1.0);
+    }
+}
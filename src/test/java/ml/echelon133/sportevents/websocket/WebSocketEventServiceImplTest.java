@@ -0,0 +1,151 @@
+package ml.echelon133.sportevents.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.echelon133.sportevents.event.types.AbstractMatchEvent;
+import ml.echelon133.sportevents.event.types.StandardEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static ml.echelon133.sportevents.TestUtils.getRandomMatch;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+public class WebSocketEventServiceImplTest {
+
+    private SimpMessagingTemplate template;
+    private MatchEventStreams eventStreams;
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketEventServiceImpl webSocketEventService;
+
+    @Before
+    public void setup() {
+        template = mock(SimpMessagingTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        eventStreams = mock(MatchEventStreams.class);
+        webSocketEventService = new WebSocketEventServiceImpl(template, eventStreams, meterRegistry, 1, 1);
+    }
+
+    @After
+    public void teardown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        webSocketEventService.shutdown();
+    }
+
+    private AbstractMatchEvent getTestEvent(String message) {
+        return new StandardEvent(1L, message, AbstractMatchEvent.EventType.STANDARD_DESCRIPTION, null);
+    }
+
+    @Test
+    public void sendEventOverWebSocketSendsEventWhenThereIsNoTransaction() {
+        AbstractMatchEvent event = getTestEvent("Test");
+
+        // When
+        webSocketEventService.sendEventOverWebSocket("/matches/1", event);
+
+        // Then
+        verify(template, timeout(1000)).convertAndSend("/matches/1", event);
+    }
+
+    @Test
+    public void sendEventOverWebSocketSendsEventOnlyAfterCommit() {
+        AbstractMatchEvent event = getTestEvent("Test");
+
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        webSocketEventService.sendEventOverWebSocket("/matches/1", event);
+
+        // Then
+        verify(template, after(100).never()).convertAndSend(anyString(), any(Object.class));
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        verify(template, timeout(1000)).convertAndSend("/matches/1", event);
+    }
+
+    @Test
+    public void sendEventOverWebSocketDoesNotSendEventWhenTransactionIsRolledBack() {
+        AbstractMatchEvent event = getTestEvent("Test");
+
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        webSocketEventService.sendEventOverWebSocket("/matches/1", event);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        verify(template, after(100).never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    public void sendEventOverWebSocketKeepsOrderOfEventsOfMatch() {
+        AbstractMatchEvent first = getTestEvent("First");
+        AbstractMatchEvent second = getTestEvent("Second");
+
+        // When
+        webSocketEventService.sendEventOverWebSocket("/matches/1", first);
+        webSocketEventService.sendEventOverWebSocket("/matches/1", second);
+
+        // Then
+        InOrder inOrder = inOrder(template);
+        inOrder.verify(template, timeout(1000)).convertAndSend("/matches/1", first);
+        inOrder.verify(template, timeout(1000)).convertAndSend("/matches/1", second);
+    }
+
+    @Test
+    public void sendEventOverWebSocketDropsEventsWhenQueueIsFull() throws Exception {
+        CountDownLatch sendStarted = new CountDownLatch(1);
+        CountDownLatch releaseSend = new CountDownLatch(1);
+
+        // Given
+        willAnswer(invocation -> {
+            sendStarted.countDown();
+            releaseSend.await(5, TimeUnit.SECONDS);
+            return null;
+        }).given(template).convertAndSend(anyString(), any(Object.class));
+
+        // When
+        long start = System.nanoTime();
+        // first event blocks the only thread, second one waits in the queue, third one does not fit
+        webSocketEventService.sendEventOverWebSocket("/matches/1", getTestEvent("First"));
+        sendStarted.await(5, TimeUnit.SECONDS);
+        webSocketEventService.sendEventOverWebSocket("/matches/1", getTestEvent("Second"));
+        webSocketEventService.sendEventOverWebSocket("/matches/1", getTestEvent("Third"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        releaseSend.countDown();
+
+        // Then
+        assertThat(meterRegistry.get("events.broadcast.dropped").counter().count()).isEqualTo(1.0);
+        verify(template, timeout(1000).times(2)).convertAndSend(anyString(), any(Object.class));
+        // the caller is never blocked by a slow broker
+        assertThat(elapsedMillis).isLessThan(5000L);
+    }
+
+    @Test
+    public void sendEventOverWebSocketWritesEventToStreamsOfMatchAfterWebSocket() {
+        AbstractMatchEvent event = new StandardEvent(1L, "Test", AbstractMatchEvent.EventType.STANDARD_DESCRIPTION,
+                                                     getRandomMatch(3L));
+
+        // When
+        webSocketEventService.sendEventOverWebSocket("/matches/3", event);
+
+        // Then
+        InOrder inOrder = inOrder(template, eventStreams);
+        inOrder.verify(template, timeout(1000)).convertAndSend("/matches/3", event);
+        inOrder.verify(eventStreams, timeout(1000)).send(3L, event);
+    }
+}